@@ -0,0 +1,100 @@
+/*
+ * Copyright 2017, TeamDev Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.spine3.gradle;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * Utilities for replacing the generated files, so that their readers never observe
+ * a partially written file.
+ *
+ * <p>The new contents are written to a {@linkplain #createTempFile(File) temporary file}
+ * next to the target file, which is then {@linkplain #replace(File, File) moved} in place of
+ * the target file.
+ */
+@SuppressWarnings("UtilityClass")
+public class FileUtil {
+
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+    // prevent instantiation of this utility class
+    private FileUtil() {
+    }
+
+    /**
+     * Creates a temporary file in the directory of the given file.
+     *
+     * <p>The temporary file is on the same file system as the target file, so it can be
+     * moved in place of the target file atomically.
+     *
+     * @param file the file to be replaced with the temporary file
+     * @return the created temporary file
+     */
+    public static File createTempFile(File file) {
+        try {
+            return File.createTempFile(file.getName(), TEMP_FILE_SUFFIX, file.getParentFile());
+        } catch (IOException e) {
+            final String errMsg = "Cannot create a temporary file at ";
+            throw new RuntimeException(errMsg + file.getParentFile()
+                                                    .getAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Moves the source file in place of the target file.
+     *
+     * <p>The target file is replaced atomically where the file system supports it.
+     *
+     * @param source the file to move
+     * @param target the file to replace
+     * @throws IOException if the file cannot be moved
+     */
+    public static void replace(File source, File target) throws IOException {
+        final Path sourcePath = source.toPath();
+        final Path targetPath = target.toPath();
+        try {
+            Files.move(sourcePath, targetPath, ATOMIC_MOVE, REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException ignored) {
+            log().debug("Atomic move is not supported for {}", targetPath);
+            Files.move(sourcePath, targetPath, REPLACE_EXISTING);
+        }
+    }
+
+    private static Logger log() {
+        return LogSingleton.INSTANCE.value;
+    }
+
+    private enum LogSingleton {
+        INSTANCE;
+        @SuppressWarnings("NonSerializableFieldInSerializableClass")
+        private final Logger value = LoggerFactory.getLogger(FileUtil.class);
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2017, TeamDev Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.spine3.tools.javadoc.fqnchecker;
+
+import java.nio.ByteBuffer;
+
+import static com.google.common.base.Preconditions.checkPositionIndexes;
+
+/**
+ * A {@code CharSequence} view of the UTF-8 encoded bytes, which does not decode them.
+ *
+ * <p>The ASCII characters are represented as they are. Each byte of a multi-byte
+ * character is represented as the {@linkplain #NON_ASCII replacement character}.
+ *
+ * <p>Since all the bytes of a multi-byte UTF-8 sequence are out of the ASCII range,
+ * such a view is sufficient for searching the ASCII-only tokens without allocating
+ * the decoded characters. The offsets in the view are the byte offsets in the source.
+ */
+final class AsciiCharSequence implements CharSequence {
+
+    /**
+     * The character, which represents each non-ASCII byte.
+     */
+    static final char NON_ASCII = '\uFFFD';
+
+    private final ByteBuffer bytes;
+    private final int offset;
+    private final int length;
+
+    /**
+     * Creates a view of the remaining bytes of the given buffer.
+     *
+     * <p>The position of the buffer is not changed.
+     */
+    AsciiCharSequence(ByteBuffer bytes) {
+        this(bytes, bytes.position(), bytes.remaining());
+    }
+
+    private AsciiCharSequence(ByteBuffer bytes, int offset, int length) {
+        this.bytes = bytes;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", length: " + length);
+        }
+        final byte value = bytes.get(offset + index);
+        return value < 0
+               ? NON_ASCII
+               : (char) value;
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        checkPositionIndexes(start, end, length);
+        return new AsciiCharSequence(bytes, offset + start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        final char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = charAt(i);
+        }
+        return new String(chars);
+    }
+}
@@ -22,10 +22,17 @@ package org.spine3.tools.javadoc.fqnchecker;
 import org.gradle.api.Action;
 import org.gradle.api.Project;
 import org.gradle.api.Task;
+import org.gradle.api.tasks.SourceSet;
+import org.gradle.api.tasks.compile.JavaCompile;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.spine3.gradle.SpinePlugin;
 
+import java.io.File;
+import java.net.URI;
+import java.net.URISyntaxException;
+
+import static java.lang.String.format;
 import static org.spine3.gradle.TaskName.CHECK_FQN;
 import static org.spine3.gradle.TaskName.COMPILE_JAVA;
 import static org.spine3.gradle.TaskName.PROCESS_RESOURCES;
@@ -33,6 +40,10 @@ import static org.spine3.gradle.TaskName.PROCESS_RESOURCES;
 /**
  * The plugin that verifies Javadoc comments.
  *
+ * <p>By default, the comments are verified by a separate task after the compilation.
+ * If the {@linkplain Extension#isJavacPlugin() javac plugin mode} is on, they are verified
+ * by the {@link FqnLinkJavacPlugin} during the compilation.
+ *
  * @author Alexander Aleksandrov
  */
 public class CheckJavadocPlugin extends SpinePlugin {
@@ -48,7 +59,63 @@ public class CheckJavadocPlugin extends SpinePlugin {
         newTask(CHECK_FQN, action).insertAfterTask(COMPILE_JAVA)
                                   .insertBeforeTask(PROCESS_RESOURCES)
                                   .applyNowTo(project);
+        final Task task = project.getTasks()
+                                 .getByName(CHECK_FQN.getValue());
+        fqnLinkInspection.declareInputsAndOutputs(task);
         log().debug("Starting to check Javadocs {}", action);
+
+        project.afterEvaluate(new Action<Project>() {
+            @Override
+            public void execute(Project evaluatedProject) {
+                if (Extension.isJavacPlugin(evaluatedProject)) {
+                    useJavacPlugin(evaluatedProject, task);
+                }
+            }
+        });
+    }
+
+    /**
+     * Moves the check to the {@linkplain FqnLinkJavacPlugin javac plugin}.
+     *
+     * <p>The plugin is added to the compilation classpath of the checked source sets and
+     * enabled with the extension settings, while the separate check task is disabled.
+     *
+     * <p>The include and exclude patterns are not applied in this mode.
+     */
+    private static void useJavacPlugin(Project project, Task checkTask) {
+        log().debug("Checking Javadoc links with the javac plugin");
+        final String pluginOption = format("-Xplugin:%s %s=%d %s=%s",
+                                           FqnLinkJavacPlugin.NAME,
+                                           FqnLinkJavacPlugin.THRESHOLD_ARG,
+                                           Extension.getThreshold(project),
+                                           FqnLinkJavacPlugin.RESPONSE_TYPE_ARG,
+                                           Extension.getResponseType(project)
+                                                    .trim());
+        final File pluginLocation = getPluginLocation();
+        for (SourceSet sourceSet : FqnLinkInspection.getSourceSetsToCheck(project)) {
+            final JavaCompile compileJava =
+                    (JavaCompile) project.getTasks()
+                                         .getByName(sourceSet.getCompileJavaTaskName());
+            compileJava.getOptions()
+                       .getCompilerArgs()
+                       .add(pluginOption);
+            project.getDependencies()
+                   .add(sourceSet.getCompileOnlyConfigurationName(),
+                        project.files(pluginLocation));
+        }
+        checkTask.setEnabled(false);
+    }
+
+    private static File getPluginLocation() {
+        try {
+            final URI location = FqnLinkJavacPlugin.class.getProtectionDomain()
+                                                         .getCodeSource()
+                                                         .getLocation()
+                                                         .toURI();
+            return new File(location);
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException("Cannot find the javac plugin location.", e);
+        }
     }
 
     private static Logger log() {
@@ -0,0 +1,267 @@
+/*
+ * Copyright 2017, TeamDev Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.spine3.tools.javadoc.fqnchecker;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.google.common.collect.Maps.newHashMap;
+
+/**
+ * A persistent cache of the per-file Javadoc link check results.
+ *
+ * <p>The results are keyed by the file path and the hash of its contents. The size and
+ * the modification time of the file are stored as well, so that unchanged files are
+ * recognized without being read.
+ *
+ * <p>The cache is loaded once before the check and {@linkplain #save() saved} after it.
+ * Only the files checked during the current run are saved, so the results for the removed
+ * files are dropped. The cache may be safely updated from several threads.
+ */
+final class CheckResultCache {
+
+    /**
+     * The version of the cache format and of the check rules.
+     *
+     * <p>Must be increased each time the check starts to produce different results,
+     * so that the results cached by the previous versions are not reused.
+     */
+    private static final int VERSION = 1;
+
+    private static final HashFunction CONTENT_HASH = Hashing.murmur3_128();
+    private static final int HASH_CHUNK_SIZE = 8192;
+
+    private final File file;
+    private final Map<String, Entry> previousEntries;
+    private final ConcurrentMap<String, Entry> currentEntries = new ConcurrentHashMap<>();
+
+    private CheckResultCache(File file, Map<String, Entry> previousEntries) {
+        this.file = file;
+        this.previousEntries = previousEntries;
+    }
+
+    /**
+     * Loads the cache from the given file.
+     *
+     * <p>If the file does not exist or cannot be read, an empty cache is returned.
+     */
+    static CheckResultCache load(File file) {
+        if (!file.exists()) {
+            return new CheckResultCache(file, ImmutableMap.<String, Entry>of());
+        }
+        try {
+            final DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(new FileInputStream(file)));
+            try {
+                return new CheckResultCache(file, readEntries(in));
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            log().warn("Cannot read the Javadoc check cache {}. The cache is ignored.", file, e);
+            return new CheckResultCache(file, ImmutableMap.<String, Entry>of());
+        }
+    }
+
+    /**
+     * Obtains the cached results for a file, which size and modification time are the same
+     * as during the previous check.
+     *
+     * @return the cached results or {@code Optional.absent()} if the file was changed
+     *         or not checked before
+     */
+    Optional<List<InvalidFqnUsage>> getUnmodified(String path, long size, long lastModified) {
+        final Entry entry = previousEntries.get(path);
+        if (entry == null || entry.size != size || entry.lastModified != lastModified) {
+            return Optional.absent();
+        }
+        currentEntries.put(path, entry);
+        return Optional.of(entry.usages);
+    }
+
+    /**
+     * Obtains the cached results for a file with the same contents.
+     *
+     * <p>The file size and modification time are updated in the cache.
+     *
+     * @return the cached results or {@code Optional.absent()} if the contents differ
+     *         or the file was not checked before
+     */
+    Optional<List<InvalidFqnUsage>> getSameContent(String path,
+                                                   long size,
+                                                   long lastModified,
+                                                   HashCode contentHash) {
+        final Entry entry = previousEntries.get(path);
+        if (entry == null || !entry.contentHash.equals(contentHash)) {
+            return Optional.absent();
+        }
+        currentEntries.put(path, new Entry(size, lastModified, contentHash, entry.usages));
+        return Optional.of(entry.usages);
+    }
+
+    void put(String path,
+             long size,
+             long lastModified,
+             HashCode contentHash,
+             List<InvalidFqnUsage> usages) {
+        currentEntries.put(path, new Entry(size, lastModified, contentHash, usages));
+    }
+
+    /**
+     * Calculates the hash of the file contents, which is used as the cache key.
+     *
+     * <p>The hashed contents are the remaining bytes of the buffer. The position of the buffer
+     * is not changed. The bytes of a direct or a memory-mapped buffer are hashed in chunks,
+     * without copying the whole contents to the heap.
+     */
+    static HashCode hash(ByteBuffer content) {
+        if (content.hasArray()) {
+            return CONTENT_HASH.hashBytes(content.array(),
+                                          content.arrayOffset() + content.position(),
+                                          content.remaining());
+        }
+        final Hasher hasher = CONTENT_HASH.newHasher();
+        final ByteBuffer bytes = content.duplicate();
+        final byte[] chunk = new byte[Math.min(HASH_CHUNK_SIZE, bytes.remaining())];
+        while (bytes.hasRemaining()) {
+            final int length = Math.min(chunk.length, bytes.remaining());
+            bytes.get(chunk, 0, length);
+            hasher.putBytes(chunk, 0, length);
+        }
+        return hasher.hash();
+    }
+
+    /**
+     * Writes the results of the current check to the cache file.
+     */
+    void save() {
+        try {
+            Files.createParentDirs(file);
+            final DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(file)));
+            try {
+                writeEntries(out);
+            } finally {
+                out.close();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot write the Javadoc check cache " + file, e);
+        }
+    }
+
+    private void writeEntries(DataOutputStream out) throws IOException {
+        out.writeInt(VERSION);
+        out.writeInt(currentEntries.size());
+        for (Map.Entry<String, Entry> pathEntry : currentEntries.entrySet()) {
+            final Entry entry = pathEntry.getValue();
+            out.writeUTF(pathEntry.getKey());
+            out.writeLong(entry.size);
+            out.writeLong(entry.lastModified);
+            final byte[] hash = entry.contentHash.asBytes();
+            out.writeShort(hash.length);
+            out.write(hash);
+            out.writeInt(entry.usages.size());
+            for (InvalidFqnUsage usage : entry.usages) {
+                out.writeUTF(usage.getActualUsage());
+                out.writeInt(usage.getIndex());
+            }
+        }
+    }
+
+    private static Map<String, Entry> readEntries(DataInputStream in) throws IOException {
+        final int version = in.readInt();
+        if (version != VERSION) {
+            log().debug("The Javadoc check cache version {} is outdated.", version);
+            return ImmutableMap.of();
+        }
+        final int entryCount = in.readInt();
+        final Map<String, Entry> result = newHashMap();
+        for (int i = 0; i < entryCount; i++) {
+            final String path = in.readUTF();
+            final long size = in.readLong();
+            final long lastModified = in.readLong();
+            final byte[] hash = new byte[in.readUnsignedShort()];
+            in.readFully(hash);
+            final int usageCount = in.readInt();
+            final ImmutableList.Builder<InvalidFqnUsage> usages = ImmutableList.builder();
+            for (int j = 0; j < usageCount; j++) {
+                final InvalidFqnUsage usage = new InvalidFqnUsage(in.readUTF());
+                usage.setIndex(in.readInt());
+                usages.add(usage);
+            }
+            result.put(path, new Entry(size, lastModified, HashCode.fromBytes(hash),
+                                       usages.build()));
+        }
+        return result;
+    }
+
+    /**
+     * The cached results of checking a single file.
+     */
+    private static final class Entry {
+
+        private final long size;
+        private final long lastModified;
+        private final HashCode contentHash;
+        private final List<InvalidFqnUsage> usages;
+
+        private Entry(long size,
+                      long lastModified,
+                      HashCode contentHash,
+                      List<InvalidFqnUsage> usages) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.contentHash = contentHash;
+            this.usages = usages;
+        }
+    }
+
+    private static Logger log() {
+        return LogSingleton.INSTANCE.value;
+    }
+
+    private enum LogSingleton {
+        INSTANCE;
+        @SuppressWarnings("NonSerializableFieldInSerializableClass")
+        private final Logger value = LoggerFactory.getLogger(CheckResultCache.class);
+    }
+}
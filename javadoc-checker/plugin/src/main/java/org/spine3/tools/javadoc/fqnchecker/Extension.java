@@ -19,10 +19,16 @@
  */
 package org.spine3.tools.javadoc.fqnchecker;
 
+import com.google.common.collect.ImmutableList;
 import org.gradle.api.Project;
+import org.gradle.api.tasks.SourceSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collections;
+import java.util.List;
+
+import static com.google.common.collect.Lists.newArrayList;
 import static org.spine3.tools.javadoc.fqnchecker.CheckJavadocPlugin.SPINE_LINK_CHECKER_EXTENSION_NAME;
 
 /**
@@ -34,6 +40,10 @@ public class Extension {
 
     private int threshold = 0;
     private String responseType = "";
+    private boolean javacPlugin = false;
+    private List<String> sourceSets = newArrayList(SourceSet.MAIN_SOURCE_SET_NAME);
+    private List<String> include = newArrayList();
+    private List<String> exclude = newArrayList();
 
     public String getResponseType() {
         return responseType;
@@ -53,6 +63,72 @@ public class Extension {
         this.responseType = responseType;
     }
 
+    /**
+     * Tells if the links are checked by the {@linkplain FqnLinkJavacPlugin javac plugin}
+     * during the compilation instead of the separate task.
+     */
+    public boolean isJavacPlugin() {
+        return javacPlugin;
+    }
+
+    public void setJavacPlugin(boolean javacPlugin) {
+        log().debug("Setting up javac plugin mode to {}", javacPlugin);
+        this.javacPlugin = javacPlugin;
+    }
+
+    /**
+     * Obtains the names of the source sets, which Java sources are checked.
+     *
+     * <p>Only the {@code main} source set is checked by default.
+     */
+    public List<String> getSourceSets() {
+        return sourceSets;
+    }
+
+    public void setSourceSets(List<String> sourceSets) {
+        log().debug("Setting up source sets to {}", sourceSets);
+        this.sourceSets = newArrayList(sourceSets);
+    }
+
+    /**
+     * Obtains the patterns of the checked files.
+     *
+     * <p>The patterns use the {@linkplain java.nio.file.FileSystem#getPathMatcher(String) glob}
+     * syntax and are matched against the file path relative to its source directory,
+     * e.g. {@code org/spine3/**}. If there are no patterns, all the Java files are checked.
+     */
+    public List<String> getInclude() {
+        return include;
+    }
+
+    public void setInclude(List<String> include) {
+        log().debug("Setting up include patterns to {}", include);
+        this.include = newArrayList(include);
+    }
+
+    public void include(String... patterns) {
+        Collections.addAll(include, patterns);
+    }
+
+    /**
+     * Obtains the patterns of the files, which are not checked.
+     *
+     * <p>The patterns have the same format as the {@linkplain #getInclude() include patterns}.
+     * The excluded files are not checked even if they match an include pattern.
+     */
+    public List<String> getExclude() {
+        return exclude;
+    }
+
+    public void setExclude(List<String> exclude) {
+        log().debug("Setting up exclude patterns to {}", exclude);
+        this.exclude = newArrayList(exclude);
+    }
+
+    public void exclude(String... patterns) {
+        Collections.addAll(exclude, patterns);
+    }
+
     public static String getResponseType(Project project) {
         final String responseType = checkJavadoc(project).responseType;
         if (responseType.isEmpty()) {
@@ -71,6 +147,22 @@ public class Extension {
         }
     }
 
+    public static boolean isJavacPlugin(Project project) {
+        return checkJavadoc(project).javacPlugin;
+    }
+
+    public static List<String> getSourceSets(Project project) {
+        return ImmutableList.copyOf(checkJavadoc(project).sourceSets);
+    }
+
+    public static List<String> getInclude(Project project) {
+        return ImmutableList.copyOf(checkJavadoc(project).include);
+    }
+
+    public static List<String> getExclude(Project project) {
+        return ImmutableList.copyOf(checkJavadoc(project).exclude);
+    }
+
     private static Extension checkJavadoc(Project project) {
         return (Extension) project.getExtensions()
                                   .getByName(SPINE_LINK_CHECKER_EXTENSION_NAME);
@@ -37,13 +37,8 @@ import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
-import static com.google.common.base.Preconditions.checkNotNull;
-import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.Lists.newArrayList;
-import static java.util.regex.Pattern.compile;
 import static org.spine3.gradle.TaskName.CHECK_FQN;
 import static org.spine3.gradle.TaskName.COMPILE_JAVA;
 import static org.spine3.gradle.TaskName.PROCESS_RESOURCES;
@@ -57,6 +52,8 @@ import static org.spine3.gradle.TaskName.PROCESS_RESOURCES;
 public class FqnCheckPlugin extends SpinePlugin {
 
     private static final String DIRECTORY_TO_CHECK = "/src/main/java";
+    private static final FqnLinkScanner scanner =
+            new FqnLinkScanner(JavadocPattern.LINK.getMatcher());
 
     @Override
     public void apply(final Project project) {
@@ -137,9 +134,8 @@ public class FqnCheckPlugin extends SpinePlugin {
 
     static void check(Path file) throws InvalidFqnUsageException {
         final String content;
-        final byte[] rawContent;
         try {
-            content = Files.readAllLines(file, StandardCharsets.UTF_8).toString();
+            content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
         } catch (IOException e) {
             throw new IllegalStateException("Cannot read the contents of the file: " + file, e);
         }
@@ -155,98 +151,33 @@ public class FqnCheckPlugin extends SpinePlugin {
 
     @VisibleForTesting
     static Optional<InvalidFqnUsage> check(String content) {
-        String remainder = content;
-
-        final String commentStart = CommentMarker.START.getValue();
-        final String commentEnd = CommentMarker.END.getValue();
-
-        while (remainder.contains(commentStart)) {
-            final Optional<String> substring = substringBetween(remainder,
-                                                                commentStart,
-                                                                commentEnd);
-            if (substring.isPresent()) {
-                final String comment = substring.get();
-                final Optional<InvalidFqnUsage> result = checkSingleComment(comment);
-                if (result.isPresent()) {
-                    return result;
-                }
-                remainder = remainder.substring(comment.length() +
-                                                        commentStart.length() +
-                                                        commentEnd.length());
-            }
-            remainder = substringStartsWith(remainder, commentStart);
-
-        }
-        return Optional.absent();
-    }
-
-    private static Optional<InvalidFqnUsage> checkSingleComment(String comment) {
-        final Matcher matcher = JavadocPattern.LINK.getPattern()
-                                                   .matcher(comment);
-        final boolean found = matcher.find();
-        if (found) {
-            final String improperUsage = matcher.group(0);
-            final InvalidFqnUsage result = new InvalidFqnUsage(improperUsage);
-            return Optional.of(result);
-        }
-        return Optional.absent();
-    }
-
-    private static String substringStartsWith(String str, String separator) {
-        if (str.isEmpty()) {
-            return str;
-        } else if (separator == null) {
-            return "";
-        } else {
-            int pos = str.indexOf(separator);
-            return pos == -1 ? "" : str.substring(pos);
+        final List<InvalidFqnUsage> invalidLinks = scanner.scan(content);
+        if (invalidLinks.isEmpty()) {
+            return Optional.absent();
         }
+        return Optional.of(invalidLinks.get(0));
     }
 
-    private static Optional<String> substringBetween(String str, String open, String close) {
-        checkNotNull(str);
-        checkNotNull(open);
-        checkNotNull(close);
-
-        final int start = str.indexOf(open);
-        if (start != -1) {
-            final int end = str.indexOf(close, start + open.length());
-            checkState(end != -1);
-            final String result = str.substring(start + open.length(), end);
-            return Optional.of(result);
-        }
-        return Optional.absent();
-    }
-
-    private enum JavadocPattern {
-
-        LINK(compile("(\\{@link|\\{@linkplain) *((?!-)[a-zA-Z0-9-]{1,63}" +
-                             "[a-zA-Z0-9-]\\.)+[a-zA-Z]{2,63}(\\}|\\ *\\})"));
-
-        private final Pattern pattern;
-
-        JavadocPattern(Pattern pattern) {
-            this.pattern = pattern;
-        }
-
-        public Pattern getPattern() {
-            return pattern;
-        }
-    }
-
-    private enum CommentMarker {
+    @VisibleForTesting
+    enum JavadocPattern {
 
-        START("/**"),
-        END("*/");
+        /*
+         * Accepts the same links as the regular expression
+         * "(\{@link|\{@linkplain) *((?!-)[a-zA-Z0-9-]{1,63}[a-zA-Z0-9-]\.)+[a-zA-Z]{2,63}(\}|\ *\})"
+         * used previously, but without backtracking.
+         */
+        LINK(new FqnLinkMatcher(new FqnLinkMatcher.Segment(true, 2, 64),
+                                new FqnLinkMatcher.Segment(true, 2, 64),
+                                1));
 
-        private final String value;
+        private final FqnLinkMatcher matcher;
 
-        CommentMarker(String value) {
-            this.value = value;
+        JavadocPattern(FqnLinkMatcher matcher) {
+            this.matcher = matcher;
         }
 
-        public String getValue() {
-            return value;
+        public FqnLinkMatcher getMatcher() {
+            return matcher;
         }
     }
 
@@ -19,43 +19,69 @@
  */
 package org.spine3.tools.javadoc.fqnchecker;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Optional;
+import com.google.common.hash.HashCode;
 import org.gradle.api.Action;
 import org.gradle.api.Project;
 import org.gradle.api.Task;
+import org.gradle.api.file.ConfigurableFileTree;
+import org.gradle.api.plugins.JavaPluginConvention;
+import org.gradle.api.tasks.SourceSet;
+import org.gradle.api.tasks.SourceSetContainer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.FileVisitResult;
 import java.nio.file.FileVisitor;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
 
 import static com.google.common.collect.Lists.newArrayList;
-import static java.util.regex.Pattern.compile;
+import static com.google.common.collect.Lists.newArrayListWithCapacity;
+import static com.google.common.collect.Maps.newHashMapWithExpectedSize;
+import static com.google.common.collect.Sets.newLinkedHashSet;
 
 /**
  * Checks the target project Javadocs for broken links that are stated in the wrong format.
  * <p> {@code exceptionThreshold} is a quantity of broken link that will make an exception.
  * {@code responseType} is behavior that can be either warning or error.
  *
+ * <p>The Java sources of the {@linkplain Extension#getSourceSets() configured source sets}
+ * are checked. All the source directories are walked and checked in parallel on
+ * the same thread pool, and the results are reported per directory.
+ *
+ * <p>Only the Javadoc comments are checked.
+ * The results for the files, which did not change since the previous check,
+ * are taken from the {@linkplain CheckResultCache cache}. The file contents are scanned
+ * as bytes without being decoded and the line numbers are only calculated for
+ * the reported links.
+ *
  * @author Alexander Aleksandrov
  */
 public class FqnLinkInspection {
     private int exceptionThreshold = 0;
     private Response responseType = Response.WARN;
     private final Project project;
-    private static final String DIRECTORY_TO_CHECK = "/src/main/java";
     private static final String JAVA_EXTENSION = ".java";
-    private static final InvalidResultStorage storage = new InvalidResultStorage();
+    private static final String CACHE_FILE_PATH = "javadoc-checker/fqn-links.bin";
+    private static final long MAPPED_FILE_MIN_SIZE = 64 * 1024;
+    private static final FqnLinkScanner scanner =
+            new FqnLinkScanner(JavadocPattern.LINK.getMatcher());
 
     public FqnLinkInspection(Project project) {
         this.project = project;
@@ -72,38 +98,164 @@ public class FqnLinkInspection {
                                              .toUpperCase();
                 responseType = Response.valueOf(type);
 
-                final List<String> dirsToCheck = getDirsToCheck(project);
+                final List<File> dirsToCheck = getDirsToCheck(project);
                 findFqnLinksWithoutText(dirsToCheck);
                 log().debug("Ending an action");
             }
         };
     }
 
-    private static List<String> getDirsToCheck(Project project) {
+    /**
+     * Declares the checked sources and the check settings as the inputs of the task and
+     * the check result cache as its output.
+     *
+     * <p>This way the task is skipped if neither the sources nor the settings changed. Otherwise,
+     * only the changed files are checked, while the results for the rest of the files are taken
+     * from the cache.
+     *
+     * @param task the task performing the check
+     */
+    public void declareInputsAndOutputs(Task task) {
+        task.getInputs()
+            .files(new Callable<List<ConfigurableFileTree>>() {
+                @Override
+                public List<ConfigurableFileTree> call() {
+                    final List<ConfigurableFileTree> result = newArrayList();
+                    for (File dir : getDirsToCheck(project)) {
+                        final ConfigurableFileTree sources = project.fileTree(dir);
+                        sources.include("**/*" + JAVA_EXTENSION);
+                        result.add(sources);
+                    }
+                    return result;
+                }
+            });
+        task.getInputs()
+            .property("sourceSets", new Callable<List<String>>() {
+                @Override
+                public List<String> call() {
+                    return Extension.getSourceSets(project);
+                }
+            });
+        task.getInputs()
+            .property("include", new Callable<List<String>>() {
+                @Override
+                public List<String> call() {
+                    return Extension.getInclude(project);
+                }
+            });
+        task.getInputs()
+            .property("exclude", new Callable<List<String>>() {
+                @Override
+                public List<String> call() {
+                    return Extension.getExclude(project);
+                }
+            });
+        task.getInputs()
+            .property("threshold", new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    return Extension.getThreshold(project);
+                }
+            });
+        task.getInputs()
+            .property("responseType", new Callable<String>() {
+                @Override
+                public String call() {
+                    return Extension.getResponseType(project);
+                }
+            });
+        task.getOutputs()
+            .file(getCacheFile(project));
+    }
+
+    private static File getCacheFile(Project project) {
+        return new File(project.getBuildDir(), CACHE_FILE_PATH);
+    }
+
+    /**
+     * Obtains the checked source sets of the project.
+     *
+     * <p>The source sets missing in the project are skipped.
+     */
+    static List<SourceSet> getSourceSetsToCheck(Project project) {
+        final SourceSetContainer sourceSets = project.getConvention()
+                                                     .getPlugin(JavaPluginConvention.class)
+                                                     .getSourceSets();
+        final List<SourceSet> result = newArrayList();
+        for (String name : Extension.getSourceSets(project)) {
+            final SourceSet sourceSet = sourceSets.findByName(name);
+            if (sourceSet == null) {
+                log().warn("Source set `{}` is not found in {}", name, project);
+            } else {
+                result.add(sourceSet);
+            }
+        }
+        return result;
+    }
+
+    private static List<File> getDirsToCheck(Project project) {
         log().debug("Finding the directories to check");
-        final String mainScopeJavaFolder = project.getProjectDir()
-                                                  .getAbsolutePath() + DIRECTORY_TO_CHECK;
-        final List<String> result = newArrayList(mainScopeJavaFolder);
+        final Set<File> result = newLinkedHashSet();
+        for (SourceSet sourceSet : getSourceSetsToCheck(project)) {
+            result.addAll(sourceSet.getJava()
+                                   .getSrcDirs());
+        }
         log().debug("{} directories found for the check: {}", result.size(), result);
+        return newArrayList(result);
+    }
 
-        return result;
+    private void findFqnLinksWithoutText(List<File> dirs) {
+        final SourceFileFilter filter = new SourceFileFilter(Extension.getInclude(project),
+                                                             Extension.getExclude(project));
+        final CheckResultCache cache = CheckResultCache.load(getCacheFile(project));
+        final List<DirResult> results = checkInParallel(dirs, filter, cache);
+        cache.save();
+        final InvalidResultStorage storage = new InvalidResultStorage();
+        for (DirResult dirResult : results) {
+            log().debug("{} wrong links found in {} files of {}",
+                        dirResult.getLinkCount(), dirResult.files.size(), dirResult.dir);
+            for (Path file : dirResult.files) {
+                final List<InvalidFqnUsage> invalidLinks = dirResult.results.get(file);
+                if (!invalidLinks.isEmpty()) {
+                    storage.save(file, invalidLinks);
+                    if (storage.getLinkTotal() > exceptionThreshold) {
+                        storage.logInvalidFqnUsages();
+                        responseType.logOrFail(file);
+                    }
+                }
+            }
+        }
     }
 
-    private void findFqnLinksWithoutText(List<String> pathsToDirs) {
-        for (String path : pathsToDirs) {
-            final File file = new File(path);
-            if (file.exists()) {
-                checkRecursively(file.toPath());
-            } else {
-                log().debug("No more files left to check");
+    /**
+     * Checks the directories on the same {@link ForkJoinPool}.
+     *
+     * @return the check results in the order of the directories
+     */
+    private static List<DirResult> checkInParallel(List<File> dirs,
+                                                   SourceFileFilter filter,
+                                                   CheckResultCache cache) {
+        log().debug("Performing FQN check for {} directories", dirs.size());
+        final ForkJoinPool pool = new ForkJoinPool();
+        try {
+            final List<ForkJoinTask<DirResult>> tasks = newArrayListWithCapacity(dirs.size());
+            for (File dir : dirs) {
+                tasks.add(pool.submit(new DirTask(dir.toPath(), filter, cache)));
             }
+            final List<DirResult> results = newArrayListWithCapacity(dirs.size());
+            for (ForkJoinTask<DirResult> task : tasks) {
+                results.add(task.join());
+            }
+            return results;
+        } finally {
+            pool.shutdown();
         }
     }
 
-    private void checkRecursively(Path path) {
+    private static void collectRecursively(Path path, SourceFileFilter filter, List<Path> files) {
         try {
-            final FileVisitor<Path> visitor = new RecursiveFileChecker();
-            log().debug("Starting to check the files recursively in {}", path.toString());
+            final FileVisitor<Path> visitor = new JavaFileCollector(path, filter, files);
+            log().debug("Collecting the files to check recursively in {}", path.toString());
             Files.walkFileTree(path, visitor);
         } catch (IOException e) {
             throw new IllegalStateException("Failed to check the folder with its contents: " +
@@ -112,16 +264,29 @@ public class FqnLinkInspection {
     }
 
     /**
-     * Custom {@linkplain java.nio.file.FileVisitor visitor} which recursively checks
-     * the contents of the walked folder.
+     * Custom {@linkplain java.nio.file.FileVisitor visitor} which recursively collects
+     * the Java files of the walked folder accepted by the filter.
      */
-    private class RecursiveFileChecker extends SimpleFileVisitor<Path> {
+    private static class JavaFileCollector extends SimpleFileVisitor<Path> {
+
+        private final Path dir;
+        private final SourceFileFilter filter;
+        private final List<Path> files;
+
+        private JavaFileCollector(Path dir, SourceFileFilter filter, List<Path> files) {
+            super();
+            this.dir = dir;
+            this.filter = filter;
+            this.files = files;
+        }
 
         @Override
         public FileVisitResult visitFile(Path path, BasicFileAttributes attrs) throws IOException {
             super.visitFile(path, attrs);
-            log().debug("Performing FQN check for the file: {}", path);
-            check(path);
+            if (path.toString()
+                    .endsWith(JAVA_EXTENSION) && filter.accepts(dir.relativize(path))) {
+                files.add(path);
+            }
             return FileVisitResult.CONTINUE;
         }
 
@@ -133,115 +298,188 @@ public class FqnLinkInspection {
         }
     }
 
-    private void check(Path path) throws InvalidFqnUsageException {
-        final List<String> content;
-        if (!path.toString()
-                 .endsWith(JAVA_EXTENSION)) {
-            return;
+    /**
+     * A task collecting and checking the files of a source directory.
+     */
+    private static class DirTask extends RecursiveTask<DirResult> {
+
+        private static final long serialVersionUID = 0L;
+
+        @SuppressWarnings("NonSerializableFieldInSerializableClass")
+        private final Path dir;
+        @SuppressWarnings("NonSerializableFieldInSerializableClass")
+        private final SourceFileFilter filter;
+        @SuppressWarnings("NonSerializableFieldInSerializableClass")
+        private final CheckResultCache cache;
+
+        private DirTask(Path dir, SourceFileFilter filter, CheckResultCache cache) {
+            super();
+            this.dir = dir;
+            this.filter = filter;
+            this.cache = cache;
         }
-        try {
-            content = Files.readAllLines(path, StandardCharsets.UTF_8);
-        } catch (IOException e) {
-            throw new IllegalStateException("Cannot read the contents of the file: " + path, e);
+
+        @Override
+        protected DirResult compute() {
+            final List<Path> files = newArrayList();
+            if (Files.exists(dir)) {
+                collectRecursively(dir, filter, files);
+            } else {
+                log().debug("The directory {} does not exist", dir);
+            }
+            final Map<Path, List<InvalidFqnUsage>> results = new CheckTask(files, cache).invoke();
+            return new DirResult(dir, files, results);
+        }
+    }
+
+    /**
+     * The check results of a source directory.
+     */
+    private static class DirResult {
+
+        private final Path dir;
+        private final List<Path> files;
+        private final Map<Path, List<InvalidFqnUsage>> results;
+
+        private DirResult(Path dir, List<Path> files, Map<Path, List<InvalidFqnUsage>> results) {
+            this.dir = dir;
+            this.files = files;
+            this.results = results;
         }
-        final List<Optional<InvalidFqnUsage>> invalidLinks = check(content);
 
-        if (!invalidLinks.isEmpty()) {
-            storage.save(path, invalidLinks);
-            if (storage.getLinkTotal() > exceptionThreshold) {
-                storage.logInvalidFqnUsages();
-                responseType.logOrFail(path);
+        private int getLinkCount() {
+            int result = 0;
+            for (List<InvalidFqnUsage> usages : results.values()) {
+                result += usages.size();
             }
+            return result;
         }
     }
 
-    private static List<Optional<InvalidFqnUsage>> check(List<String> content) {
-        int lineNumber = 0;
-        final List<Optional<InvalidFqnUsage>> invalidLinks = newArrayList();
-        for (String line : content) {
-            final Optional<InvalidFqnUsage> result = checkSingleComment(line);
-            lineNumber++;
-            if (result.isPresent()) {
-                result.get().setIndex(lineNumber);
-                invalidLinks.add(result);
+    /**
+     * A task checking the files on a {@link ForkJoinPool}.
+     *
+     * <p>The task splits the files in halves until there are few enough of them
+     * to be checked sequentially.
+     */
+    private static class CheckTask extends RecursiveTask<Map<Path, List<InvalidFqnUsage>>> {
+
+        private static final long serialVersionUID = 0L;
+        private static final int SEQUENTIAL_THRESHOLD = 16;
+
+        @SuppressWarnings("NonSerializableFieldInSerializableClass")
+        private final List<Path> files;
+        @SuppressWarnings("NonSerializableFieldInSerializableClass")
+        private final CheckResultCache cache;
+
+        private CheckTask(List<Path> files, CheckResultCache cache) {
+            super();
+            this.files = files;
+            this.cache = cache;
+        }
+
+        @Override
+        protected Map<Path, List<InvalidFqnUsage>> compute() {
+            final int size = files.size();
+            if (size <= SEQUENTIAL_THRESHOLD) {
+                final Map<Path, List<InvalidFqnUsage>> result = newHashMapWithExpectedSize(size);
+                for (Path file : files) {
+                    result.put(file, check(file, cache));
+                }
+                return result;
             }
+            final int middle = size / 2;
+            final CheckTask first = new CheckTask(files.subList(0, middle), cache);
+            final CheckTask second = new CheckTask(files.subList(middle, size), cache);
+            first.fork();
+            final Map<Path, List<InvalidFqnUsage>> result = second.compute();
+            result.putAll(first.join());
+            return result;
         }
-        return invalidLinks;
     }
 
-    private static Optional<InvalidFqnUsage> checkSingleComment(String comment) {
-        final Matcher matcher = FqnLinkInspection.JavadocPattern.LINK.getPattern()
-                                                                     .matcher(comment);
-        final boolean found = matcher.find();
-        if (found) {
-            final String improperUsage = matcher.group(0);
-            final InvalidFqnUsage result = new InvalidFqnUsage(improperUsage);
-            return Optional.of(result);
+    /**
+     * Checks the file unless the results for the same file contents are cached.
+     */
+    private static List<InvalidFqnUsage> check(Path path, CheckResultCache cache) {
+        final String key = path.toString();
+        try {
+            final BasicFileAttributes attributes =
+                    Files.readAttributes(path, BasicFileAttributes.class);
+            final long size = attributes.size();
+            final long lastModified = attributes.lastModifiedTime()
+                                                .toMillis();
+            final Optional<List<InvalidFqnUsage>> unmodified =
+                    cache.getUnmodified(key, size, lastModified);
+            if (unmodified.isPresent()) {
+                return unmodified.get();
+            }
+            final ByteBuffer content = read(path, size);
+            final HashCode contentHash = CheckResultCache.hash(content);
+            final Optional<List<InvalidFqnUsage>> sameContent =
+                    cache.getSameContent(key, size, lastModified, contentHash);
+            if (sameContent.isPresent()) {
+                return sameContent.get();
+            }
+            log().debug("Performing FQN check for the file: {}", path);
+            final List<InvalidFqnUsage> result = scanner.scan(new AsciiCharSequence(content));
+            cache.put(key, size, lastModified, contentHash, result);
+            return result;
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read the contents of the file: " + path, e);
         }
-        return Optional.absent();
     }
 
-    private enum JavadocPattern {
+    /**
+     * Reads the file contents without decoding them.
+     *
+     * <p>The large files are mapped to memory, while the rest are read to the heap,
+     * as mapping a small file costs more than reading it.
+     */
+    private static ByteBuffer read(Path path, long size) throws IOException {
+        if (size < MAPPED_FILE_MIN_SIZE) {
+            return ByteBuffer.wrap(Files.readAllBytes(path));
+        }
+        final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            channel.close();
+        }
+    }
+
+    @VisibleForTesting
+    enum JavadocPattern {
 
         /*
-         * This regexp matches every link or linkplain in javadoc that is not in the format of
+         * Matches every link or linkplain in javadoc that is not in the format of
          * {@link <FQN> <text>} or {@linkplain <FQN> <text>}.
          *
          * Wrong links: {@link org.spine3.base.Client} or {@linkplain com.guava.AnyClass }
-         * Correct linsk: {@link Class.InternalClass}, {@link org.spine3.base.Client Client},
+         * Correct links: {@link Class.InternalClass}, {@link org.spine3.base.Client Client},
          * {@linkplain org.spine3.base.Client some client class}
          *
-         * 1st Capturing Group "(\{@link|\{@linkplain)"
-         * 1st Alternative "\{@link"
-         * "\{" matches the character "{" literally (case sensitive)
-         * "@link" matches the characters "@link" literally (case sensitive)
-         * 2nd Alternative "\{@linkplain"
-         * "\{" matches the character "{" literally (case sensitive)
-         * "@linkplain" matches the characters "@linkplain" literally (case sensitive)
-         * " *" matches the character " " literally (case sensitive)
-         * "*" Quantifier — Matches between zero and unlimited times, as many times as possible,
-         * giving back as needed (greedy)
-
-         * 2nd Capturing Group "((?!-)[a-z0-9-]{1,63}\.)"
-         * Negative Lookahead "(?!-)"
-         * Assert that the Regex below does not match
-         * "-"matches the character "-" literally (case sensitive)
-         * Match a single character present in the list below "[a-z0-9-]{1,63}"
-         * "{1,63}" Quantifier — Matches between 1 and 63 times, as many times as possible,
-         * giving back as needed (greedy)
-         * "a-z" a single character in the range between "a" (ASCII 97) and "z" (ASCII 122)
-         * (case sensitive)
-         * "0-9" a single character in the range between "0" (ASCII 48) and "9" (ASCII 57)
-         * (case sensitive)
-         * "-" matches the character "-" literally (case sensitive)
-         * "\." matches the character "." literally (case sensitive)
-
-         * 3rd Capturing Group "((?!-)[a-zA-Z0-9-]{1,63}[a-zA-Z0-9-]\.)+"
-         * "+" Quantifier — Matches between one and unlimited times, as many times as possible,
-         * giving back as needed (greedy)
-         * A repeated capturing group will only capture the last iteration.
-         * Put a capturing group around the repeated group to capture all iterations or use a
-         * non-capturing group instead if you're not interested in the data.
-
-         * 4th Capturing Group "(\}|\ *\})"
-         * 1st Alternative "\}"
-         * "\}" matches the character "}" literally (case sensitive)
-         * 2nd Alternative "\ *\}"
-         * "\ *" matches the character " " literally (case sensitive)
-         *  "*" Quantifier — Matches between zero and unlimited times, as many times as possible,
-         *  giving back as needed (greedy)
-         * "\}" matches the character "}" literally (case sensitive)
+         * The accepted links are the same as of the regular expression
+         * "(\{@link|\{@linkplain) *((?!-)[a-z0-9-]{1,63}\.)((?!-)[a-zA-Z0-9-]{1,63}[a-zA-Z0-9-]\.)+[a-zA-Z]{2,63}(\}|\ *\})"
+         * used previously. Unlike the regular expression, the matcher never backtracks,
+         * so long dotted strings in comments are checked in linear time.
+         *
+         * The first segment of the qualifier consists of 1 to 63 lower case letters, digits
+         * and hyphens. It is followed by one or more segments of 2 to 64 letters, digits
+         * and hyphens. None of the segments starts with a hyphen.
          */
-        LINK(compile("(\\{@link|\\{@linkplain) *((?!-)[a-z0-9-]{1,63}\\.)((?!-)[a-zA-Z0-9-]{1,63}[a-zA-Z0-9-]\\.)+[a-zA-Z]{2,63}(\\}|\\ *\\})"));
+        LINK(new FqnLinkMatcher(new FqnLinkMatcher.Segment(false, 1, 63),
+                                new FqnLinkMatcher.Segment(true, 2, 64),
+                                2));
 
-        private final Pattern pattern;
+        private final FqnLinkMatcher matcher;
 
-        JavadocPattern(Pattern pattern) {
-            this.pattern = pattern;
+        JavadocPattern(FqnLinkMatcher matcher) {
+            this.matcher = matcher;
         }
 
-        public Pattern getPattern() {
-            return pattern;
+        public FqnLinkMatcher getMatcher() {
+            return matcher;
         }
     }
 
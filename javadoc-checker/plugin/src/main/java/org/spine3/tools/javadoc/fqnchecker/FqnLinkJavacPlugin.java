@@ -0,0 +1,284 @@
+/*
+ * Copyright 2017, TeamDev Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.spine3.tools.javadoc.fqnchecker;
+
+import com.sun.source.doctree.DocCommentTree;
+import com.sun.source.doctree.LinkTree;
+import com.sun.source.doctree.ReferenceTree;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.VariableTree;
+import com.sun.source.util.DocTreePath;
+import com.sun.source.util.DocTreePathScanner;
+import com.sun.source.util.DocTrees;
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.Plugin;
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TaskListener;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.TreePathScanner;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Elements;
+import javax.tools.Diagnostic;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.lang.String.format;
+
+/**
+ * The javac plugin that checks Javadoc links during the compilation.
+ *
+ * <p>Unlike {@link FqnLinkInspection}, the plugin does not read the sources. Instead, it visits
+ * the {@code {@link}} and {@code {@linkplain}} references parsed by javac and reports the ones,
+ * which refer to a type by its fully-qualified name and have no label.
+ *
+ * <p>The plugin accepts the same settings as the {@code checkJavadoc} extension:
+ * {@code -Xplugin:CheckJavadocFqnLinks threshold=<number> responseType=<warn|error>}.
+ * Once the number of the wrong links exceeds the threshold, all of them are reported as
+ * warnings or errors depending on the response type.
+ *
+ * <p>The plugin requires JDK 8 or higher. It must not depend on Gradle or other libraries,
+ * as it is loaded by javac.
+ *
+ * @see Extension#isJavacPlugin()
+ */
+public class FqnLinkJavacPlugin implements Plugin {
+
+    /**
+     * The name of the plugin to be passed to the {@code -Xplugin} javac option.
+     */
+    public static final String NAME = "CheckJavadocFqnLinks";
+
+    static final String THRESHOLD_ARG = "threshold";
+    static final String RESPONSE_TYPE_ARG = "responseType";
+
+    private static final String ERROR_RESPONSE = "error";
+    private static final char ARG_VALUE_SEPARATOR = '=';
+    private static final char MEMBER_SEPARATOR = '#';
+    private static final char PACKAGE_SEPARATOR = '.';
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void init(JavacTask task, String... args) {
+        int threshold = 0;
+        Diagnostic.Kind kind = Diagnostic.Kind.WARNING;
+        for (String arg : args) {
+            final int separatorIndex = arg.indexOf(ARG_VALUE_SEPARATOR);
+            if (separatorIndex < 0) {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+            final String name = arg.substring(0, separatorIndex);
+            final String value = arg.substring(separatorIndex + 1)
+                                    .trim();
+            if (THRESHOLD_ARG.equals(name)) {
+                threshold = Math.max(0, Integer.parseInt(value));
+            } else if (RESPONSE_TYPE_ARG.equals(name)) {
+                kind = ERROR_RESPONSE.equalsIgnoreCase(value)
+                       ? Diagnostic.Kind.ERROR
+                       : Diagnostic.Kind.WARNING;
+            } else {
+                throw new IllegalArgumentException("Unknown argument: " + arg);
+            }
+        }
+        final DocTrees docTrees = DocTrees.instance(task);
+        task.addTaskListener(new LinkChecker(docTrees, task.getElements(), threshold, kind));
+    }
+
+    /**
+     * Checks the Javadoc links of each type once it is analyzed by javac.
+     */
+    private static class LinkChecker implements TaskListener {
+
+        private final DocTrees docTrees;
+        private final Elements elements;
+        private final int threshold;
+        private final Diagnostic.Kind kind;
+
+        /**
+         * The wrong links found before the threshold is exceeded.
+         */
+        private final List<WrongLink> pending = new ArrayList<>();
+        private int linkTotal = 0;
+
+        private LinkChecker(DocTrees docTrees,
+                            Elements elements,
+                            int threshold,
+                            Diagnostic.Kind kind) {
+            this.docTrees = docTrees;
+            this.elements = elements;
+            this.threshold = threshold;
+            this.kind = kind;
+        }
+
+        @Override
+        public void started(TaskEvent event) {
+            // Nothing to do before the analysis.
+        }
+
+        @Override
+        public void finished(TaskEvent event) {
+            if (event.getKind() != TaskEvent.Kind.ANALYZE) {
+                return;
+            }
+            final TypeElement type = event.getTypeElement();
+            if (type == null) {
+                return;
+            }
+            final TreePath path = docTrees.getPath(type);
+            if (path != null) {
+                new DocCommentScanner().scan(path, null);
+            }
+        }
+
+        private void check(TreePath path) {
+            final DocCommentTree comment = docTrees.getDocCommentTree(path);
+            if (comment == null) {
+                return;
+            }
+            new LinkScanner(path.getCompilationUnit()).scan(new DocTreePath(path, comment),
+                                                             null);
+        }
+
+        /**
+         * Tells if the link refers to a type by its fully-qualified name.
+         *
+         * <p>The links to the members are not checked, same as in {@link FqnLinkInspection}.
+         * If the reference cannot be resolved, it is treated as a fully-qualified one
+         * if it starts with a lower-case package name and has at least three parts.
+         */
+        private boolean isFullyQualified(DocTreePath linkPath, ReferenceTree reference) {
+            final String signature = reference.getSignature();
+            if (signature.indexOf(MEMBER_SEPARATOR) >= 0) {
+                return false;
+            }
+            final Element element = docTrees.getElement(new DocTreePath(linkPath, reference));
+            if (element == null) {
+                return looksFullyQualified(signature);
+            }
+            if (!(element instanceof TypeElement)) {
+                return false;
+            }
+            final String packageName = elements.getPackageOf(element)
+                                               .getQualifiedName()
+                                               .toString();
+            return !packageName.isEmpty()
+                    && signature.startsWith(packageName + PACKAGE_SEPARATOR);
+        }
+
+        private static boolean looksFullyQualified(String signature) {
+            final int firstSeparator = signature.indexOf(PACKAGE_SEPARATOR);
+            return firstSeparator > 0
+                    && Character.isLowerCase(signature.charAt(0))
+                    && signature.indexOf(PACKAGE_SEPARATOR, firstSeparator + 1) > 0;
+        }
+
+        private void report(WrongLink link) {
+            linkTotal++;
+            pending.add(link);
+            if (linkTotal > threshold) {
+                for (WrongLink wrongLink : pending) {
+                    wrongLink.print(docTrees, kind);
+                }
+                pending.clear();
+            }
+        }
+
+        /**
+         * Visits the declarations, which may have a doc comment.
+         */
+        private class DocCommentScanner extends TreePathScanner<Void, Void> {
+
+            @Override
+            public Void visitClass(ClassTree node, Void aVoid) {
+                check(getCurrentPath());
+                return super.visitClass(node, aVoid);
+            }
+
+            @Override
+            public Void visitMethod(MethodTree node, Void aVoid) {
+                check(getCurrentPath());
+                return super.visitMethod(node, aVoid);
+            }
+
+            @Override
+            public Void visitVariable(VariableTree node, Void aVoid) {
+                check(getCurrentPath());
+                return super.visitVariable(node, aVoid);
+            }
+        }
+
+        /**
+         * Visits the links of a doc comment.
+         */
+        private class LinkScanner extends DocTreePathScanner<Void, Void> {
+
+            private final CompilationUnitTree compilationUnit;
+
+            private LinkScanner(CompilationUnitTree compilationUnit) {
+                super();
+                this.compilationUnit = compilationUnit;
+            }
+
+            @Override
+            public Void visitLink(LinkTree node, Void aVoid) {
+                final DocTreePath path = getCurrentPath();
+                if (node.getLabel()
+                        .isEmpty() && isFullyQualified(path, node.getReference())) {
+                    report(new WrongLink(node, path.getDocComment(), compilationUnit));
+                }
+                return super.visitLink(node, aVoid);
+            }
+        }
+    }
+
+    /**
+     * A link in the wrong format found in a doc comment.
+     */
+    private static class WrongLink {
+
+        private final LinkTree link;
+        private final DocCommentTree comment;
+        private final CompilationUnitTree compilationUnit;
+
+        private WrongLink(LinkTree link,
+                          DocCommentTree comment,
+                          CompilationUnitTree compilationUnit) {
+            this.link = link;
+            this.comment = comment;
+            this.compilationUnit = compilationUnit;
+        }
+
+        private void print(DocTrees docTrees, Diagnostic.Kind kind) {
+            final String message = format(
+                    "Wrong link format found: %s. Links with fully-qualified names should be " +
+                            "in format {@link <FQN> <text>} or {@linkplain <FQN> <text>}.",
+                    link.getReference()
+                        .getSignature());
+            docTrees.printMessage(kind, message, link, comment, compilationUnit);
+        }
+    }
+}
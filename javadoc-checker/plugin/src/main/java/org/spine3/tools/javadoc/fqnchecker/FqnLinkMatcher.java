@@ -0,0 +1,209 @@
+/*
+ * Copyright 2017, TeamDev Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.spine3.tools.javadoc.fqnchecker;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Matches a Javadoc link to a fully-qualified name without a label,
+ * e.g. {@code {@link org.spine3.base.Client}}.
+ *
+ * <p>A link in the wrong format consists of:
+ * <ol>
+ *     <li>{@code {@link} or {@code {@linkplain} followed by optional spaces;
+ *     <li>the qualifier segments, each followed by a dot;
+ *     <li>the simple name of 2 to 63 letters;
+ *     <li>optional spaces and the closing brace.
+ * </ol>
+ *
+ * <p>Since neither the segments nor the simple name may contain spaces or braces,
+ * the qualified name is the longest run of the name characters after the tag. Thus
+ * the match is decided in a single pass over the link without any backtracking.
+ *
+ * <p>The instances of this class are immutable and may be used from several threads.
+ */
+final class FqnLinkMatcher {
+
+    private static final String LINK_TAG = "{@link";
+    private static final String LINKPLAIN_TAG = "{@linkplain";
+
+    private static final int SIMPLE_NAME_MIN_LENGTH = 2;
+    private static final int SIMPLE_NAME_MAX_LENGTH = 63;
+
+    private final Segment firstSegment;
+    private final Segment otherSegment;
+    private final int minSegmentCount;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param firstSegment    the format of the first qualifier segment
+     * @param otherSegment    the format of the rest of the qualifier segments
+     * @param minSegmentCount the minimal number of the qualifier segments
+     */
+    FqnLinkMatcher(Segment firstSegment, Segment otherSegment, int minSegmentCount) {
+        checkArgument(minSegmentCount > 0, "At least one qualifier segment is required.");
+        this.firstSegment = firstSegment;
+        this.otherSegment = otherSegment;
+        this.minSegmentCount = minSegmentCount;
+    }
+
+    /**
+     * Matches a link in the wrong format starting at the given index.
+     *
+     * @param source the text to match
+     * @param start  the index of the link start
+     * @return the index after the closing brace of the link,
+     *         or {@code -1} if there is no wrong link at the given index
+     */
+    int match(CharSequence source, int start) {
+        if (!startsWith(source, start, LINK_TAG)) {
+            return -1;
+        }
+        final int end = matchAfterTag(source, start + LINK_TAG.length());
+        if (end >= 0 || !startsWith(source, start, LINKPLAIN_TAG)) {
+            return end;
+        }
+        return matchAfterTag(source, start + LINKPLAIN_TAG.length());
+    }
+
+    private int matchAfterTag(CharSequence source, int tagEnd) {
+        final int nameStart = skipSpaces(source, tagEnd);
+        int nameEnd = nameStart;
+        while (nameEnd < source.length() && isNameChar(source.charAt(nameEnd))) {
+            nameEnd++;
+        }
+        final int closingBrace = skipSpaces(source, nameEnd);
+        if (closingBrace == source.length()
+                || source.charAt(closingBrace) != '}'
+                || !isQualifiedName(source, nameStart, nameEnd)) {
+            return -1;
+        }
+        return closingBrace + 1;
+    }
+
+    private boolean isQualifiedName(CharSequence source, int start, int end) {
+        int segmentCount = 0;
+        int segmentStart = start;
+        for (int i = start; i < end; i++) {
+            if (source.charAt(i) == '.') {
+                final Segment segment = segmentCount == 0
+                                        ? firstSegment
+                                        : otherSegment;
+                if (!segment.matches(source, segmentStart, i)) {
+                    return false;
+                }
+                segmentCount++;
+                segmentStart = i + 1;
+            }
+        }
+        return segmentCount >= minSegmentCount && isSimpleName(source, segmentStart, end);
+    }
+
+    private static boolean isSimpleName(CharSequence source, int start, int end) {
+        final int length = end - start;
+        if (length < SIMPLE_NAME_MIN_LENGTH || length > SIMPLE_NAME_MAX_LENGTH) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (!isLetter(source.charAt(i), true)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int skipSpaces(CharSequence source, int start) {
+        int index = start;
+        while (index < source.length() && source.charAt(index) == ' ') {
+            index++;
+        }
+        return index;
+    }
+
+    private static boolean isNameChar(char character) {
+        return isSegmentChar(character, true) || character == '.';
+    }
+
+    private static boolean isSegmentChar(char character, boolean upperCaseAllowed) {
+        return isLetter(character, upperCaseAllowed)
+                || (character >= '0' && character <= '9')
+                || character == '-';
+    }
+
+    private static boolean isLetter(char character, boolean upperCaseAllowed) {
+        return (character >= 'a' && character <= 'z')
+                || (upperCaseAllowed && character >= 'A' && character <= 'Z');
+    }
+
+    private static boolean startsWith(CharSequence source, int offset, String prefix) {
+        final int prefixLength = prefix.length();
+        if (offset + prefixLength > source.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefixLength; i++) {
+            if (source.charAt(offset + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The format of a qualifier segment.
+     *
+     * <p>A segment consists of the ASCII letters, digits and hyphens and does not start
+     * with a hyphen.
+     */
+    static final class Segment {
+
+        private final boolean upperCaseAllowed;
+        private final int minLength;
+        private final int maxLength;
+
+        /**
+         * Creates a new instance.
+         *
+         * @param upperCaseAllowed if the upper case letters are allowed in the segment
+         * @param minLength        the minimal length of the segment
+         * @param maxLength        the maximal length of the segment
+         */
+        Segment(boolean upperCaseAllowed, int minLength, int maxLength) {
+            checkArgument(minLength > 0 && minLength <= maxLength,
+                          "Invalid segment length range: %s..%s.", minLength, maxLength);
+            this.upperCaseAllowed = upperCaseAllowed;
+            this.minLength = minLength;
+            this.maxLength = maxLength;
+        }
+
+        private boolean matches(CharSequence source, int start, int end) {
+            final int length = end - start;
+            if (length < minLength || length > maxLength || source.charAt(start) == '-') {
+                return false;
+            }
+            for (int i = start; i < end; i++) {
+                if (!isSegmentChar(source.charAt(i), upperCaseAllowed)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
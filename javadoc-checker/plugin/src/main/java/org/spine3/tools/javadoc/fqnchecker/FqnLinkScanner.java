@@ -0,0 +1,181 @@
+/*
+ * Copyright 2017, TeamDev Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.spine3.tools.javadoc.fqnchecker;
+
+import java.util.List;
+
+import static com.google.common.collect.Lists.newArrayList;
+
+/**
+ * Finds the Javadoc links in the wrong format in a Java source.
+ *
+ * <p>The source is read in a single pass. Only the Javadoc comments are inspected, while
+ * the code, string and character literals and the other comments are skipped.
+ *
+ * <p>Inside a Javadoc comment, each {@code {@link} or {@code {@linkplain} token is checked
+ * with the {@linkplain FqnLinkMatcher link matcher}.
+ *
+ * <p>The scanner only relies on the ASCII characters, so the source may be
+ * an {@link AsciiCharSequence} view of the file bytes.
+ *
+ * <p>The instances of this class are immutable and may be used from several threads.
+ */
+final class FqnLinkScanner {
+
+    private final FqnLinkMatcher linkMatcher;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param linkMatcher the matcher of a link in the wrong format
+     */
+    FqnLinkScanner(FqnLinkMatcher linkMatcher) {
+        this.linkMatcher = linkMatcher;
+    }
+
+    /**
+     * Finds all the links in the wrong format.
+     *
+     * @param source the contents of a Java source file
+     * @return the wrong links in the order of their appearance
+     */
+    @SuppressWarnings({"OverlyComplexMethod", "OverlyLongMethod"})
+    // It's a hand-written lexer; splitting it would only make it harder to follow.
+    List<InvalidFqnUsage> scan(CharSequence source) {
+        final List<InvalidFqnUsage> result = newArrayList();
+        final int length = source.length();
+        final List<Integer> offsets = newArrayList();
+        State state = State.CODE;
+        int index = 0;
+        while (index < length) {
+            final char current = source.charAt(index);
+            final char next = index + 1 < length
+                              ? source.charAt(index + 1)
+                              : 0;
+            switch (state) {
+                case CODE:
+                    if (current == '/' && next == '*') {
+                        final boolean javadoc = index + 2 < length
+                                && source.charAt(index + 2) == '*'
+                                && !(index + 3 < length && source.charAt(index + 3) == '/');
+                        state = javadoc
+                                ? State.JAVADOC
+                                : State.BLOCK_COMMENT;
+                        index += javadoc ? 3 : 2;
+                        continue;
+                    }
+                    if (current == '/' && next == '/') {
+                        state = State.LINE_COMMENT;
+                        index += 2;
+                        continue;
+                    }
+                    if (current == '"') {
+                        state = State.STRING;
+                    } else if (current == '\'') {
+                        state = State.CHARACTER;
+                    }
+                    break;
+                case LINE_COMMENT:
+                    if (current == '\n') {
+                        state = State.CODE;
+                    }
+                    break;
+                case BLOCK_COMMENT:
+                    if (current == '*' && next == '/') {
+                        state = State.CODE;
+                        index += 2;
+                        continue;
+                    }
+                    break;
+                case JAVADOC:
+                    if (current == '*' && next == '/') {
+                        state = State.CODE;
+                        index += 2;
+                        continue;
+                    }
+                    if (current == '{') {
+                        final int linkEnd = linkMatcher.match(source, index);
+                        if (linkEnd >= 0) {
+                            final String link = source.subSequence(index, linkEnd)
+                                                      .toString();
+                            result.add(new InvalidFqnUsage(link));
+                            offsets.add(index);
+                            // A link cannot span several lines.
+                            index = linkEnd;
+                            continue;
+                        }
+                    }
+                    break;
+                case STRING:
+                case CHARACTER:
+                    if (current == '\\') {
+                        index += 2;
+                        continue;
+                    }
+                    if ((state == State.STRING && current == '"')
+                            || (state == State.CHARACTER && current == '\'')
+                            || current == '\n') {
+                        state = State.CODE;
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException("Unexpected state: " + state);
+            }
+            index++;
+        }
+        setLineNumbers(source, result, offsets);
+        return result;
+    }
+
+    /**
+     * Sets the line numbers of the found links.
+     *
+     * <p>The line numbers are calculated only for the found links, so the sources
+     * without the wrong links are not split into lines at all.
+     */
+    private static void setLineNumbers(CharSequence source,
+                                       List<InvalidFqnUsage> usages,
+                                       List<Integer> offsets) {
+        int lineNumber = 1;
+        int index = 0;
+        for (int i = 0; i < usages.size(); i++) {
+            final int offset = offsets.get(i);
+            for (; index < offset; index++) {
+                if (source.charAt(index) == '\n') {
+                    lineNumber++;
+                }
+            }
+            usages.get(i)
+                  .setIndex(lineNumber);
+        }
+    }
+
+    /**
+     * The states of the lexer.
+     */
+    private enum State {
+        CODE,
+        LINE_COMMENT,
+        BLOCK_COMMENT,
+        JAVADOC,
+        STRING,
+        CHARACTER
+    }
+}
@@ -19,57 +19,63 @@
  */
 package org.spine3.tools.javadoc.fqnchecker;
 
-import com.google.common.base.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.nio.file.Path;
-import java.util.HashMap;
-import java.util.Iterator;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static java.lang.String.format;
 
 /**
  * Utility class to save and address results of fully qualified name javadoc check.
  *
+ * <p>An instance holds the results of a single check of a single project. The instance
+ * may be safely used from several threads. The total number of the saved invalid links
+ * is maintained on each update, so obtaining it takes constant time.
+ *
  * @author Alexander Aleksandrov
  */
 public class InvalidResultStorage {
 
-    private static final Map<Path, List<Optional<InvalidFqnUsage>>> resultStorage = new HashMap<>();
+    private final ConcurrentMap<Path, List<InvalidFqnUsage>> resultStorage =
+            new ConcurrentHashMap<>();
+    private final AtomicInteger linkTotal = new AtomicInteger();
 
-    public Map<Path, List<Optional<InvalidFqnUsage>>> getResults() {
-        return resultStorage;
+    public Map<Path, List<InvalidFqnUsage>> getResults() {
+        return Collections.unmodifiableMap(resultStorage);
     }
 
     public int getLinkTotal() {
-        int total = 0;
-        for (List<Optional<InvalidFqnUsage>> l : resultStorage.values()) {
-            total += l.size();
-        }
-        return total;
+        return linkTotal.get();
     }
 
+    /**
+     * Logs the saved invalid links and removes them from the storage.
+     */
     @SuppressWarnings("MethodWithMultipleLoops")//we need it to go through a map
     public void logInvalidFqnUsages() {
-        final Iterator iterator = resultStorage.entrySet()
-                                         .iterator();
-        while (iterator.hasNext()) {
-            Map.Entry<Path, List<Optional<InvalidFqnUsage>>> pair = (Map.Entry) iterator.next();
-            for (Optional<InvalidFqnUsage> link : pair.getValue()) {
-                if (link.isPresent()) {
-                    final InvalidFqnUsage invalidFqnUsage = link.get();
-                    final String msg = format(
-                            " Wrong link format found: %s on %s line in %s",
-                            invalidFqnUsage.getActualUsage(),
-                            invalidFqnUsage.getIndex(),
-                            pair.getKey());
-                    log().error(msg);
-                }
+        for (Map.Entry<Path, List<InvalidFqnUsage>> pair : resultStorage.entrySet()) {
+            final Path path = pair.getKey();
+            final List<InvalidFqnUsage> usages = pair.getValue();
+            if (!resultStorage.remove(path, usages)) {
+                // The results for the file were updated concurrently.
+                continue;
+            }
+            linkTotal.addAndGet(-usages.size());
+            for (InvalidFqnUsage invalidFqnUsage : usages) {
+                final String msg = format(
+                        " Wrong link format found: %s on %s line in %s",
+                        invalidFqnUsage.getActualUsage(),
+                        invalidFqnUsage.getIndex(),
+                        path);
+                log().error(msg);
             }
-            iterator.remove();
         }
     }
 
@@ -79,8 +85,12 @@ public class InvalidResultStorage {
      * @param path file path that contain wrong fomated links
      * @param list list of invalid fully qualified names usages
      */
-    public void save(Path path, List<Optional<InvalidFqnUsage>> list) {
-        resultStorage.put(path, list);
+    public void save(Path path, List<InvalidFqnUsage> list) {
+        final List<InvalidFqnUsage> previous = resultStorage.put(path, list);
+        final int previousSize = previous == null
+                                 ? 0
+                                 : previous.size();
+        linkTotal.addAndGet(list.size() - previousSize);
     }
 
     private static Logger log() {
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2017, TeamDev Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.spine3.tools.javadoc.fqnchecker;
+
+import com.google.common.collect.ImmutableList;
+
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.List;
+
+/**
+ * Selects the checked files by the {@linkplain Extension#getInclude() include} and
+ * {@linkplain Extension#getExclude() exclude} patterns.
+ *
+ * <p>The instances of this class are immutable and may be used from several threads.
+ */
+final class SourceFileFilter {
+
+    private static final String GLOB_SYNTAX = "glob:";
+
+    private final List<PathMatcher> includes;
+    private final List<PathMatcher> excludes;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param includes the glob patterns of the checked files; if empty, all the files
+     *                 are checked
+     * @param excludes the glob patterns of the files, which are not checked
+     */
+    SourceFileFilter(Iterable<String> includes, Iterable<String> excludes) {
+        this.includes = toMatchers(includes);
+        this.excludes = toMatchers(excludes);
+    }
+
+    /**
+     * Tells if the file should be checked.
+     *
+     * @param relativePath the path of the file relative to its source directory
+     */
+    boolean accepts(Path relativePath) {
+        final boolean included = includes.isEmpty() || matchesAny(includes, relativePath);
+        return included && !matchesAny(excludes, relativePath);
+    }
+
+    private static boolean matchesAny(Iterable<PathMatcher> matchers, Path path) {
+        for (PathMatcher matcher : matchers) {
+            if (matcher.matches(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<PathMatcher> toMatchers(Iterable<String> patterns) {
+        final FileSystem fileSystem = FileSystems.getDefault();
+        final ImmutableList.Builder<PathMatcher> result = ImmutableList.builder();
+        for (String pattern : patterns) {
+            result.add(fileSystem.getPathMatcher(GLOB_SYNTAX + pattern));
+        }
+        return result.build();
+    }
+}
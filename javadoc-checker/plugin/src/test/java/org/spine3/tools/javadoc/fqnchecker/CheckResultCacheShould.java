@@ -0,0 +1,135 @@
+/*
+ * Copyright 2017, TeamDev Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.spine3.tools.javadoc.fqnchecker;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashCode;
+import com.google.common.io.Files;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CheckResultCacheShould {
+
+    private static final String PATH = "src/main/java/Foo.java";
+    private static final long SIZE = 42L;
+    private static final long LAST_MODIFIED = 1000L;
+    private static final byte[] CONTENT = {1, 2, 3};
+    private static final HashCode HASH = CheckResultCache.hash(ByteBuffer.wrap(CONTENT));
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private File cacheFile;
+
+    @Before
+    public void setUp() {
+        cacheFile = new File(folder.getRoot(), "cache/fqn-links.bin");
+    }
+
+    @Test
+    public void restore_saved_results_for_unmodified_file() {
+        saveResults(PATH);
+
+        final CheckResultCache cache = CheckResultCache.load(cacheFile);
+        final List<InvalidFqnUsage> usages =
+                cache.getUnmodified(PATH, SIZE, LAST_MODIFIED)
+                     .get();
+
+        assertEquals(1, usages.size());
+        assertEquals("{@link a.b.C}", usages.get(0)
+                                             .getActualUsage());
+        assertEquals(7, usages.get(0)
+                              .getIndex());
+    }
+
+    @Test
+    public void not_restore_results_for_touched_file_without_content_check() {
+        saveResults(PATH);
+
+        final CheckResultCache cache = CheckResultCache.load(cacheFile);
+
+        assertFalse(cache.getUnmodified(PATH, SIZE, LAST_MODIFIED + 1)
+                         .isPresent());
+        assertTrue(cache.getSameContent(PATH, SIZE, LAST_MODIFIED + 1, HASH)
+                        .isPresent());
+    }
+
+    @Test
+    public void not_restore_results_for_changed_content() {
+        saveResults(PATH);
+
+        final CheckResultCache cache = CheckResultCache.load(cacheFile);
+        final HashCode otherHash = CheckResultCache.hash(ByteBuffer.wrap(new byte[]{4}));
+
+        assertFalse(cache.getSameContent(PATH, SIZE, LAST_MODIFIED + 1, otherHash)
+                         .isPresent());
+    }
+
+    @Test
+    public void drop_results_not_used_during_last_check() {
+        saveResults(PATH);
+        CheckResultCache.load(cacheFile)
+                        .save();
+
+        assertFalse(CheckResultCache.load(cacheFile)
+                                    .getUnmodified(PATH, SIZE, LAST_MODIFIED)
+                                    .isPresent());
+    }
+
+    @Test
+    public void hash_direct_buffer_same_as_heap_one() {
+        final ByteBuffer direct = ByteBuffer.allocateDirect(CONTENT.length);
+        direct.put(CONTENT);
+        direct.flip();
+
+        assertEquals(HASH, CheckResultCache.hash(direct));
+        assertEquals(0, direct.position());
+    }
+
+    @Test
+    public void ignore_corrupted_file() throws IOException {
+        Files.createParentDirs(cacheFile);
+        Files.write("corrupted", cacheFile, Charsets.UTF_8);
+
+        assertFalse(CheckResultCache.load(cacheFile)
+                                    .getUnmodified(PATH, SIZE, LAST_MODIFIED)
+                                    .isPresent());
+    }
+
+    private void saveResults(String path) {
+        final InvalidFqnUsage usage = new InvalidFqnUsage("{@link a.b.C}");
+        usage.setIndex(7);
+        final CheckResultCache cache = CheckResultCache.load(cacheFile);
+        cache.put(path, SIZE, LAST_MODIFIED, HASH, ImmutableList.of(usage));
+        cache.save();
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2017, TeamDev Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.spine3.tools.javadoc.fqnchecker;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.lang.String.format;
+
+/**
+ * Measures the throughput and the allocation rate of the Javadoc link check engines
+ * on the {@linkplain SyntheticCorpus synthetic corpus}.
+ *
+ * <p>For each corpus and engine, the benchmark reports the number of files checked per
+ * second and the number of bytes allocated per file. The allocation is measured with
+ * the HotSpot-specific thread allocation counter and is not reported on other JVMs.
+ *
+ * <p>Run with {@code ./gradlew :javadoc-checker:benchmarkJavadocChecker}.
+ */
+public class FqnCheckBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASUREMENT_ITERATIONS = 10;
+
+    private FqnCheckBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        System.out.println(format("%-14s %-22s %14s %18s",
+                                  "Corpus", "Engine", "Files/s", "Bytes/file"));
+        for (SyntheticCorpus corpus : SyntheticCorpus.values()) {
+            final List<byte[]> files = corpus.files();
+            for (Engine engine : Engine.values()) {
+                run(corpus, engine, files);
+            }
+        }
+    }
+
+    private static void run(SyntheticCorpus corpus, Engine engine, List<byte[]> files) {
+        int blackhole = 0;
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            blackhole += checkAll(engine, files);
+        }
+        final long allocatedBefore = allocatedBytes();
+        final long start = System.nanoTime();
+        for (int i = 0; i < MEASUREMENT_ITERATIONS; i++) {
+            blackhole += checkAll(engine, files);
+        }
+        final long elapsed = System.nanoTime() - start;
+        final long allocated = allocatedBytes() - allocatedBefore;
+
+        final long checkedFiles = (long) files.size() * MEASUREMENT_ITERATIONS;
+        final double filesPerSecond = checkedFiles * (double) TimeUnit.SECONDS.toNanos(1)
+                / elapsed;
+        final String bytesPerFile = allocatedBefore < 0
+                                    ? "n/a"
+                                    : String.valueOf(allocated / checkedFiles);
+        System.out.println(format("%-14s %-22s %14.1f %18s",
+                                  corpus, engine, filesPerSecond, bytesPerFile));
+        if (blackhole == Integer.MIN_VALUE) {
+            System.out.println("Unreachable, used to keep the results alive.");
+        }
+    }
+
+    private static int checkAll(Engine engine, List<byte[]> files) {
+        int result = 0;
+        for (byte[] file : files) {
+            result += engine.check(file);
+        }
+        return result;
+    }
+
+    private static long allocatedBytes() {
+        final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(
+                Thread.currentThread()
+                      .getId());
+    }
+
+    /**
+     * The engines checking a single file.
+     */
+    private enum Engine {
+
+        /**
+         * The {@link FqnLinkScanner} over the raw file bytes, as used by
+         * {@link FqnLinkInspection}.
+         */
+        SCANNER_BYTES {
+            private final FqnLinkScanner scanner =
+                    new FqnLinkScanner(FqnLinkInspection.JavadocPattern.LINK.getMatcher());
+
+            @Override
+            int check(byte[] file) {
+                return scanner.scan(new AsciiCharSequence(ByteBuffer.wrap(file)))
+                              .size();
+            }
+        },
+
+        /**
+         * The former link regular expression searched on each decoded line, which is
+         * how the files were checked before the scanner was introduced.
+         */
+        LINE_PATTERN {
+            private final Pattern pattern = FqnLinkMatcherShould.INSPECTION_LINK_REGEX;
+
+            @Override
+            int check(byte[] file) {
+                int result = 0;
+                final String content = new String(file, StandardCharsets.UTF_8);
+                for (String line : content.split("\n")) {
+                    final Matcher matcher = pattern.matcher(line);
+                    if (matcher.find()) {
+                        result++;
+                    }
+                }
+                return result;
+            }
+        },
+
+        /**
+         * The first wrong link search of {@link FqnCheckPlugin}.
+         */
+        FQN_CHECK_PLUGIN {
+            @Override
+            int check(byte[] file) {
+                final String content = new String(file, StandardCharsets.UTF_8);
+                return FqnCheckPlugin.check(content)
+                                     .isPresent() ? 1 : 0;
+            }
+        };
+
+        /**
+         * Checks the file contents.
+         *
+         * @return the number of the found wrong links
+         */
+        abstract int check(byte[] file);
+    }
+}
@@ -41,6 +41,7 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 import java.util.List;
 
@@ -51,6 +52,7 @@ public class FqnCheckPluginShould {
 
     private String resourceFolder = "";
     private static final String SOURCE_FOLDER = "src/main/java";
+    private static final String TEST_SOURCE_FOLDER = "src/test/java";
     private final String checkJavadocLink = TaskName.CHECK_FQN.getValue();
     private final int threshold = 2;
     private final String responseType = "error";
@@ -140,6 +142,56 @@ public class FqnCheckPluginShould {
         assertTrue(buildResult.getOutput().contains("Wrong link format found"));
     }
 
+    @Test
+    public void check_configured_source_sets() throws IOException {
+        setUpTestProject(0, responseType);
+        appendToBuildFile("checkJavadoc.sourceSets = ['main', 'test']");
+        final Path testSources = testProjectDir.getRoot()
+                                               .toPath()
+                                               .resolve(TEST_SOURCE_FOLDER);
+        Files.createDirectories(testSources);
+        Files.copy(Paths.get(resourceFolder, "WrongFQNformat.java"),
+                   testSources.resolve("WrongFQNformat.java"));
+
+        BuildResult buildResult = GradleRunner.create()
+                                              .withProjectDir(testProjectDir.getRoot())
+                                              .withPluginClasspath()
+                                              .withArguments(checkJavadocLink, "--debug")
+                                              .buildAndFail();
+
+        assertTrue(buildResult.getOutput().contains("Wrong link format found"));
+    }
+
+    @Test
+    public void skip_excluded_files() throws IOException {
+        setUpTestProject(0, responseType);
+        appendToBuildFile("checkJavadoc.exclude 'WrongFQNformat.java', " +
+                          "'MultipleWrongFqnLinks.java'");
+        final Path testSources = testProjectDir.getRoot()
+                                               .toPath()
+                                               .resolve(SOURCE_FOLDER);
+        FileUtils.copyDirectory(new File(resourceFolder), new File(testSources.toString()));
+
+        BuildResult buildResult = GradleRunner.create()
+                                              .withProjectDir(testProjectDir.getRoot())
+                                              .withPluginClasspath()
+                                              .withArguments(checkJavadocLink, "--debug")
+                                              .build();
+
+        final List<String> expected = Arrays.asList(":compileJava", ":checkJavadocLink");
+
+        assertEquals(expected, extractTasks(buildResult));
+    }
+
+    private void appendToBuildFile(String line) throws IOException {
+        final Path buildGradleFile = testProjectDir.getRoot()
+                                                   .toPath()
+                                                   .resolve("build.gradle");
+        final String content = System.lineSeparator() + line + System.lineSeparator();
+        Files.write(buildGradleFile, content.getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.APPEND);
+    }
+
     private static List<String> extractTasks(BuildResult buildResult) {
         return FluentIterable
                 .from(buildResult.getTasks())
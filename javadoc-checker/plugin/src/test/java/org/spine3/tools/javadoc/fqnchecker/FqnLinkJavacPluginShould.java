@@ -0,0 +1,147 @@
+/*
+ * Copyright 2017, TeamDev Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.spine3.tools.javadoc.fqnchecker;
+
+import com.google.common.collect.ImmutableList;
+import com.sun.source.util.JavacTask;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.net.URI;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FqnLinkJavacPluginShould {
+
+    private static final String WRONG_LINKS = "package org.spine3.test;\n" +
+            "/**\n" +
+            " * See {@link java.util.List} and {@linkplain java.util.Map}.\n" +
+            " */\n" +
+            "class WrongLinks {\n" +
+            "    /** Uses {@link java.util.Set}. */\n" +
+            "    void method() {}\n" +
+            "}\n";
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+
+    @Test
+    public void warn_about_fqn_links_without_label() {
+        assertTrue(compile(WRONG_LINKS, "threshold=0", "responseType=warn"));
+
+        final List<Diagnostic<? extends JavaFileObject>> warnings =
+                diagnosticsOf(Diagnostic.Kind.WARNING);
+        assertEquals(3, warnings.size());
+        assertEquals(3, warnings.get(0)
+                                .getLineNumber());
+        assertEquals(6, warnings.get(2)
+                                .getLineNumber());
+    }
+
+    @Test
+    public void fail_compilation_on_error_response() {
+        assertFalse(compile(WRONG_LINKS, "threshold=0", "responseType=error"));
+
+        assertEquals(3, diagnosticsOf(Diagnostic.Kind.ERROR).size());
+    }
+
+    @Test
+    public void not_report_links_within_threshold() {
+        assertTrue(compile(WRONG_LINKS, "threshold=3", "responseType=error"));
+
+        assertTrue(diagnostics.getDiagnostics()
+                              .isEmpty());
+    }
+
+    @Test
+    public void report_all_links_once_threshold_exceeded() {
+        assertFalse(compile(WRONG_LINKS, "threshold=2", "responseType=error"));
+
+        assertEquals(3, diagnosticsOf(Diagnostic.Kind.ERROR).size());
+    }
+
+    @Test
+    public void allow_labeled_short_and_member_links() {
+        final String source = "package org.spine3.test;\n" +
+                "import java.util.List;\n" +
+                "/**\n" +
+                " * {@link java.util.List List}, {@linkplain java.util.Map the map},\n" +
+                " * {@link List}, {@link java.util.List#size()}, {@link Inner}.\n" +
+                " */\n" +
+                "class CorrectLinks {\n" +
+                "    /** {@link CorrectLinks.Inner} */\n" +
+                "    static class Inner {}\n" +
+                "}\n";
+
+        assertTrue(compile(source, "threshold=0", "responseType=error"));
+
+        assertTrue(diagnostics.getDiagnostics()
+                              .isEmpty());
+    }
+
+    private boolean compile(String source, String... pluginArgs) {
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        final JavaFileObject file = new SourceFile(source);
+        final List<String> options = ImmutableList.of("-d", folder.getRoot()
+                                                                  .getAbsolutePath());
+        final JavacTask task = (JavacTask) compiler.getTask(null, null, diagnostics, options,
+                                                            null, ImmutableList.of(file));
+        new FqnLinkJavacPlugin().init(task, pluginArgs);
+        return task.call();
+    }
+
+    private List<Diagnostic<? extends JavaFileObject>> diagnosticsOf(Diagnostic.Kind kind) {
+        final ImmutableList.Builder<Diagnostic<? extends JavaFileObject>> result =
+                ImmutableList.builder();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == kind) {
+                result.add(diagnostic);
+            }
+        }
+        return result.build();
+    }
+
+    private static class SourceFile extends SimpleJavaFileObject {
+
+        private final String source;
+
+        private SourceFile(String source) {
+            super(URI.create("string:///Source.java"), Kind.SOURCE);
+            this.source = source;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return source;
+        }
+    }
+}
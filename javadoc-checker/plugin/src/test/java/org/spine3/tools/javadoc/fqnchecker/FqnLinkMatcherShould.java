@@ -0,0 +1,164 @@
+/*
+ * Copyright 2017, TeamDev Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.spine3.tools.javadoc.fqnchecker;
+
+import com.google.common.base.Strings;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+
+public class FqnLinkMatcherShould {
+
+    /**
+     * The regular expression formerly used by {@link FqnLinkInspection}.
+     */
+    static final Pattern INSPECTION_LINK_REGEX = Pattern.compile(
+            "(\\{@link|\\{@linkplain) *((?!-)[a-z0-9-]{1,63}\\.)" +
+                    "((?!-)[a-zA-Z0-9-]{1,63}[a-zA-Z0-9-]\\.)+[a-zA-Z]{2,63}(\\}|\\ *\\})");
+
+    /**
+     * The regular expression formerly used by {@link FqnCheckPlugin}.
+     */
+    private static final Pattern PLUGIN_LINK_REGEX = Pattern.compile(
+            "(\\{@link|\\{@linkplain) *((?!-)[a-zA-Z0-9-]{1,63}" +
+                    "[a-zA-Z0-9-]\\.)+[a-zA-Z]{2,63}(\\}|\\ *\\})");
+
+    private static final int SAMPLE_COUNT = 20_000;
+    private static final String SEGMENT_CHARS = "abcxyzABCXYZ0129-";
+    private static final String RANDOM_CHARS = "{@linkpa.-Z0 }\t";
+    private static final String[] TAGS = {"{@link", "{@link", "{@linkplain", "{@linkplain",
+                                          "{@lin", "{@linkplainx", "{@linkp", "x{@link"};
+    private static final int[] LENGTHS = {0, 1, 2, 3, 62, 63, 64, 65};
+
+    private final FqnLinkMatcher inspectionMatcher =
+            FqnLinkInspection.JavadocPattern.LINK.getMatcher();
+    private final FqnLinkMatcher pluginMatcher = FqnCheckPlugin.JavadocPattern.LINK.getMatcher();
+
+    @Test
+    public void match_wrong_link() {
+        final String source = "See {@link org.spine3.base.Client  }.";
+
+        assertEquals(source.indexOf('.', source.indexOf('}')),
+                     inspectionMatcher.match(source, source.indexOf('{')));
+    }
+
+    @Test
+    public void not_match_link_with_label() {
+        final String source = "{@linkplain org.spine3.base.Client the client}";
+
+        assertEquals(-1, inspectionMatcher.match(source, 0));
+    }
+
+    @Test
+    public void not_match_link_to_nested_class() {
+        final String source = "{@link Client.Nested}";
+
+        assertEquals(-1, inspectionMatcher.match(source, 0));
+    }
+
+    @Test(timeout = 1000)
+    public void check_long_dotted_strings_in_linear_time() {
+        final StringBuilder source = new StringBuilder("{@link ");
+        for (int i = 0; i < 100_000; i++) {
+            source.append("ab.");
+        }
+        source.append("Name Text");
+
+        assertEquals(-1, inspectionMatcher.match(source, 0));
+        assertEquals(-1, pluginMatcher.match(source, 0));
+    }
+
+    @Test
+    public void accept_same_links_as_inspection_regex_on_generated_links() {
+        final Random random = new Random(42L);
+        for (int i = 0; i < SAMPLE_COUNT; i++) {
+            assertSameMatch(INSPECTION_LINK_REGEX, inspectionMatcher, generateLink(random));
+        }
+    }
+
+    @Test
+    public void accept_same_links_as_plugin_regex_on_generated_links() {
+        final Random random = new Random(42L);
+        for (int i = 0; i < SAMPLE_COUNT; i++) {
+            assertSameMatch(PLUGIN_LINK_REGEX, pluginMatcher, generateLink(random));
+        }
+    }
+
+    @Test
+    public void accept_same_links_as_regex_on_random_strings() {
+        final Random random = new Random(42L);
+        for (int i = 0; i < SAMPLE_COUNT; i++) {
+            final String source = "{@link" + randomString(random, RANDOM_CHARS,
+                                                           random.nextInt(30));
+            assertSameMatch(INSPECTION_LINK_REGEX, inspectionMatcher, source);
+            assertSameMatch(PLUGIN_LINK_REGEX, pluginMatcher, source);
+        }
+    }
+
+    private static void assertSameMatch(Pattern regex, FqnLinkMatcher matcher, String source) {
+        for (int start = 0; start <= 1 && start <= source.length(); start++) {
+            final Matcher regexMatcher = regex.matcher(source);
+            regexMatcher.region(start, source.length());
+            final int expected = regexMatcher.lookingAt()
+                                 ? regexMatcher.end()
+                                 : -1;
+            assertEquals("Source: \"" + source + "\", start: " + start,
+                         expected, matcher.match(source, start));
+        }
+    }
+
+    private static String generateLink(Random random) {
+        final StringBuilder link = new StringBuilder(TAGS[random.nextInt(TAGS.length)]);
+        link.append(Strings.repeat(" ", random.nextInt(3)));
+        final int segmentCount = random.nextInt(10) == 0
+                                 ? 0
+                                 : 1 + random.nextInt(4);
+        for (int i = 0; i < segmentCount; i++) {
+            final String segment = randomString(random, SEGMENT_CHARS, randomLength(random));
+            link.append(random.nextInt(4) == 0 ? segment : segment.toLowerCase())
+                .append('.');
+        }
+        final String simpleName = randomString(random, SEGMENT_CHARS, randomLength(random));
+        link.append(random.nextInt(4) == 0 ? simpleName : simpleName.replaceAll("[0-9-]", "q"))
+            .append(Strings.repeat(" ", random.nextInt(3)))
+            .append(random.nextBoolean()
+                    ? "}"
+                    : randomString(random, "} x.", random.nextInt(3)));
+        return link.toString();
+    }
+
+    private static int randomLength(Random random) {
+        return random.nextInt(4) == 0
+               ? LENGTHS[random.nextInt(LENGTHS.length)]
+               : 1 + random.nextInt(10);
+    }
+
+    private static String randomString(Random random, String chars, int length) {
+        final StringBuilder result = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            result.append(chars.charAt(random.nextInt(chars.length())));
+        }
+        return result.toString();
+    }
+}
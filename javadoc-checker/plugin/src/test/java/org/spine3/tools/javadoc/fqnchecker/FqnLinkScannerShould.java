@@ -0,0 +1,117 @@
+/*
+ * Copyright 2017, TeamDev Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.spine3.tools.javadoc.fqnchecker;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FqnLinkScannerShould {
+
+    private static final String WRONG_LINK = "{@link org.spine3.base.Client}";
+
+    private final FqnLinkScanner scanner =
+            new FqnLinkScanner(FqnLinkInspection.JavadocPattern.LINK.getMatcher());
+
+    @Test
+    public void find_links_in_javadoc() {
+        final String source = "package org.spine3;\n" +
+                "/**\n" +
+                " * The client " + WRONG_LINK + ".\n" +
+                " * {@linkplain org.spine3.base.Client Client} is fine.\n" +
+                " */\n" +
+                "class Client {}\n";
+
+        final List<InvalidFqnUsage> result = scanner.scan(source);
+
+        assertEquals(1, result.size());
+        assertEquals(WRONG_LINK, result.get(0)
+                                       .getActualUsage());
+        assertEquals(3, result.get(0)
+                              .getIndex());
+    }
+
+    @Test
+    public void find_several_links_in_one_line() {
+        final String source = "/** " + WRONG_LINK + ' ' + WRONG_LINK + " */";
+
+        assertEquals(2, scanner.scan(source)
+                               .size());
+    }
+
+    @Test
+    public void ignore_links_outside_javadoc() {
+        final String source = "// " + WRONG_LINK + '\n' +
+                "/* " + WRONG_LINK + " */\n" +
+                "/**/ class A {\n" +
+                "    String s = \"/** " + WRONG_LINK + " */\";\n" +
+                "    char c = '\"';\n" +
+                "    String t = \"\\\"/**\";\n" +
+                "}\n";
+
+        assertTrue(scanner.scan(source)
+                          .isEmpty());
+    }
+
+    @Test
+    public void count_lines_skipped_in_code_and_comments() {
+        final String source = "/* a\n b */\n" +
+                "// c\n" +
+                "String s = \"d\";\n" +
+                "/**\n" +
+                " * " + WRONG_LINK + '\n' +
+                " */";
+
+        final List<InvalidFqnUsage> result = scanner.scan(source);
+
+        assertEquals(1, result.size());
+        assertEquals(6, result.get(0)
+                              .getIndex());
+    }
+
+    @Test
+    public void scan_utf8_bytes() {
+        final String source = "/**\n" +
+                " * \u041a\u043b\u0438\u0435\u043d\u0442 \u2014 " + WRONG_LINK + '\n' +
+                " */";
+        final ByteBuffer bytes = ByteBuffer.wrap(source.getBytes(StandardCharsets.UTF_8));
+
+        final List<InvalidFqnUsage> result = scanner.scan(new AsciiCharSequence(bytes));
+
+        assertEquals(1, result.size());
+        assertEquals(WRONG_LINK, result.get(0)
+                                       .getActualUsage());
+        assertEquals(2, result.get(0)
+                              .getIndex());
+    }
+
+    @Test
+    public void check_unterminated_javadoc_till_end() {
+        final String source = "/** " + WRONG_LINK;
+
+        assertEquals(1, scanner.scan(source)
+                               .size());
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2017, TeamDev Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.spine3.tools.javadoc.fqnchecker;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class InvalidResultStorageShould {
+
+    private static final Path FILE = Paths.get("Foo.java");
+
+    @Test
+    public void count_saved_links() {
+        final InvalidResultStorage storage = new InvalidResultStorage();
+        storage.save(FILE, usages(2));
+        storage.save(Paths.get("Bar.java"), usages(3));
+
+        assertEquals(5, storage.getLinkTotal());
+    }
+
+    @Test
+    public void recount_links_on_resave() {
+        final InvalidResultStorage storage = new InvalidResultStorage();
+        storage.save(FILE, usages(2));
+        storage.save(FILE, usages(1));
+
+        assertEquals(1, storage.getLinkTotal());
+    }
+
+    @Test
+    public void remove_logged_links() {
+        final InvalidResultStorage storage = new InvalidResultStorage();
+        storage.save(FILE, usages(2));
+
+        storage.logInvalidFqnUsages();
+
+        assertEquals(0, storage.getLinkTotal());
+        assertTrue(storage.getResults()
+                          .isEmpty());
+    }
+
+    @Test
+    public void not_share_results_between_instances() {
+        new InvalidResultStorage().save(FILE, usages(2));
+
+        assertEquals(0, new InvalidResultStorage().getLinkTotal());
+    }
+
+    @Test
+    public void count_links_saved_concurrently() throws InterruptedException {
+        final InvalidResultStorage storage = new InvalidResultStorage();
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        final int fileCount = 1000;
+        for (int i = 0; i < fileCount; i++) {
+            final Path file = Paths.get("File" + i + ".java");
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    storage.save(file, usages(2));
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(fileCount * 2, storage.getLinkTotal());
+    }
+
+    private static List<InvalidFqnUsage> usages(int count) {
+        final ImmutableList.Builder<InvalidFqnUsage> result = ImmutableList.builder();
+        for (int i = 0; i < count; i++) {
+            result.add(new InvalidFqnUsage("{@link a.b.C" + i + '}'));
+        }
+        return result.build();
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2017, TeamDev Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.spine3.tools.javadoc.fqnchecker;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SourceFileFilterShould {
+
+    private static final Path FILE = Paths.get("org", "spine3", "base", "Client.java");
+    private static final Path GENERATED_FILE = Paths.get("org", "spine3", "generated",
+                                                         "Client.java");
+
+    @Test
+    public void accept_all_files_if_no_patterns_set() {
+        final SourceFileFilter filter = new SourceFileFilter(Collections.<String>emptyList(),
+                                                             Collections.<String>emptyList());
+
+        assertTrue(filter.accepts(FILE));
+        assertTrue(filter.accepts(GENERATED_FILE));
+    }
+
+    @Test
+    public void accept_only_included_files() {
+        final SourceFileFilter filter = new SourceFileFilter(ImmutableList.of("org/spine3/base/**"),
+                                                             Collections.<String>emptyList());
+
+        assertTrue(filter.accepts(FILE));
+        assertFalse(filter.accepts(GENERATED_FILE));
+    }
+
+    @Test
+    public void reject_excluded_files() {
+        final SourceFileFilter filter = new SourceFileFilter(Collections.<String>emptyList(),
+                                                             ImmutableList.of("**/generated/**"));
+
+        assertTrue(filter.accepts(FILE));
+        assertFalse(filter.accepts(GENERATED_FILE));
+    }
+
+    @Test
+    public void prefer_exclude_patterns_to_include_patterns() {
+        final SourceFileFilter filter = new SourceFileFilter(ImmutableList.of("org/**"),
+                                                             ImmutableList.of("**/generated/**"));
+
+        assertTrue(filter.accepts(FILE));
+        assertFalse(filter.accepts(GENERATED_FILE));
+    }
+}
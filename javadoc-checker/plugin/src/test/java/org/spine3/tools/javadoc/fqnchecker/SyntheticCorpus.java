@@ -0,0 +1,158 @@
+/*
+ * Copyright 2017, TeamDev Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.spine3.tools.javadoc.fqnchecker;
+
+import com.google.common.collect.ImmutableList;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates the Java sources used to benchmark the Javadoc link check.
+ *
+ * <p>The sources are generated deterministically, so the results of the different runs
+ * are comparable.
+ */
+enum SyntheticCorpus {
+
+    /**
+     * Large files with many documented methods and some code.
+     */
+    LARGE_FILES(20) {
+        @Override
+        String generate(Random random) {
+            final StringBuilder source = header();
+            for (int i = 0; i < 2_000; i++) {
+                source.append("    /**\n")
+                      .append("     * Handles the {@link org.spine3.base.Command Command} number ")
+                      .append(i)
+                      .append(".\n")
+                      .append("     *\n")
+                      .append("     * @param value the value to handle\n")
+                      .append("     */\n")
+                      .append("    public int method")
+                      .append(i)
+                      .append("(int value) {\n")
+                      .append("        final String text = \"value: \" + value;\n")
+                      .append("        return text.length() * ")
+                      .append(random.nextInt(100))
+                      .append(";\n")
+                      .append("    }\n\n");
+            }
+            return footer(source);
+        }
+    },
+
+    /**
+     * Files with a single long Javadoc comment.
+     */
+    LONG_JAVADOC(50) {
+        @Override
+        String generate(Random random) {
+            final StringBuilder source = new StringBuilder(PACKAGE).append("/**\n");
+            for (int i = 0; i < 5_000; i++) {
+                source.append(" * Lorem ipsum dolor sit amet, consectetur adipiscing elit ")
+                      .append(random.nextInt())
+                      .append(", sed do eiusmod tempor.\n");
+            }
+            source.append(" */\n");
+            return footer(source.append("public class Generated {\n"));
+        }
+    },
+
+    /**
+     * Files with many links, a part of which is in the wrong format.
+     */
+    MANY_LINKS(100) {
+        @Override
+        String generate(Random random) {
+            final StringBuilder source = header();
+            source.append("    /**\n");
+            for (int i = 0; i < 1_000; i++) {
+                source.append("     * {@link org.spine3.server.event.EventBus");
+                if (random.nextInt(10) != 0) {
+                    source.append(" EventBus");
+                }
+                source.append("} {@linkplain Event.Inner").append(i).append("}\n");
+            }
+            source.append("     */\n")
+                  .append("    void method() {}\n");
+            return footer(source);
+        }
+    },
+
+    /**
+     * Files with the long dotted names inside the links, which make the link
+     * pattern backtrack.
+     */
+    PATHOLOGICAL(20) {
+        @Override
+        String generate(Random random) {
+            final StringBuilder source = header();
+            source.append("    /**\n");
+            for (int line = 0; line < 20; line++) {
+                source.append("     * {@link ");
+                for (int i = 0; i < 500; i++) {
+                    source.append("segment").append(random.nextInt(10)).append('.');
+                }
+                source.append("Name Text\n");
+            }
+            source.append("     */\n")
+                  .append("    void method() {}\n");
+            return footer(source);
+        }
+    };
+
+    private static final String PACKAGE = "package org.spine3.benchmark;\n\n";
+    private static final long SEED = 42L;
+
+    private final int fileCount;
+
+    SyntheticCorpus(int fileCount) {
+        this.fileCount = fileCount;
+    }
+
+    /**
+     * Generates the contents of a single file.
+     */
+    abstract String generate(Random random);
+
+    /**
+     * Generates the UTF-8 encoded contents of the corpus files.
+     */
+    List<byte[]> files() {
+        final Random random = new Random(SEED);
+        final ImmutableList.Builder<byte[]> result = ImmutableList.builder();
+        for (int i = 0; i < fileCount; i++) {
+            result.add(generate(random).getBytes(StandardCharsets.UTF_8));
+        }
+        return result.build();
+    }
+
+    private static StringBuilder header() {
+        return new StringBuilder(PACKAGE).append("public class Generated {\n\n");
+    }
+
+    private static String footer(StringBuilder source) {
+        return source.append("}\n")
+                     .toString();
+    }
+}
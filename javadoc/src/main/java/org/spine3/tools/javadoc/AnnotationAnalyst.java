@@ -21,13 +21,20 @@
 package org.spine3.tools.javadoc;
 
 import com.sun.javadoc.AnnotationDesc;
+import com.sun.javadoc.AnnotationTypeDoc;
 import com.sun.javadoc.ProgramElementDoc;
 
 import java.lang.annotation.Annotation;
+import java.util.IdentityHashMap;
+import java.util.Map;
 
 /**
  * {@code AnnotationAnalyst} provides methods to check accessory to the specified annotation.
  *
+ * <p>Javadoc represents each annotation type by a single {@link AnnotationTypeDoc}, so
+ * the name of each annotation type is compared only once. The further checks of the same
+ * annotation type are resolved by its identity.
+ *
  * @param <C> the type of an annotation to analyze
  *
  * @author Dmytro Grankin
@@ -36,6 +43,11 @@ public class AnnotationAnalyst<C extends Class<? extends Annotation>> {
 
     private final C annotationClass;
 
+    /**
+     * Whether the annotation type is the analyzed annotation, by the annotation type.
+     */
+    private final Map<AnnotationTypeDoc, Boolean> annotationTypes = new IdentityHashMap<>();
+
     AnnotationAnalyst(C annotationClass) {
         this.annotationClass = annotationClass;
     }
@@ -55,6 +67,14 @@ public class AnnotationAnalyst<C extends Class<? extends Annotation>> {
     }
 
     private boolean isQualifiedAnnotation(AnnotationDesc annotation) {
-        return annotation.annotationType().qualifiedTypeName().equals(annotationClass.getName());
+        final AnnotationTypeDoc annotationType = annotation.annotationType();
+        final Boolean known = annotationTypes.get(annotationType);
+        if (known != null) {
+            return known;
+        }
+        final boolean qualified = annotationType.qualifiedTypeName()
+                                                .equals(annotationClass.getName());
+        annotationTypes.put(annotationType, qualified);
+        return qualified;
     }
 }
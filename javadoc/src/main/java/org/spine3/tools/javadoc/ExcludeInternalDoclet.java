@@ -20,6 +20,9 @@
 
 package org.spine3.tools.javadoc;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.MapMaker;
+import com.sun.javadoc.Doc;
 import com.sun.javadoc.MethodDoc;
 import com.sun.javadoc.ProgramElementDoc;
 import com.sun.tools.javadoc.MethodDocImpl;
@@ -35,8 +38,17 @@ import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Extension of {@linkplain Standard} doclet, which excludes
@@ -62,16 +74,51 @@ import java.util.List;
  * <p>If everything done right, you will get the standard documentation generated by Javadoc tool,
  * except {@linkplain Internal}-annotated components.
  *
+ * <p>By default, the components are filtered each time the standard doclet obtains them.
+ * With the {@code -snapshot} option, the doclet walks the {@linkplain RootDoc} once before
+ * the documents are generated and stores the filtered components of each package and class.
+ * The standard doclet then obtains the components from this snapshot.
+ *
  * @author Dmytro Grankin
  */
 @SuppressWarnings("ExtendsUtilityClass")
 public class ExcludeInternalDoclet extends Standard {
 
+    /**
+     * The Javadoc option turning on the snapshot mode.
+     */
+    static final String SNAPSHOT_OPTION = "-snapshot";
+
     private final ExcludePrinciple excludePrinciple;
 
+    /**
+     * Whether the filtered components are stored in the snapshot.
+     */
+    private final boolean snapshot;
+
+    /**
+     * The proxies by the "com.sun..." objects they wrap.
+     *
+     * <p>Both keys and values are weak, since a proxy references its target.
+     * The keys are compared by identity.
+     */
+    private final ConcurrentMap<Object, Object> proxies = new MapMaker().weakKeys()
+                                                                        .weakValues()
+                                                                        .makeMap();
+
+    /**
+     * The number of the proxies created during the Javadoc run.
+     */
+    private int proxyCount;
+
     ExcludeInternalDoclet(ExcludePrinciple excludePrinciple) {
+        this(excludePrinciple, false);
+    }
+
+    ExcludeInternalDoclet(ExcludePrinciple excludePrinciple, boolean snapshot) {
         super();
         this.excludePrinciple = excludePrinciple;
+        this.snapshot = snapshot;
     }
 
     /**
@@ -94,8 +141,105 @@ public class ExcludeInternalDoclet extends Standard {
     @SuppressWarnings("unused") // called by com.sun.tools.javadoc.Main
     public static boolean start(RootDoc root) {
         final ExcludePrinciple excludePrinciple = new ExcludeInternalPrinciple(root);
-        final ExcludeInternalDoclet doclet = new ExcludeInternalDoclet(excludePrinciple);
-        return Standard.start((RootDoc) doclet.process(root, RootDoc.class));
+        final ExcludeInternalDoclet doclet = new ExcludeInternalDoclet(excludePrinciple,
+                                                                       isSnapshotEnabled(root));
+        return Standard.start(doclet.filter(root));
+    }
+
+    /**
+     * The "optionLength" method as required by Javadoc.
+     *
+     * <p>Supports the {@code -snapshot} option in addition to the options
+     * of the {@linkplain Standard} doclet.
+     *
+     * @param option the option name
+     * @return the number of the option parts including the name,
+     * or {@code 0} if the option is unknown
+     */
+    @SuppressWarnings("unused") // called by com.sun.tools.javadoc.Main
+    public static int optionLength(String option) {
+        if (SNAPSHOT_OPTION.equalsIgnoreCase(option)) {
+            return 1;
+        }
+        return Standard.optionLength(option);
+    }
+
+    /**
+     * Returns {@code true} if the {@code -snapshot} option is specified for the Javadoc run.
+     *
+     * @param root the root of the documentation tree
+     * @return {@code true} if the snapshot mode is on
+     */
+    static boolean isSnapshotEnabled(RootDoc root) {
+        for (String[] option : root.options()) {
+            if (SNAPSHOT_OPTION.equalsIgnoreCase(option[0])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Creates the {@linkplain RootDoc}, that does not contain excluded components.
+     *
+     * <p>In the snapshot mode, the components of all the included packages and classes
+     * are filtered before this method returns.
+     *
+     * @param root the root of the documentation tree
+     * @return the filtered root
+     */
+    RootDoc filter(RootDoc root) {
+        final RootDoc result = (RootDoc) process(root, RootDoc.class);
+        if (snapshot) {
+            takeSnapshot(result);
+        }
+        return result;
+    }
+
+    /**
+     * Walks the included documents starting from the root and obtains their components,
+     * so that the filtered components are stored in the snapshot.
+     */
+    private static void takeSnapshot(RootDoc root) {
+        final Set<Object> visited =
+                Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+        final Deque<Object> queue = new ArrayDeque<>();
+        visited.add(root);
+        queue.add(root);
+        while (!queue.isEmpty()) {
+            final Object doc = queue.poll();
+            for (Object component : getComponents(doc)) {
+                if (component instanceof Doc
+                        && ((Doc) component).isIncluded()
+                        && visited.add(component)) {
+                    queue.add(component);
+                }
+            }
+        }
+    }
+
+    private static List<Object> getComponents(Object doc) {
+        final List<Object> result = new ArrayList<>();
+        for (Class<?> docInterface : doc.getClass().getInterfaces()) {
+            for (Method method : docInterface.getMethods()) {
+                if (ContainerMethod.isContainer(method)) {
+                    for (Object[] args : ContainerMethod.argumentsOf(method)) {
+                        result.addAll(Arrays.asList(invoke(method, doc, args)));
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private static Object[] invoke(Method method, Object target, @Nullable Object[] args) {
+        try {
+            return (Object[]) method.invoke(target, args);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        } catch (InvocationTargetException e) {
+            throw Exceptions.wrappedCause(e);
+        }
     }
 
     /**
@@ -113,10 +257,7 @@ public class ExcludeInternalDoclet extends Standard {
         }
 
         if (returnValue.getClass().getName().startsWith("com.sun.")) {
-            final Class cls = returnValue.getClass();
-            return Proxy.newProxyInstance(cls.getClassLoader(),
-                                          cls.getInterfaces(),
-                                          new ExcludeHandler(returnValue));
+            return proxyFor(returnValue);
         } else if (returnValue instanceof Object[] && returnValueType.getComponentType() != null) {
             final Class componentType = returnValueType.getComponentType();
             final Object[] array = (Object[]) returnValue;
@@ -133,6 +274,42 @@ public class ExcludeInternalDoclet extends Standard {
         }
     }
 
+    /**
+     * Obtains the proxy of the "com.sun..." object.
+     *
+     * <p>Each object is wrapped only once, so the same object is always represented
+     * by the same proxy.
+     *
+     * @param target the object to wrap
+     * @return the proxy of the object
+     */
+    private Object proxyFor(Object target) {
+        final Object cached = proxies.get(target);
+        if (cached != null) {
+            return cached;
+        }
+        final Class cls = target.getClass();
+        final Object proxy = Proxy.newProxyInstance(cls.getClassLoader(),
+                                                    cls.getInterfaces(),
+                                                    new ExcludeHandler(target));
+        proxies.put(target, proxy);
+        proxyCount++;
+        return proxy;
+    }
+
+    /**
+     * Obtains the number of the proxies created by the doclet.
+     *
+     * <p>Since each object is wrapped only once, this is the number
+     * of the distinct "com.sun..." objects exposed to the standard doclet.
+     *
+     * @return the number of the created proxies
+     */
+    @VisibleForTesting
+    int getProxyCount() {
+        return proxyCount;
+    }
+
     /**
      * The {@linkplain InvocationHandler} for the "com.sun..." proxies.
      */
@@ -140,12 +317,45 @@ public class ExcludeInternalDoclet extends Standard {
 
         private final Object target;
 
+        /**
+         * The filtered components of the target by the {@linkplain ContainerMethod method}
+         * and its arguments.
+         *
+         * <p>Used only in the snapshot mode.
+         */
+        private final Map<List<Object>, Object[]> components = new HashMap<>();
+
         private ExcludeHandler(Object target) {
             this.target = target;
         }
 
         @Override
         public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (snapshot && ContainerMethod.isContainer(method)) {
+                return getComponents(method, args);
+            }
+            return invokeTarget(method, args);
+        }
+
+        /**
+         * Obtains the filtered components from the snapshot.
+         *
+         * <p>A copy of the stored array is returned, as the standard doclet sorts
+         * some of the arrays in place.
+         */
+        private Object[] getComponents(Method method, @Nullable Object[] args) throws Throwable {
+            final List<Object> key = args == null
+                                     ? Collections.<Object>singletonList(method)
+                                     : Arrays.<Object>asList(method, args[0]);
+            Object[] result = components.get(key);
+            if (result == null) {
+                result = (Object[]) invokeTarget(method, args);
+                components.put(key, result);
+            }
+            return result.clone();
+        }
+
+        private Object invokeTarget(Method method, @Nullable Object[] args) throws Throwable {
             if (args != null && IgnoredMethod.isIgnored(method.getName())) {
                 args[0] = unwrap(args[0]);
             }
@@ -164,6 +374,78 @@ public class ExcludeInternalDoclet extends Standard {
         }
     }
 
+    /**
+     * Enumeration of the methods returning the components of a package, a class
+     * or the whole {@linkplain RootDoc}.
+     *
+     * <p>The filtered results of these methods are stored in the snapshot.
+     * The methods either have no parameters or have a single {@code boolean} parameter,
+     * e.g. {@linkplain com.sun.javadoc.ClassDoc#methods(boolean)}.
+     */
+    @SuppressWarnings("unused") // Used in implicit form.
+    private enum ContainerMethod {
+        ALL_CLASSES("allClasses"),
+        ANNOTATION_TYPES("annotationTypes"),
+        CLASSES("classes"),
+        CONSTRUCTORS("constructors"),
+        ELEMENTS("elements"),
+        ENUM_CONSTANTS("enumConstants"),
+        ENUMS("enums"),
+        ERRORS("errors"),
+        EXCEPTIONS("exceptions"),
+        FIELDS("fields"),
+        INNER_CLASSES("innerClasses"),
+        INTERFACES("interfaces"),
+        METHODS("methods"),
+        ORDINARY_CLASSES("ordinaryClasses"),
+        SPECIFIED_CLASSES("specifiedClasses"),
+        SPECIFIED_PACKAGES("specifiedPackages");
+
+        private static final Object[][] NO_ARGUMENTS = {null};
+        private static final Object[][] BOOLEAN_ARGUMENTS = {{true}, {false}};
+
+        private final String methodName;
+
+        ContainerMethod(String methodName) {
+            this.methodName = methodName;
+        }
+
+        /**
+         * Returns {@code true} if the method returns the components of a document.
+         *
+         * @param method the method to test
+         * @return {@code true} if the method is one of {@linkplain ContainerMethod}s
+         */
+        private static boolean isContainer(Method method) {
+            final Class<?> returnType = method.getReturnType();
+            if (!returnType.isArray()
+                    || !Doc.class.isAssignableFrom(returnType.getComponentType())) {
+                return false;
+            }
+            final Class<?>[] parameterTypes = method.getParameterTypes();
+            final boolean supportedParameters = parameterTypes.length == 0
+                    || (parameterTypes.length == 1 && parameterTypes[0] == boolean.class);
+            if (!supportedParameters) {
+                return false;
+            }
+            for (ContainerMethod containerMethod : values()) {
+                if (method.getName().equals(containerMethod.methodName)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Obtains all the possible arguments of the container method.
+         */
+        private static Object[][] argumentsOf(Method method) {
+            return method.getParameterTypes().length == 0
+                   ? NO_ARGUMENTS
+                   : BOOLEAN_ARGUMENTS;
+        }
+    }
+
     /**
      * Enumeration of method names used in {@linkplain Standard} doclet implementation,
      * that cast parameter represented by interface to concrete implementation type.
@@ -25,7 +25,8 @@ import com.sun.javadoc.ProgramElementDoc;
 import com.sun.javadoc.RootDoc;
 import org.spine3.Internal;
 
-import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
 
 /**
  * Implementation of the {@linkplain ExcludePrinciple} interface for
@@ -34,11 +35,15 @@ import java.util.Collection;
  * <p>Excludes all {@linkplain Internal}-annotated program elements, packages,
  * and their subpackages.
  *
+ * <p>The decision for each program element is made once and is reused for the rest
+ * of the Javadoc run.
+ *
  * @author Dmytro Grankin
  */
 class ExcludeInternalPrinciple implements ExcludePrinciple {
 
-    private final Collection<PackageDoc> exclusions;
+    private final PackageTrie exclusions;
+    private final Map<ProgramElementDoc, Boolean> decisions = new IdentityHashMap<>();
     private final AnnotationAnalyst<Class<Internal>> internalAnalyst =
             new AnnotationAnalyst<>(Internal.class);
 
@@ -51,23 +56,26 @@ class ExcludeInternalPrinciple implements ExcludePrinciple {
      */
     @Override
     public boolean shouldExclude(ProgramElementDoc doc) {
-        return inExclusions(doc) || internalAnalyst.hasAnnotation(doc);
+        final Boolean decision = decisions.get(doc);
+        if (decision != null) {
+            return decision;
+        }
+        final boolean exclude = inExclusions(doc) || internalAnalyst.hasAnnotation(doc);
+        decisions.put(doc, exclude);
+        return exclude;
     }
 
     private boolean inExclusions(ProgramElementDoc doc) {
         final String docPackageName = doc.containingPackage().name();
-
-        for (PackageDoc exclusion : exclusions) {
-            if (docPackageName.startsWith(exclusion.name())) {
-                return true;
-            }
-        }
-
-        return false;
+        return exclusions.contains(docPackageName);
     }
 
-    private Collection<PackageDoc> getExclusions(RootDoc root) {
+    private PackageTrie getExclusions(RootDoc root) {
         final PackageCollector packageCollector = new PackageCollector(internalAnalyst);
-        return packageCollector.collect(root);
+        final PackageTrie exclusions = new PackageTrie();
+        for (PackageDoc packageDoc : packageCollector.collect(root)) {
+            exclusions.add(packageDoc.name());
+        }
+        return exclusions;
     }
 }
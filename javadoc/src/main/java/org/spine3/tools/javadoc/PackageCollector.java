@@ -60,7 +60,7 @@ class PackageCollector {
 
     private Collection<PackageDoc> collect(ClassDoc[] forClasses) {
         final Collection<PackageDoc> allPackages = getPackages(forClasses);
-        final Collection<PackageDoc> basePackages = getPackages(forClasses);
+        final PackageTrie basePackages = toTrie(allPackages);
 
         for (ClassDoc classDoc : forClasses) {
             if (isSubpackage(classDoc.containingPackage(), basePackages)) {
@@ -73,7 +73,7 @@ class PackageCollector {
 
     private Collection<PackageDoc> collect(PackageDoc[] forPackages) {
         final Collection<PackageDoc> allPackages = getBasePackages(forPackages);
-        final Collection<PackageDoc> basePackages = getBasePackages(forPackages);
+        final PackageTrie basePackages = toTrie(allPackages);
 
         for (PackageDoc packageDoc : forPackages) {
             if (isSubpackage(packageDoc, basePackages)) {
@@ -108,14 +108,16 @@ class PackageCollector {
         return packages;
     }
 
-    private static boolean isSubpackage(PackageDoc target, Iterable<PackageDoc> packages) {
+    private static boolean isSubpackage(PackageDoc target, PackageTrie packages) {
+        return packages.contains(target.name());
+    }
+
+    private static PackageTrie toTrie(Iterable<PackageDoc> packages) {
+        final PackageTrie trie = new PackageTrie();
         for (PackageDoc packageDoc : packages) {
-            if (target.name().startsWith(packageDoc.name())) {
-                return true;
-            }
+            trie.add(packageDoc.name());
         }
-
-        return false;
+        return trie;
     }
 
     private static class PackageDocComparator implements Comparator<PackageDoc>, Serializable {
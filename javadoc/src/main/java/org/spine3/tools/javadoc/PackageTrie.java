@@ -0,0 +1,105 @@
+/*
+ * Copyright 2017, TeamDev Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.spine3.tools.javadoc;
+
+import com.google.common.base.Splitter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A set of packages, which tells if a package is one of them or their subpackage.
+ *
+ * <p>The packages are stored as a trie of their name segments, so the check costs
+ * the number of segments in the checked package name regardless of the number of
+ * the stored packages.
+ *
+ * <p>Unlike the check of the name prefix, {@code foo.internalx} is not considered
+ * a subpackage of {@code foo.internal}.
+ */
+class PackageTrie {
+
+    private static final char SEPARATOR = '.';
+    private static final Splitter splitter = Splitter.on(SEPARATOR);
+
+    private final Node root = new Node();
+
+    /**
+     * Adds the package to the trie.
+     *
+     * @param packageName the name of the package to add
+     */
+    void add(String packageName) {
+        Node node = root;
+        if (!packageName.isEmpty()) {
+            for (String segment : splitter.split(packageName)) {
+                node = node.getOrCreateChild(segment);
+            }
+        }
+        node.added = true;
+    }
+
+    /**
+     * Returns {@code true} if the package is one of the added packages or their subpackage.
+     *
+     * @param packageName the name of the package to check
+     * @return {@code true} if the package is added or is a subpackage of the added package
+     */
+    boolean contains(String packageName) {
+        Node node = root;
+        final int length = packageName.length();
+        int segmentStart = 0;
+        while (!node.added && segmentStart < length) {
+            int segmentEnd = packageName.indexOf(SEPARATOR, segmentStart);
+            if (segmentEnd < 0) {
+                segmentEnd = length;
+            }
+            node = node.children.get(packageName.substring(segmentStart, segmentEnd));
+            if (node == null) {
+                return false;
+            }
+            segmentStart = segmentEnd + 1;
+        }
+        return node.added;
+    }
+
+    /**
+     * A package name segment in the trie.
+     */
+    private static class Node {
+
+        private final Map<String, Node> children = new HashMap<>();
+
+        /**
+         * Whether the package ending with this segment is added.
+         */
+        private boolean added;
+
+        private Node getOrCreateChild(String segment) {
+            Node child = children.get(segment);
+            if (child == null) {
+                child = new Node();
+                children.put(segment, child);
+            }
+            return child;
+        }
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2017, TeamDev Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.spine3.tools.javadoc;
+
+import jdk.javadoc.doclet.Doclet;
+import jdk.javadoc.doclet.DocletEnvironment;
+import jdk.javadoc.doclet.Reporter;
+import jdk.javadoc.doclet.StandardDoclet;
+import org.spine3.Internal;
+
+import javax.lang.model.SourceVersion;
+import javax.tools.Diagnostic;
+import javax.tools.DocumentationTool;
+import javax.tools.JavaFileManager;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * The doclet built on the {@code jdk.javadoc.doclet} API, which generates the documentation
+ * with the {@linkplain StandardDoclet standard doclet} excluding {@linkplain Internal}-annotated
+ * components.
+ *
+ * <p>This is the counterpart of {@link ExcludeInternalDoclet} for JDK 9 and higher.
+ * The components are excluded by the same rules.
+ *
+ * <p>The standard doclet accepts only the environment implementation of the Javadoc tool,
+ * so the {@linkplain FilteredDocEnvironment filtered environment} cannot be passed to it
+ * directly. Instead, the doclet {@linkplain StrippedSourceWriter writes the documented sources}
+ * without the excluded components and runs the standard doclet on them through
+ * the {@linkplain DocumentationTool public API} of the Javadoc tool. The options of
+ * the standard doclet, the {@linkplain ToolOptions options of the tool}, the class path and
+ * the source path are passed on.
+ *
+ * <p>Usage:
+ * <pre> {@code javadoc -doclet org.spine3.tools.javadoc.ExcludeInternalElementsDoclet
+ * -docletpath "classpathlist" ...}</pre>
+ */
+public class ExcludeInternalElementsDoclet implements Doclet {
+
+    private final StandardDoclet standardDoclet = new StandardDoclet();
+
+    /**
+     * The standard doclet options passed to this doclet along with their arguments.
+     */
+    private final List<String> standardOptions = new ArrayList<>();
+
+    private Reporter reporter;
+
+    @Override
+    public void init(Locale locale, Reporter reporter) {
+        standardDoclet.init(locale, reporter);
+        this.reporter = reporter;
+    }
+
+    @Override
+    public String getName() {
+        return ExcludeInternalElementsDoclet.class.getSimpleName();
+    }
+
+    @Override
+    public Set<? extends Option> getSupportedOptions() {
+        final Set<Option> result = new LinkedHashSet<>();
+        for (Option option : standardDoclet.getSupportedOptions()) {
+            result.add(new RecordedOption(option));
+        }
+        return result;
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return standardDoclet.getSupportedSourceVersion();
+    }
+
+    @Override
+    public boolean run(DocletEnvironment environment) {
+        final InternalElementFilter filter = new InternalElementFilter(environment);
+        final FilteredDocEnvironment filteredEnvironment =
+                new FilteredDocEnvironment(environment, filter);
+        Path sourcesDir = null;
+        try {
+            sourcesDir = Files.createTempDirectory("javadoc-sources");
+            final List<File> sources = new StrippedSourceWriter(environment, filteredEnvironment)
+                    .writeTo(sourcesDir);
+            return runStandardDoclet(environment, sources);
+        } catch (IOException e) {
+            reporter.print(Diagnostic.Kind.ERROR, "Cannot copy the documented sources: " + e);
+            return false;
+        } finally {
+            if (sourcesDir != null) {
+                deleteRecursively(sourcesDir);
+            }
+        }
+    }
+
+    private boolean runStandardDoclet(DocletEnvironment environment, List<File> sources)
+            throws IOException {
+        if (sources.isEmpty()) {
+            reporter.print(Diagnostic.Kind.WARNING, "All the documented sources are excluded.");
+            return true;
+        }
+        final DocumentationTool tool = ToolProvider.getSystemDocumentationTool();
+        try (StandardJavaFileManager fileManager =
+                     tool.getStandardFileManager(null, null, StandardCharsets.UTF_8)) {
+            final JavaFileManager toolFileManager = environment.getJavaFileManager();
+            copyLocation(toolFileManager, fileManager, StandardLocation.CLASS_PATH);
+            copyLocation(toolFileManager, fileManager, StandardLocation.SOURCE_PATH);
+            final List<String> toolOptions =
+                    ToolOptions.of(environment, standardDoclet.getSupportedOptions());
+            final List<String> options = new ArrayList<>(toolOptions);
+            if (!ToolOptions.specifiesSourceVersion(toolOptions)) {
+                options.add("-source");
+                options.add(releaseOf(environment.getSourceVersion()));
+            }
+            options.addAll(standardOptions);
+            options.add("-quiet");
+            return tool.getTask(null, fileManager, null, StandardDoclet.class, options,
+                                fileManager.getJavaFileObjectsFromFiles(sources))
+                       .call();
+        }
+    }
+
+    private static void copyLocation(JavaFileManager source,
+                                     StandardJavaFileManager target,
+                                     StandardLocation location) throws IOException {
+        if (source instanceof StandardJavaFileManager) {
+            final Iterable<? extends File> files =
+                    ((StandardJavaFileManager) source).getLocation(location);
+            if (files != null) {
+                target.setLocation(location, files);
+            }
+        }
+    }
+
+    /**
+     * Obtains the release number of the source version, e.g. {@code 9} for
+     * {@code RELEASE_9}.
+     */
+    private static String releaseOf(SourceVersion version) {
+        final String name = version.name();
+        return name.substring(name.lastIndexOf('_') + 1);
+    }
+
+    private void deleteRecursively(Path dir) {
+        try {
+            Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
+                        throws IOException {
+                    Files.delete(file);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir, IOException exc)
+                        throws IOException {
+                    Files.delete(dir);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            reporter.print(Diagnostic.Kind.WARNING, "Cannot delete " + dir + ": " + e);
+        }
+    }
+
+    /**
+     * The option of the standard doclet, which records the passed values,
+     * so that they are passed on to the standard doclet.
+     */
+    private class RecordedOption implements Option {
+
+        private final Option delegate;
+
+        private RecordedOption(Option delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int getArgumentCount() {
+            return delegate.getArgumentCount();
+        }
+
+        @Override
+        public String getDescription() {
+            return delegate.getDescription();
+        }
+
+        @Override
+        public Kind getKind() {
+            return delegate.getKind();
+        }
+
+        @Override
+        public List<String> getNames() {
+            return delegate.getNames();
+        }
+
+        @Override
+        public String getParameters() {
+            return delegate.getParameters();
+        }
+
+        @Override
+        public boolean process(String option, List<String> arguments) {
+            final boolean processed = delegate.process(option, arguments);
+            if (processed) {
+                standardOptions.add(option);
+                // The tool may pass the rest of the command line as the arguments.
+                final int count = Math.min(getArgumentCount(), arguments.size());
+                standardOptions.addAll(arguments.subList(0, count));
+            }
+            return processed;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2017, TeamDev Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.spine3.tools.javadoc;
+
+import com.sun.source.util.DocTrees;
+import jdk.javadoc.doclet.DocletEnvironment;
+
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * The {@linkplain DocletEnvironment doclet environment}, which does not include
+ * the elements excluded by the {@link InternalElementFilter}.
+ *
+ * <p>Delegates to the environment created by the Javadoc tool, filtering the included,
+ * the specified, and the selected elements.
+ */
+class FilteredDocEnvironment implements DocletEnvironment {
+
+    private final DocletEnvironment delegate;
+    private final InternalElementFilter filter;
+
+    private Set<Element> includedElements;
+    private Set<Element> specifiedElements;
+
+    FilteredDocEnvironment(DocletEnvironment delegate, InternalElementFilter filter) {
+        this.delegate = delegate;
+        this.filter = filter;
+    }
+
+    @Override
+    public Set<? extends Element> getIncludedElements() {
+        if (includedElements == null) {
+            includedElements = filter(delegate.getIncludedElements());
+        }
+        return includedElements;
+    }
+
+    @Override
+    public Set<? extends Element> getSpecifiedElements() {
+        if (specifiedElements == null) {
+            specifiedElements = filter(delegate.getSpecifiedElements());
+        }
+        return specifiedElements;
+    }
+
+    @Override
+    public boolean isIncluded(Element element) {
+        return delegate.isIncluded(element) && !filter.shouldExclude(element);
+    }
+
+    @Override
+    public boolean isSelected(Element element) {
+        return delegate.isSelected(element) && !filter.shouldExclude(element);
+    }
+
+    @Override
+    public DocTrees getDocTrees() {
+        return delegate.getDocTrees();
+    }
+
+    @Override
+    public Elements getElementUtils() {
+        return delegate.getElementUtils();
+    }
+
+    @Override
+    public Types getTypeUtils() {
+        return delegate.getTypeUtils();
+    }
+
+    @Override
+    public JavaFileManager getJavaFileManager() {
+        return delegate.getJavaFileManager();
+    }
+
+    @Override
+    public SourceVersion getSourceVersion() {
+        return delegate.getSourceVersion();
+    }
+
+    @Override
+    public ModuleMode getModuleMode() {
+        return delegate.getModuleMode();
+    }
+
+    @Override
+    public JavaFileObject.Kind getFileKind(TypeElement type) {
+        return delegate.getFileKind(type);
+    }
+
+    private Set<Element> filter(Set<? extends Element> elements) {
+        final Set<Element> result = new LinkedHashSet<>();
+        for (Element element : elements) {
+            if (!filter.shouldExclude(element)) {
+                result.add(element);
+            }
+        }
+        return Collections.unmodifiableSet(result);
+    }
+}
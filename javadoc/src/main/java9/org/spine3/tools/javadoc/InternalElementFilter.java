@@ -0,0 +1,122 @@
+/*
+ * Copyright 2017, TeamDev Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.spine3.tools.javadoc;
+
+import jdk.javadoc.doclet.DocletEnvironment;
+import org.spine3.Internal;
+
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Decides whether to exclude an {@linkplain Element element} from the generated Javadoc.
+ *
+ * <p>Follows the rules of the {@link ExcludeInternalPrinciple}: excludes all
+ * {@linkplain Internal}-annotated elements, and the elements of the
+ * {@linkplain Internal}-annotated packages and their subpackages.
+ *
+ * <p>The annotated packages are collected from the specified packages and the packages
+ * of the specified classes. The decision for each element is made once.
+ */
+class InternalElementFilter {
+
+    private final Elements elements;
+    private final PackageTrie exclusions = new PackageTrie();
+    private final Map<Element, Boolean> decisions = new IdentityHashMap<>();
+
+    /**
+     * Whether the annotation type is {@linkplain Internal}, by the annotation type.
+     */
+    private final Map<Element, Boolean> annotationTypes = new IdentityHashMap<>();
+
+    InternalElementFilter(DocletEnvironment environment) {
+        this.elements = environment.getElementUtils();
+        final Set<? extends Element> specified = environment.getSpecifiedElements();
+        for (PackageElement packageElement : ElementFilter.packagesIn(specified)) {
+            addIfInternal(packageElement);
+        }
+        for (TypeElement type : ElementFilter.typesIn(specified)) {
+            addIfInternal(elements.getPackageOf(type));
+        }
+    }
+
+    /**
+     * Returns {@code true} if the element should be excluded.
+     *
+     * @param element the element to analyze
+     * @return {@code true} if the element should be excluded, {@code false} otherwise
+     */
+    boolean shouldExclude(Element element) {
+        final Boolean decision = decisions.get(element);
+        if (decision != null) {
+            return decision;
+        }
+        final boolean exclude = inExclusions(element) || isInternal(element);
+        decisions.put(element, exclude);
+        return exclude;
+    }
+
+    private boolean inExclusions(Element element) {
+        if (element.getKind() == ElementKind.MODULE) {
+            return false;
+        }
+        final PackageElement packageElement = elements.getPackageOf(element);
+        return exclusions.contains(packageElement.getQualifiedName()
+                                                 .toString());
+    }
+
+    private void addIfInternal(PackageElement packageElement) {
+        if (isInternal(packageElement)) {
+            exclusions.add(packageElement.getQualifiedName()
+                                         .toString());
+        }
+    }
+
+    private boolean isInternal(Element element) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            if (isInternalAnnotation(annotation)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isInternalAnnotation(AnnotationMirror annotation) {
+        final TypeElement annotationType = (TypeElement) annotation.getAnnotationType()
+                                                                   .asElement();
+        final Boolean known = annotationTypes.get(annotationType);
+        if (known != null) {
+            return known;
+        }
+        final boolean internal = annotationType.getQualifiedName()
+                                               .contentEquals(Internal.class.getName());
+        annotationTypes.put(annotationType, internal);
+        return internal;
+    }
+}
@@ -0,0 +1,306 @@
+/*
+ * Copyright 2017, TeamDev Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.spine3.tools.javadoc;
+
+import com.sun.source.tree.BlockTree;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.VariableTree;
+import com.sun.source.util.DocTrees;
+import com.sun.source.util.SourcePositions;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.TreePathScanner;
+import jdk.javadoc.doclet.DocletEnvironment;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Writes the copies of the documented sources without the excluded elements.
+ *
+ * <p>The elements included by the Javadoc tool, but not by
+ * the {@linkplain FilteredDocEnvironment filtered environment}, are blanked out together
+ * with their doc comments. The line breaks are kept, so the elements left in the copies
+ * keep their line numbers. The sources, all the top-level types of which are excluded,
+ * are not copied.
+ */
+class StrippedSourceWriter {
+
+    private final DocletEnvironment environment;
+    private final DocletEnvironment filteredEnvironment;
+    private final DocTrees docTrees;
+
+    StrippedSourceWriter(DocletEnvironment environment, DocletEnvironment filteredEnvironment) {
+        this.environment = environment;
+        this.filteredEnvironment = filteredEnvironment;
+        this.docTrees = environment.getDocTrees();
+    }
+
+    /**
+     * Writes the stripped sources into the directory.
+     *
+     * @param dir the directory to write the sources to
+     * @return the written source files
+     * @throws IOException if the sources cannot be read or written
+     */
+    List<File> writeTo(Path dir) throws IOException {
+        final List<File> result = new ArrayList<>();
+        for (CompilationUnitTree unit : getIncludedUnits()) {
+            final Path packageDir = packageDir(dir, unit.getPackageName());
+            Files.createDirectories(packageDir);
+            final String fileName = new File(unit.getSourceFile()
+                                                 .getName()).getName();
+            final Path file = packageDir.resolve(fileName);
+            Files.write(file, strip(unit).getBytes(StandardCharsets.UTF_8));
+            result.add(file.toFile());
+        }
+        return result;
+    }
+
+    /**
+     * Obtains the compilation units of the included packages and top-level types.
+     */
+    private Set<CompilationUnitTree> getIncludedUnits() {
+        final Set<CompilationUnitTree> result = new LinkedHashSet<>();
+        for (Element element : filteredEnvironment.getIncludedElements()) {
+            final boolean topLevel = element.getKind() == ElementKind.PACKAGE
+                    || element instanceof TypeElement
+                    && element.getEnclosingElement() instanceof PackageElement;
+            if (topLevel) {
+                final TreePath path = docTrees.getPath(element);
+                if (path != null) {
+                    result.add(path.getCompilationUnit());
+                }
+            }
+        }
+        return result;
+    }
+
+    private static Path packageDir(Path dir, ExpressionTree packageName) {
+        if (packageName == null) {
+            return dir;
+        }
+        return dir.resolve(packageName.toString()
+                                      .replace('.', File.separatorChar));
+    }
+
+    private String strip(CompilationUnitTree unit) throws IOException {
+        final String source = unit.getSourceFile()
+                                  .getCharContent(true)
+                                  .toString();
+        final StringBuilder result = new StringBuilder(source);
+        new ExcludedElementScanner(unit, source, result).scan(unit, null);
+        return result.toString();
+    }
+
+    /**
+     * Blanks out the excluded classes and members.
+     *
+     * <p>Does not look into the method bodies and the initializers, as they are
+     * not documented.
+     */
+    private class ExcludedElementScanner extends TreePathScanner<Void, Void> {
+
+        private final CompilationUnitTree unit;
+        private final String source;
+        private final StringBuilder result;
+        private final SourcePositions positions;
+
+        private ExcludedElementScanner(CompilationUnitTree unit,
+                                       String source,
+                                       StringBuilder result) {
+            this.unit = unit;
+            this.source = source;
+            this.result = result;
+            this.positions = docTrees.getSourcePositions();
+        }
+
+        @Override
+        public Void visitClass(ClassTree tree, Void unused) {
+            if (stripIfExcluded(tree)) {
+                return null;
+            }
+            return super.visitClass(tree, unused);
+        }
+
+        @Override
+        public Void visitMethod(MethodTree tree, Void unused) {
+            stripIfExcluded(tree);
+            return null;
+        }
+
+        @Override
+        public Void visitVariable(VariableTree tree, Void unused) {
+            stripIfExcluded(tree);
+            return null;
+        }
+
+        @Override
+        public Void visitBlock(BlockTree tree, Void unused) {
+            return null;
+        }
+
+        private boolean stripIfExcluded(Tree tree) {
+            final Element element = docTrees.getElement(getCurrentPath());
+            if (element == null
+                    || !environment.isIncluded(element)
+                    || filteredEnvironment.isIncluded(element)) {
+                return false;
+            }
+            final int declarationStart = (int) positions.getStartPosition(unit, tree);
+            final int start = includeDocComment(declarationStart);
+            final int declarationEnd = findEnd(declarationStart, element.getKind());
+            final int end = element.getKind() == ElementKind.ENUM_CONSTANT
+                            ? includeComma(declarationEnd)
+                            : declarationEnd;
+            for (int i = start; i < end; i++) {
+                final char c = result.charAt(i);
+                if (c != '\n' && c != '\r') {
+                    result.setCharAt(i, ' ');
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Finds the end of the declaration.
+         *
+         * <p>The Javadoc tool does not keep the end positions of the trees, so the declaration
+         * is scanned from its start, skipping the comments and the literals. A class or
+         * a method ends with its body, a field ends with a semicolon, and an enum constant
+         * ends before the comma or the semicolon following it.
+         *
+         * @param start the start of the declaration
+         * @param kind  the kind of the declared element
+         * @return the position after the declaration
+         */
+        private int findEnd(int start, ElementKind kind) {
+            final boolean field = kind == ElementKind.FIELD;
+            final boolean enumConstant = kind == ElementKind.ENUM_CONSTANT;
+            int depth = 0;
+            int position = start;
+            while (position < source.length()) {
+                final char c = source.charAt(position);
+                if (c == '"' || c == '\'') {
+                    position = skipLiteral(position);
+                    continue;
+                }
+                if (c == '/' && position + 1 < source.length()) {
+                    final char next = source.charAt(position + 1);
+                    if (next == '/') {
+                        position = skipTo("\n", position);
+                        continue;
+                    }
+                    if (next == '*') {
+                        position = skipTo("*/", position + 2);
+                        continue;
+                    }
+                }
+                if (c == '(' || c == '[' || c == '{') {
+                    depth++;
+                } else if (c == ')' || c == ']' || c == '}') {
+                    depth--;
+                    if (depth < 0) {
+                        // The end of the enclosing body, e.g. after the last enum constant.
+                        return position;
+                    }
+                    if (depth == 0 && c == '}' && !field && !enumConstant) {
+                        return position + 1;
+                    }
+                } else if (depth == 0 && c == ';') {
+                    return enumConstant ? position : position + 1;
+                } else if (depth == 0 && c == ',' && enumConstant) {
+                    return position;
+                }
+                position++;
+            }
+            return position;
+        }
+
+        private int skipLiteral(int start) {
+            final char quote = source.charAt(start);
+            int position = start + 1;
+            while (position < source.length()) {
+                final char c = source.charAt(position);
+                if (c == '\\') {
+                    position += 2;
+                    continue;
+                }
+                if (c == quote) {
+                    return position + 1;
+                }
+                position++;
+            }
+            return position;
+        }
+
+        private int skipTo(String terminator, int from) {
+            final int index = source.indexOf(terminator, from);
+            return index < 0
+                   ? source.length()
+                   : index + terminator.length();
+        }
+
+        /**
+         * Obtains the start of the doc comment right before the position, if there is one.
+         */
+        private int includeDocComment(int start) {
+            int end = start;
+            while (end > 0 && Character.isWhitespace(source.charAt(end - 1))) {
+                end--;
+            }
+            if (end < 2 || source.charAt(end - 1) != '/' || source.charAt(end - 2) != '*') {
+                return start;
+            }
+            final int commentStart = source.lastIndexOf("/**", end - 3);
+            final boolean sameComment = commentStart >= 0
+                    && source.indexOf("*/", commentStart + 2) == end - 2;
+            return sameComment ? commentStart : start;
+        }
+
+        /**
+         * Obtains the position after the comma following the enum constant, if there is one.
+         */
+        private int includeComma(int end) {
+            int position = end;
+            while (position < source.length() && Character.isWhitespace(source.charAt(position))) {
+                position++;
+            }
+            return position < source.length() && source.charAt(position) == ','
+                   ? position + 1
+                   : end;
+        }
+    }
+}
@@ -0,0 +1,328 @@
+/*
+ * Copyright 2017, TeamDev Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.spine3.tools.javadoc;
+
+import jdk.javadoc.doclet.Doclet.Option;
+import jdk.javadoc.doclet.DocletEnvironment;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.tools.DocumentationTool;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The options of the Javadoc tool, which are passed on to the standard doclet.
+ *
+ * <p>The doclet API provides the doclet options only. So when the doclet is run by
+ * the {@code javadoc} launcher, the tool options are taken from the command line of
+ * the process. Otherwise, e.g. when the tool is run through
+ * the {@linkplain DocumentationTool API}, the options controlling the documented access levels
+ * are derived from the environment.
+ *
+ * <p>The options selecting the documented elements and the doclet are not passed on, as well
+ * as the source encoding, because the standard doclet is run on
+ * the {@linkplain StrippedSourceWriter stripped copies} of the sources written in UTF-8.
+ */
+final class ToolOptions {
+
+    private static final String DOCLET_OPTION = "-doclet";
+
+    /**
+     * The environment variable, which holds the options prepended to the command line.
+     */
+    private static final String OPTIONS_VARIABLE = "JDK_JAVADOC_OPTIONS";
+
+    private static final Set<String> SKIPPED_OPTIONS = Collections.unmodifiableSet(
+            new HashSet<>(Arrays.asList(DOCLET_OPTION, "-docletpath", "--doclet-path",
+                                                  "-subpackages", "-exclude", "--module",
+                                                  "--expand-requires", "-encoding")));
+
+    private static final Set<String> RELEASE_OPTIONS = Collections.unmodifiableSet(
+            new HashSet<>(Arrays.asList("-source", "--source", "--release")));
+
+    /**
+     * The access levels in the order of the growing number of the documented elements.
+     */
+    private static final List<String> ACCESS_LEVELS =
+            Arrays.asList("public", "protected", "package", "private");
+
+    private ToolOptions() {
+        // Prevent instantiation of this utility class.
+    }
+
+    /**
+     * Obtains the tool options to pass on to the standard doclet.
+     *
+     * @param environment   the environment the doclet is run in
+     * @param docletOptions the options of the standard doclet
+     * @return the tool options along with their arguments
+     */
+    static List<String> of(DocletEnvironment environment, Set<? extends Option> docletOptions) {
+        final List<String> commandLine = launcherArguments();
+        if (commandLine.isEmpty()) {
+            return deriveFrom(environment);
+        }
+        return fromCommandLine(commandLine, docletOptions);
+    }
+
+    /**
+     * Checks if the options specify the source version of the documented sources.
+     */
+    static boolean specifiesSourceVersion(List<String> options) {
+        for (String option : options) {
+            if (RELEASE_OPTIONS.contains(optionName(option))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Obtains the arguments of the {@code javadoc} launcher, which runs this doclet.
+     *
+     * @return the arguments with the argument files expanded or an empty list if the process
+     *         is not the {@code javadoc} launcher running this doclet
+     */
+    private static List<String> launcherArguments() {
+        final String[] arguments = ProcessHandle.current()
+                                                .info()
+                                                .arguments()
+                                                .orElse(new String[0]);
+        final List<String> result = new ArrayList<>();
+        final String prepended = System.getenv(OPTIONS_VARIABLE);
+        if (prepended != null) {
+            result.addAll(tokenize(prepended));
+        }
+        result.addAll(expandArgumentFiles(Arrays.asList(arguments)));
+        final int docletIndex = result.indexOf(DOCLET_OPTION);
+        final boolean runsThisDoclet =
+                docletIndex >= 0
+                && docletIndex + 1 < result.size()
+                && result.get(docletIndex + 1)
+                         .equals(ExcludeInternalElementsDoclet.class.getName());
+        return runsThisDoclet
+               ? result
+               : Collections.<String>emptyList();
+    }
+
+    /**
+     * Selects the tool options from the command line arguments.
+     *
+     * <p>The doclet options, the {@code -J} options and the operands are skipped.
+     *
+     * @param arguments     the arguments with the argument files expanded
+     * @param docletOptions the options of the standard doclet
+     * @return the tool options along with their arguments
+     */
+    static List<String> fromCommandLine(List<String> arguments,
+                                        Set<? extends Option> docletOptions) {
+        final DocumentationTool tool = ToolProvider.getSystemDocumentationTool();
+        final List<String> result = new ArrayList<>();
+        int index = 0;
+        while (index < arguments.size()) {
+            final String argument = arguments.get(index);
+            final String name = optionName(argument);
+            final boolean inlineValue = !name.equals(argument);
+            final int toolArgumentCount = tool.isSupportedOption(name);
+            if (toolArgumentCount >= 0) {
+                final int count = inlineValue ? 0 : toolArgumentCount;
+                final int end = Math.min(index + 1 + count, arguments.size());
+                if (!SKIPPED_OPTIONS.contains(name)) {
+                    result.addAll(arguments.subList(index, end));
+                }
+                index = end;
+            } else {
+                final int count = inlineValue ? 0 : docletArgumentCount(argument, docletOptions);
+                index += 1 + count;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Obtains the name of the option, which may be followed by its value
+     * as in {@code --name=value}.
+     */
+    private static String optionName(String argument) {
+        final int separator = argument.indexOf('=');
+        return argument.startsWith("--") && separator > 0
+               ? argument.substring(0, separator)
+               : argument;
+    }
+
+    private static int docletArgumentCount(String argument, Set<? extends Option> options) {
+        for (Option option : options) {
+            for (String name : option.getNames()) {
+                final boolean matches = argument.equals(name)
+                        || name.endsWith(":") && argument.startsWith(name);
+                if (matches) {
+                    return option.getArgumentCount();
+                }
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Derives the options controlling the documented access levels from the elements
+     * included by the environment.
+     */
+    private static List<String> deriveFrom(DocletEnvironment environment) {
+        int typeLevel = 0;
+        int memberLevel = 0;
+        for (Element element : environment.getIncludedElements()) {
+            if (element instanceof TypeElement) {
+                typeLevel = Math.max(typeLevel, accessLevel(element));
+                for (Element member : element.getEnclosedElements()) {
+                    if (!(member instanceof TypeElement) && environment.isIncluded(member)) {
+                        memberLevel = Math.max(memberLevel, accessLevel(member));
+                    }
+                }
+            }
+        }
+        return Arrays.asList("--show-types", ACCESS_LEVELS.get(typeLevel),
+                             "--show-members", ACCESS_LEVELS.get(memberLevel));
+    }
+
+    private static int accessLevel(Element element) {
+        final Set<Modifier> modifiers = element.getModifiers();
+        if (modifiers.contains(Modifier.PUBLIC)) {
+            return ACCESS_LEVELS.indexOf("public");
+        }
+        if (modifiers.contains(Modifier.PROTECTED)) {
+            return ACCESS_LEVELS.indexOf("protected");
+        }
+        if (modifiers.contains(Modifier.PRIVATE)) {
+            return ACCESS_LEVELS.indexOf("private");
+        }
+        return ACCESS_LEVELS.indexOf("package");
+    }
+
+    /**
+     * Replaces the {@code @file} arguments with the contents of the files.
+     */
+    static List<String> expandArgumentFiles(List<String> arguments) {
+        final List<String> result = new ArrayList<>();
+        for (String argument : arguments) {
+            if (argument.startsWith("@") && argument.length() > 1) {
+                result.addAll(tokenize(readArgumentFile(argument.substring(1))));
+            } else {
+                result.add(argument);
+            }
+        }
+        return result;
+    }
+
+    private static String readArgumentFile(String path) {
+        try {
+            final byte[] content = Files.readAllBytes(Paths.get(path));
+            return new String(content, Charset.defaultCharset());
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read the argument file " + path, e);
+        }
+    }
+
+    /**
+     * Splits the contents of an argument file into the arguments.
+     *
+     * <p>The arguments are separated by white space and may be quoted. A backslash escapes
+     * the next character within quotes. A {@code #} starts a comment, which lasts to the end
+     * of the line.
+     */
+    static List<String> tokenize(String text) {
+        final List<String> result = new ArrayList<>();
+        int position = 0;
+        while (position < text.length()) {
+            final char c = text.charAt(position);
+            if (Character.isWhitespace(c)) {
+                position++;
+                continue;
+            }
+            if (c == '#') {
+                final int lineEnd = text.indexOf('\n', position);
+                position = lineEnd < 0 ? text.length() : lineEnd;
+                continue;
+            }
+            final StringBuilder token = new StringBuilder();
+            while (position < text.length() && !Character.isWhitespace(text.charAt(position))) {
+                final char current = text.charAt(position);
+                if (current == '\'' || current == '"') {
+                    position = readQuoted(text, position, token);
+                } else {
+                    token.append(current);
+                    position++;
+                }
+            }
+            result.add(token.toString());
+        }
+        return result;
+    }
+
+    /**
+     * Reads the quoted part of an argument.
+     *
+     * @param text  the text to read
+     * @param start the position of the opening quote
+     * @param token the argument to append the unquoted part to
+     * @return the position after the closing quote
+     */
+    private static int readQuoted(String text, int start, StringBuilder token) {
+        final char quote = text.charAt(start);
+        int position = start + 1;
+        while (position < text.length() && text.charAt(position) != quote) {
+            final char c = text.charAt(position);
+            if (c == '\\' && position + 1 < text.length()) {
+                position++;
+                token.append(unescape(text.charAt(position)));
+            } else {
+                token.append(c);
+            }
+            position++;
+        }
+        return position + 1;
+    }
+
+    private static char unescape(char c) {
+        switch (c) {
+            case 'n':
+                return '\n';
+            case 't':
+                return '\t';
+            case 'r':
+                return '\r';
+            case 'f':
+                return '\f';
+            default:
+                return c;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package org.spine3.tools.javadoc;
+
+import com.sun.javadoc.ClassDoc;
+import com.sun.javadoc.PackageDoc;
+import com.sun.javadoc.RootDoc;
+import com.sun.tools.doclets.standard.Standard;
+import com.sun.tools.javadoc.Main;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.String.format;
+
+/**
+ * Measures {@linkplain ExcludeInternalDoclet} on a {@linkplain SyntheticSourceTree
+ * synthetic source tree}.
+ *
+ * <p>Each run parses the tree with the Javadoc tool, filters the {@linkplain RootDoc}
+ * and walks the filtered documents several times, like the standard doclet does
+ * when generating the documents. For each {@linkplain Mode mode}, the benchmark reports
+ * the time and the number of bytes allocated per run, as well as the number of proxies
+ * created by the doclet. The {@linkplain Mode#RAW raw} mode walks the original
+ * {@linkplain RootDoc}, so it shows the cost of parsing and walking without the doclet.
+ *
+ * <p>The allocation is measured with the HotSpot-specific thread allocation counter
+ * and is not reported on other JVMs.
+ *
+ * <p>Run with {@code ./gradlew :javadoc:benchmarkExcludeInternalDoclet}. The optional
+ * arguments are the number of classes and the shares of the {@code @Internal} packages,
+ * classes, and members, e.g. {@code --args='5000 0.1 0.2 0.1'}.
+ */
+public class DocletBenchmark {
+
+    private static final int DEFAULT_CLASS_COUNT = 3_000;
+    private static final double DEFAULT_INTERNAL_PACKAGE_SHARE = 0.05;
+    private static final double DEFAULT_INTERNAL_CLASS_SHARE = 0.1;
+    private static final double DEFAULT_INTERNAL_MEMBER_SHARE = 0.1;
+
+    private static final int WARMUP_ITERATIONS = 2;
+    private static final int MEASUREMENT_ITERATIONS = 5;
+
+    /**
+     * The number of times the filtered documents are walked in each run.
+     */
+    private static final int WALKS_PER_RUN = 3;
+
+    private DocletBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        final SyntheticSourceTree tree = new SyntheticSourceTree(
+                args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_CLASS_COUNT,
+                args.length > 1 ? Double.parseDouble(args[1]) : DEFAULT_INTERNAL_PACKAGE_SHARE,
+                args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_INTERNAL_CLASS_SHARE,
+                args.length > 3 ? Double.parseDouble(args[3]) : DEFAULT_INTERNAL_MEMBER_SHARE);
+        final Path sourceRoot = Files.createTempDirectory("doclet-benchmark");
+        try {
+            tree.writeTo(sourceRoot);
+            System.out.println(format("Classes: %d, internal packages: %d, "
+                                              + "internal classes: %d, internal members: %d",
+                                      tree.getClassCount(), tree.getInternalPackages(),
+                                      tree.getInternalClasses(), tree.getInternalMembers()));
+            System.out.println(format("%-10s %12s %16s %12s %12s",
+                                      "Mode", "ms/run", "Bytes/run", "Proxies", "Documents"));
+            for (Mode mode : Mode.values()) {
+                run(mode, sourceRoot);
+            }
+        } finally {
+            deleteRecursively(sourceRoot);
+        }
+    }
+
+    private static void run(Mode mode, Path sourceRoot) {
+        final String[] args = mode.args(sourceRoot);
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            runOnce(mode, args);
+        }
+        final long allocatedBefore = allocatedBytes();
+        final long start = System.nanoTime();
+        int documents = 0;
+        for (int i = 0; i < MEASUREMENT_ITERATIONS; i++) {
+            documents = runOnce(mode, args);
+        }
+        final long elapsed = System.nanoTime() - start;
+        final long allocated = allocatedBytes() - allocatedBefore;
+
+        final double millisPerRun = (double) elapsed / TimeUnit.MILLISECONDS.toNanos(1)
+                / MEASUREMENT_ITERATIONS;
+        final String bytesPerRun = allocatedBefore < 0
+                                   ? "n/a"
+                                   : String.valueOf(allocated / MEASUREMENT_ITERATIONS);
+        System.out.println(format("%-10s %12.1f %16s %12d %12d",
+                                  mode, millisPerRun, bytesPerRun, mode.proxyCount(), documents));
+    }
+
+    /**
+     * Runs the Javadoc tool and walks the obtained root.
+     *
+     * @return the number of the walked documents
+     */
+    private static int runOnce(Mode mode, String[] args) {
+        final RootDoc root = mode.rootDocFor(args);
+        int result = 0;
+        for (int i = 0; i < WALKS_PER_RUN; i++) {
+            result = walk(root);
+        }
+        return result;
+    }
+
+    /**
+     * Obtains the packages, the classes and the members of the classes,
+     * which are the documents the standard doclet generates the pages for.
+     *
+     * @return the number of the obtained documents
+     */
+    private static int walk(RootDoc root) {
+        int result = 0;
+        for (PackageDoc packageDoc : root.specifiedPackages()) {
+            result += 1 + packageDoc.allClasses().length;
+        }
+        for (ClassDoc classDoc : root.classes()) {
+            result += 1
+                    + classDoc.fields().length
+                    + classDoc.constructors().length
+                    + classDoc.methods().length
+                    + classDoc.innerClasses().length;
+            final ClassDoc superclass = classDoc.superclass();
+            if (superclass != null) {
+                result += superclass.methods().length;
+            }
+        }
+        return result;
+    }
+
+    private static long allocatedBytes() {
+        final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(
+                Thread.currentThread()
+                      .getId());
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
+                    throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc)
+                    throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * The ways to obtain the {@linkplain RootDoc} to walk.
+     */
+    private enum Mode {
+
+        /**
+         * The original {@linkplain RootDoc} of the Javadoc tool.
+         */
+        RAW {
+            @Override
+            RootDoc rootDocFor(String[] args) {
+                return RawRootDocReceiver.rootDocFor(args);
+            }
+
+            @Override
+            int proxyCount() {
+                return 0;
+            }
+        },
+
+        /**
+         * The {@linkplain RootDoc} filtered by {@linkplain ExcludeInternalDoclet}.
+         */
+        FILTERED,
+
+        /**
+         * The {@linkplain RootDoc} filtered by {@linkplain ExcludeInternalDoclet}
+         * in the snapshot mode.
+         */
+        SNAPSHOT {
+            @Override
+            String[] args(Path sourceRoot) {
+                return argsBuilder(sourceRoot).addOption(ExcludeInternalDoclet.SNAPSHOT_OPTION)
+                                              .build();
+            }
+        };
+
+        String[] args(Path sourceRoot) {
+            return argsBuilder(sourceRoot).build();
+        }
+
+        RootDoc rootDocFor(String[] args) {
+            return RootDocProxyReceiver.rootDocFor(args);
+        }
+
+        int proxyCount() {
+            return RootDocProxyReceiver.lastDoclet()
+                                       .getProxyCount();
+        }
+
+        @SuppressWarnings("AccessOfSystemProperties") // `@Internal` must be resolved by the tool
+        private static JavadocArgsBuilder argsBuilder(Path sourceRoot) {
+            final String sourcePath = sourceRoot.toString();
+            return new JavadocArgsBuilder(sourcePath, sourcePath)
+                    .addOption("-quiet")
+                    .addOption("-classpath")
+                    .addOption(System.getProperty("java.class.path"))
+                    .addOption("-subpackages")
+                    .addOption(SyntheticSourceTree.ROOT_PACKAGE);
+        }
+    }
+
+    /**
+     * The doclet receiving the original {@linkplain RootDoc}.
+     *
+     * <p>Accepts the options of the {@linkplain Standard} doclet, so that it can be run
+     * with the same arguments as {@linkplain ExcludeInternalDoclet}.
+     */
+    public static class RawRootDocReceiver {
+
+        @SuppressWarnings("StaticVariableMayNotBeInitialized") // Used only start invocation
+        private static RootDoc rootDoc;
+
+        private RawRootDocReceiver() {
+        }
+
+        @SuppressWarnings("unused") // called by com.sun.tools.javadoc.Main
+        public static boolean start(RootDoc root) {
+            rootDoc = root;
+            return true;
+        }
+
+        @SuppressWarnings("unused") // called by com.sun.tools.javadoc.Main
+        public static int optionLength(String option) {
+            return Standard.optionLength(option);
+        }
+
+        @SuppressWarnings("StaticVariableUsedBeforeInitialization") // Initialized in start method
+        private static RootDoc rootDocFor(String[] args) {
+            final String name = RawRootDocReceiver.class.getName();
+            Main.execute(name, name, args);
+            return rootDoc;
+        }
+    }
+}
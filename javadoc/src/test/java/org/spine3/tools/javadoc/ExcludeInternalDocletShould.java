@@ -16,6 +16,9 @@ import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.spine3.tools.javadoc.RootDocProxyReceiver.rootDocFor;
@@ -114,6 +117,18 @@ public class ExcludeInternalDocletShould {
         assertEquals(1, rootDoc.specifiedClasses().length);
     }
 
+    @Test
+    public void not_exclude_packages_with_internal_package_name_prefix() {
+        final String[] args = new JavadocArgsBuilder()
+                .addSource("/internal/InternalPackageClass.java")
+                .addSource("/internalx/InternalPrefixPackageClass.java")
+                .build();
+
+        final RootDoc rootDoc = rootDocFor(args);
+
+        assertEquals(1, rootDoc.specifiedClasses().length);
+    }
+
     @Test
     public void exclude_internal_classes() {
         final String[] args = new JavadocArgsBuilder()
@@ -211,6 +226,66 @@ public class ExcludeInternalDocletShould {
         assertEquals(1, rootDoc.specifiedClasses().length);
     }
 
+    @Test
+    public void wrap_same_doc_with_same_proxy() {
+        final String[] args = new JavadocArgsBuilder()
+                .addSource(INTERNAL_CLASS_FILENAME)
+                .addSource(DERIVED_FROM_INTERNAL_CLASS_FILENAME)
+                .build();
+
+        final RootDoc rootDoc = rootDocFor(args);
+
+        final ClassDoc classDoc = rootDoc.specifiedClasses()[0];
+        assertSame(classDoc, rootDoc.specifiedClasses()[0]);
+        assertSame(classDoc, rootDoc.classNamed(classDoc.qualifiedName()));
+        assertSame(classDoc.superclass(), classDoc.superclass());
+    }
+
+    @Test
+    public void run_standard_doclet_in_snapshot_mode() {
+        final String[] args = new JavadocArgsBuilder()
+                .addSource(INTERNAL_METHOD_CLASS_FILENAME)
+                .addSource(NOT_INTERNAL_CLASS_FILENAME)
+                .addOption(ExcludeInternalDoclet.SNAPSHOT_OPTION)
+                .build();
+
+        ExcludeInternalDoclet.main(args);
+
+        assertTrue(Files.exists(Paths.get(JavadocArgsBuilder.getJavadocDir())));
+    }
+
+    @Test
+    public void exclude_internal_members_in_snapshot_mode() {
+        final String[] args = new JavadocArgsBuilder()
+                .addSource(INTERNAL_CLASS_FILENAME)
+                .addSource(DERIVED_FROM_INTERNAL_CLASS_FILENAME)
+                .addSource(INTERNAL_METHOD_CLASS_FILENAME)
+                .addOption(ExcludeInternalDoclet.SNAPSHOT_OPTION)
+                .build();
+
+        final RootDoc rootDoc = rootDocFor(args);
+
+        assertEquals(2, rootDoc.specifiedClasses().length);
+        assertEquals(0, rootDoc.classNamed(TEST_SOURCES_PACKAGE + ".InternalMethodClass")
+                               .methods().length);
+    }
+
+    @Test
+    public void serve_copies_of_snapshot_arrays() {
+        final String[] args = new JavadocArgsBuilder()
+                .addSource(INTERNAL_CLASS_FILENAME)
+                .addSource(DERIVED_FROM_INTERNAL_CLASS_FILENAME)
+                .addOption(ExcludeInternalDoclet.SNAPSHOT_OPTION)
+                .build();
+
+        final RootDoc rootDoc = rootDocFor(args);
+
+        final ClassDoc[] classes = rootDoc.specifiedClasses();
+        classes[0] = null;
+        assertNotSame(classes, rootDoc.specifiedClasses());
+        assertNotNull(rootDoc.specifiedClasses()[0]);
+    }
+
     @SuppressWarnings("ProhibitedExceptionCaught") // Need to catch NPE to fail test.
     @Test
     public void not_throw_NPE_processing_null_values() {
@@ -0,0 +1,117 @@
+package org.spine3.tools.javadoc;
+
+import com.google.common.collect.ImmutableMap;
+import com.sun.javadoc.AnnotationDesc;
+import com.sun.javadoc.AnnotationTypeDoc;
+import com.sun.javadoc.ClassDoc;
+import com.sun.javadoc.PackageDoc;
+import com.sun.javadoc.ProgramElementDoc;
+import com.sun.javadoc.RootDoc;
+import org.junit.Test;
+import org.spine3.Internal;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ExcludeInternalPrincipleShould {
+
+    private static final String ANNOTATIONS = "annotations";
+    private static final String QUALIFIED_TYPE_NAME = "qualifiedTypeName";
+
+    private final ExcludePrinciple principle = new ExcludeInternalPrinciple(
+            stub(RootDoc.class, ImmutableMap.<String, Object>of(
+                    "specifiedPackages", new PackageDoc[0],
+                    "specifiedClasses", new ClassDoc[0])));
+    private final PackageDoc packageDoc = stub(PackageDoc.class, ImmutableMap.<String, Object>of(
+            "name", "org.spine3"));
+
+    @Test
+    public void decide_once_for_each_doc() {
+        final StubHandler doc = programElement(annotationType(Internal.class.getName()));
+        final ProgramElementDoc docProxy = proxy(ProgramElementDoc.class, doc);
+
+        assertTrue(principle.shouldExclude(docProxy));
+        assertTrue(principle.shouldExclude(docProxy));
+
+        assertEquals(1, doc.getCallCount(ANNOTATIONS));
+    }
+
+    @Test
+    public void compare_annotation_type_name_once() {
+        final StubHandler annotationType = new StubHandler(
+                ImmutableMap.<String, Object>of(QUALIFIED_TYPE_NAME, Deprecated.class.getName()));
+        final AnnotationTypeDoc typeDoc = proxy(AnnotationTypeDoc.class, annotationType);
+        final ProgramElementDoc first = proxy(ProgramElementDoc.class, programElement(typeDoc));
+        final ProgramElementDoc second = proxy(ProgramElementDoc.class, programElement(typeDoc));
+
+        assertFalse(principle.shouldExclude(first));
+        assertFalse(principle.shouldExclude(second));
+
+        assertEquals(1, annotationType.getCallCount(QUALIFIED_TYPE_NAME));
+    }
+
+    private static AnnotationTypeDoc annotationType(String name) {
+        return stub(AnnotationTypeDoc.class,
+                    ImmutableMap.<String, Object>of(QUALIFIED_TYPE_NAME, name));
+    }
+
+    private StubHandler programElement(AnnotationTypeDoc typeDoc) {
+        final AnnotationDesc annotation = stub(AnnotationDesc.class,
+                                               ImmutableMap.<String, Object>of(
+                                                       "annotationType", typeDoc));
+        return new StubHandler(ImmutableMap.<String, Object>of(
+                "containingPackage", packageDoc,
+                ANNOTATIONS, new AnnotationDesc[]{annotation}));
+    }
+
+    private static <T> T stub(Class<T> cls, Map<String, Object> values) {
+        return proxy(cls, new StubHandler(values));
+    }
+
+    private static <T> T proxy(Class<T> cls, StubHandler handler) {
+        return cls.cast(Proxy.newProxyInstance(cls.getClassLoader(), new Class[]{cls}, handler));
+    }
+
+    /**
+     * Returns the preset values by the method name and counts the method calls.
+     */
+    private static class StubHandler implements InvocationHandler {
+
+        private final Map<String, Object> values;
+        private final Map<String, Integer> callCounts = new HashMap<>();
+
+        private StubHandler(Map<String, Object> values) {
+            this.values = values;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            final String name = method.getName();
+            switch (name) {
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    final Integer count = callCounts.get(name);
+                    callCounts.put(name, count == null ? 1 : count + 1);
+                    if (!values.containsKey(name)) {
+                        throw new UnsupportedOperationException(name);
+                    }
+                    return values.get(name);
+            }
+        }
+
+        private int getCallCount(String methodName) {
+            final Integer count = callCounts.get(methodName);
+            return count == null ? 0 : count;
+        }
+    }
+}
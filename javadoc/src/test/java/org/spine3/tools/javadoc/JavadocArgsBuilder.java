@@ -12,11 +12,29 @@ class JavadocArgsBuilder {
     private static final String RESOURCES_DIR = ABSOLUTE_PROJECT_PATH + "/src/test/resources/";
     private static final String JAVADOC_OUTPUT_DIR = RESOURCES_DIR  + "javadocs";
 
+    private final String sourcePath;
+    private final String sourcesDir;
     private final Collection<String> classes = new ArrayList<>();
     private final Collection<String> packages = new ArrayList<>();
+    private final Collection<String> options = new ArrayList<>();
+
+    JavadocArgsBuilder() {
+        this(RESOURCES_DIR, TEST_SOURCES_DIR);
+    }
+
+    /**
+     * Creates the builder for the sources located in the specified directory.
+     *
+     * @param sourcePath the path to scan packages
+     * @param sourcesDir the directory containing the sources added by name
+     */
+    JavadocArgsBuilder(String sourcePath, String sourcesDir) {
+        this.sourcePath = sourcePath;
+        this.sourcesDir = sourcesDir;
+    }
 
     JavadocArgsBuilder addSource(String sourceName) {
-        classes.add(TEST_SOURCES_DIR + sourceName);
+        classes.add(sourcesDir + sourceName);
         return this;
     }
 
@@ -25,21 +43,27 @@ class JavadocArgsBuilder {
         return this;
     }
 
+    JavadocArgsBuilder addOption(String option) {
+        options.add(option);
+        return this;
+    }
+
     String[] build() {
         final List<String> allArguments = new ArrayList<>();
 
         addDestination(allArguments);
         addSourcePath(allArguments);
+        allArguments.addAll(options);
         allArguments.addAll(packages);
         allArguments.addAll(classes);
 
         return allArguments.toArray(new String[allArguments.size()]);
     }
 
-    private static void addSourcePath(Collection<String> commandLineArgs) {
+    private void addSourcePath(Collection<String> commandLineArgs) {
         // Path to scan packages
         commandLineArgs.add("-sourcepath");
-        commandLineArgs.add(RESOURCES_DIR);
+        commandLineArgs.add(sourcePath);
     }
 
     private static void addDestination(Collection<String> commandLineArgs) {
@@ -0,0 +1,53 @@
+package org.spine3.tools.javadoc;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PackageTrieShould {
+
+    private static final String PACKAGE = "org.spine3.internal";
+
+    @Test
+    public void contain_added_package() {
+        final PackageTrie trie = new PackageTrie();
+        trie.add(PACKAGE);
+
+        assertTrue(trie.contains(PACKAGE));
+    }
+
+    @Test
+    public void contain_subpackages_of_added_package() {
+        final PackageTrie trie = new PackageTrie();
+        trie.add(PACKAGE);
+
+        assertTrue(trie.contains(PACKAGE + ".sub"));
+        assertTrue(trie.contains(PACKAGE + ".sub.subsub"));
+    }
+
+    @Test
+    public void not_contain_parent_packages() {
+        final PackageTrie trie = new PackageTrie();
+        trie.add(PACKAGE);
+
+        assertFalse(trie.contains("org.spine3"));
+        assertFalse(trie.contains(""));
+    }
+
+    @Test
+    public void not_contain_packages_with_same_name_prefix() {
+        final PackageTrie trie = new PackageTrie();
+        trie.add(PACKAGE);
+
+        assertFalse(trie.contains(PACKAGE + 'x'));
+        assertFalse(trie.contains(PACKAGE + "x.sub"));
+    }
+
+    @Test
+    public void not_contain_anything_if_empty() {
+        final PackageTrie trie = new PackageTrie();
+
+        assertFalse(trie.contains(PACKAGE));
+    }
+}
@@ -8,6 +8,9 @@ public class RootDocProxyReceiver extends ExcludeInternalDoclet {
     @SuppressWarnings("StaticVariableMayNotBeInitialized") // Used only start invocation
     private static RootDoc rootDocProxy;
 
+    @SuppressWarnings("StaticVariableMayNotBeInitialized") // Used only start invocation
+    private static ExcludeInternalDoclet doclet;
+
     @SuppressWarnings("ConstantConditions") // Is not necessary
     public RootDocProxyReceiver(String[] args) {
         super(null);
@@ -22,10 +25,10 @@ public class RootDocProxyReceiver extends ExcludeInternalDoclet {
     @SuppressWarnings("unused") // called by com.sun.tools.javadoc.Main
     public static boolean start(RootDoc root) {
         final ExcludePrinciple excludePrinciple = new ExcludeInternalPrinciple(root);
-        final ExcludeInternalDoclet doclet = new ExcludeInternalDoclet(excludePrinciple);
+        doclet = new ExcludeInternalDoclet(excludePrinciple, isSnapshotEnabled(root));
 
         // We can obtain RootDoc only here
-        rootDocProxy = (RootDoc) doclet.process(root, root.getClass());
+        rootDocProxy = doclet.filter(root);
 
         return true;
     }
@@ -35,4 +38,9 @@ public class RootDocProxyReceiver extends ExcludeInternalDoclet {
         main(args);
         return rootDocProxy;
     }
+
+    @SuppressWarnings("StaticVariableUsedBeforeInitialization") // Initialized in start method
+    static ExcludeInternalDoclet lastDoclet() {
+        return doclet;
+    }
 }
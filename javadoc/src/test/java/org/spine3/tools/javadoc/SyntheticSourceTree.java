@@ -0,0 +1,194 @@
+package org.spine3.tools.javadoc;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Generates the Java sources used to benchmark {@linkplain ExcludeInternalDoclet}.
+ *
+ * <p>The packages form a binary tree under the {@linkplain #ROOT_PACKAGE root package},
+ * e.g. {@code benchmark.p0.p1.p3}. An {@code @Internal} package hides all the packages
+ * nested into it, so the tree contains nested internal packages at any depth.
+ *
+ * <p>Each class has a constructor, several fields and methods, and a nested class.
+ * Every class except the first one in a package extends the previous class of the package,
+ * so that the methods override each other.
+ *
+ * <p>The sources are generated deterministically, so the results of the different runs
+ * are comparable.
+ */
+class SyntheticSourceTree {
+
+    static final String ROOT_PACKAGE = "benchmark";
+
+    private static final int CLASSES_PER_PACKAGE = 20;
+    private static final int FIELDS_PER_CLASS = 3;
+    private static final int METHODS_PER_CLASS = 6;
+    private static final long SEED = 42;
+
+    private static final String INTERNAL_ANNOTATION = "@org.spine3.Internal\n";
+
+    private final int classCount;
+    private final double internalPackageShare;
+    private final double internalClassShare;
+    private final double internalMemberShare;
+
+    private int internalPackages;
+    private int internalClasses;
+    private int internalMembers;
+
+    /**
+     * Creates the source tree.
+     *
+     * @param classCount           the number of the top-level classes
+     * @param internalPackageShare the share of the {@code @Internal} packages
+     * @param internalClassShare   the share of the {@code @Internal} classes
+     * @param internalMemberShare  the share of the {@code @Internal} constructors,
+     *                             fields, methods, and nested classes
+     */
+    SyntheticSourceTree(int classCount,
+                        double internalPackageShare,
+                        double internalClassShare,
+                        double internalMemberShare) {
+        checkArgument(classCount > 0, "The class count must be positive.");
+        checkShare(internalPackageShare);
+        checkShare(internalClassShare);
+        checkShare(internalMemberShare);
+        this.classCount = classCount;
+        this.internalPackageShare = internalPackageShare;
+        this.internalClassShare = internalClassShare;
+        this.internalMemberShare = internalMemberShare;
+    }
+
+    private static void checkShare(double share) {
+        checkArgument(share >= 0 && share <= 1, "The share must be in [0, 1].");
+    }
+
+    /**
+     * Writes the sources into the directory.
+     *
+     * @param sourceRoot the source root directory
+     * @throws IOException if the sources cannot be written
+     */
+    void writeTo(Path sourceRoot) throws IOException {
+        internalPackages = 0;
+        internalClasses = 0;
+        internalMembers = 0;
+
+        final Random random = new Random(SEED);
+        final List<String> packages = packageNames();
+        int written = 0;
+        for (String packageName : packages) {
+            final Path packageDir = sourceRoot.resolve(packageName.replace('.', '/'));
+            Files.createDirectories(packageDir);
+            if (random.nextDouble() < internalPackageShare) {
+                internalPackages++;
+                write(packageDir.resolve("package-info.java"),
+                      INTERNAL_ANNOTATION + "package " + packageName + ";\n");
+            }
+            final int classesInPackage = Math.min(CLASSES_PER_PACKAGE, classCount - written);
+            for (int i = 0; i < classesInPackage; i++) {
+                final String className = "Class" + i;
+                final String superClass = i == 0 ? null : "Class" + (i - 1);
+                write(packageDir.resolve(className + ".java"),
+                      generateClass(random, packageName, className, superClass));
+            }
+            written += classesInPackage;
+        }
+    }
+
+    private List<String> packageNames() {
+        final int packageCount = (classCount + CLASSES_PER_PACKAGE - 1) / CLASSES_PER_PACKAGE;
+        final List<String> result = new ArrayList<>(packageCount);
+        for (int i = 0; i < packageCount; i++) {
+            final String parent = i == 0
+                                  ? ROOT_PACKAGE
+                                  : result.get((i - 1) / 2);
+            result.add(parent + ".p" + i);
+        }
+        return result;
+    }
+
+    private String generateClass(Random random,
+                                 String packageName,
+                                 String className,
+                                 @Nullable String superClass) {
+        final StringBuilder source = new StringBuilder("package ").append(packageName)
+                                                                  .append(";\n\n");
+        source.append("/**\n")
+              .append(" * The generated class.\n")
+              .append(" */\n");
+        if (random.nextDouble() < internalClassShare) {
+            internalClasses++;
+            source.append(INTERNAL_ANNOTATION);
+        }
+        source.append("public class ")
+              .append(className);
+        if (superClass != null) {
+            source.append(" extends ")
+                  .append(superClass);
+        }
+        source.append(" {\n\n");
+
+        for (int i = 0; i < FIELDS_PER_CLASS; i++) {
+            appendMember(random, source, "public int field" + i + ";\n\n");
+        }
+        appendMember(random, source, "public " + className + "() {\n    }\n\n");
+        for (int i = 0; i < METHODS_PER_CLASS; i++) {
+            appendMember(random, source, "public int method" + i + "(int value) {\n"
+                    + "        return value + " + i + ";\n"
+                    + "    }\n\n");
+        }
+        appendMember(random, source, "public static class Nested {\n"
+                + "        public void nestedMethod() {\n"
+                + "        }\n"
+                + "    }\n");
+        return source.append("}\n")
+                     .toString();
+    }
+
+    private void appendMember(Random random, StringBuilder source, String member) {
+        source.append("    /**\n")
+              .append("     * The generated member.\n")
+              .append("     */\n");
+        if (random.nextDouble() < internalMemberShare) {
+            internalMembers++;
+            source.append("    ")
+                  .append(INTERNAL_ANNOTATION);
+        }
+        source.append("    ")
+              .append(member);
+    }
+
+    private static void write(Path file, String content) throws IOException {
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    int getClassCount() {
+        return classCount;
+    }
+
+    /**
+     * Obtains the number of the {@code @Internal} packages written by the last
+     * {@linkplain #writeTo(Path) run}, not counting the packages nested into them.
+     */
+    int getInternalPackages() {
+        return internalPackages;
+    }
+
+    int getInternalClasses() {
+        return internalClasses;
+    }
+
+    int getInternalMembers() {
+        return internalMembers;
+    }
+}
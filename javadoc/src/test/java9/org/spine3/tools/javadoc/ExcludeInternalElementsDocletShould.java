@@ -0,0 +1,172 @@
+package org.spine3.tools.javadoc;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.DocumentationTool;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ExcludeInternalElementsDocletShould {
+
+    @SuppressWarnings("AccessOfSystemProperties") // Need to know project path
+    private static final Path TEST_SOURCES_DIR = Paths.get(System.getProperty("user.dir"),
+                                                           "src", "test", "resources",
+                                                           "testsources");
+    private static final String TEST_SOURCES_PACKAGE = "testsources";
+
+    @Rule
+    public final TemporaryFolder javadocDir = new TemporaryFolder();
+
+    @Rule
+    public final TemporaryFolder emptyDir = new TemporaryFolder();
+
+    @Test
+    public void exclude_internal_classes() throws IOException {
+        generateJavadoc("InternalClass.java", "notinternal/NotInternalClass.java");
+
+        assertFalse(generated(TEST_SOURCES_PACKAGE, "InternalClass.html"));
+        assertTrue(generated(TEST_SOURCES_PACKAGE, "notinternal", "NotInternalClass.html"));
+    }
+
+    @Test
+    public void exclude_internal_members() throws IOException {
+        generateJavadoc("InternalMethodClass.java", "InternalFieldClass.java");
+
+        assertFalse(read(TEST_SOURCES_PACKAGE, "InternalMethodClass.html").contains("foo()"));
+        assertFalse(read(TEST_SOURCES_PACKAGE, "InternalFieldClass.html")
+                            .contains("internalValue"));
+    }
+
+    @Test
+    public void exclude_internal_members_with_their_comments() throws IOException {
+        generateJavadoc("InternalMembersClass.java");
+
+        final String classPage = read(TEST_SOURCES_PACKAGE, "InternalMembersClass.html");
+        assertTrue(classPage.contains("keptMethod()"));
+        assertFalse(classPage.contains("internalField"));
+        assertFalse(classPage.contains("internalMethod"));
+        assertFalse(classPage.contains("The internal method."));
+        assertFalse(classPage.contains("InternalNestedClass"));
+        final String enumPage = read(TEST_SOURCES_PACKAGE, "InternalMembersClass.Kind.html");
+        assertTrue(enumPage.contains("KEPT_CONSTANT"));
+        assertFalse(enumPage.contains("INTERNAL_CONSTANT"));
+    }
+
+    @Test
+    public void exclude_internal_package_and_subpackages() throws IOException {
+        generateJavadoc("internal/package-info.java",
+                        "internal/InternalPackageClass.java",
+                        "internal/subinternal/SubInternalPackageClass.java",
+                        "notinternal/NotInternalClass.java");
+
+        assertFalse(generated(TEST_SOURCES_PACKAGE, "internal", "InternalPackageClass.html"));
+        assertFalse(generated(TEST_SOURCES_PACKAGE, "internal", "subinternal",
+                              "SubInternalPackageClass.html"));
+        assertTrue(generated(TEST_SOURCES_PACKAGE, "notinternal", "NotInternalClass.html"));
+    }
+
+    @Test
+    public void not_exclude_packages_with_internal_package_name_prefix() throws IOException {
+        generateJavadoc("internal/package-info.java",
+                        "internal/InternalPackageClass.java",
+                        "internalx/InternalPrefixPackageClass.java");
+
+        assertTrue(generated(TEST_SOURCES_PACKAGE, "internalx",
+                             "InternalPrefixPackageClass.html"));
+    }
+
+    @Test
+    public void pass_on_access_options() throws IOException {
+        generateJavadoc(Arrays.asList("-private"), "PrivateMembersClass.java");
+
+        final String classPage = read(TEST_SOURCES_PACKAGE, "PrivateMembersClass.html");
+        assertTrue(classPage.contains("privateMethod()"));
+        assertFalse(classPage.contains("internalPrivateMethod"));
+    }
+
+    @SuppressWarnings("AccessOfSystemProperties") // Need to know the running JDK.
+    @Test
+    public void pass_on_tool_options_of_command_line() throws Exception {
+        final Path argumentFile = emptyDir.newFile("javadoc.options")
+                                          .toPath();
+        final String options = "-private\n"
+                + "-classpath '" + System.getProperty("java.class.path") + "'\n"
+                + "-sourcepath '" + emptyDir.getRoot().getPath() + "'\n";
+        Files.write(argumentFile, options.getBytes(StandardCharsets.UTF_8));
+        final Path javadoc = Paths.get(System.getProperty("java.home"), "bin", "javadoc");
+        final Process process = new ProcessBuilder(
+                javadoc.toString(),
+                "-doclet", ExcludeInternalElementsDoclet.class.getName(),
+                "-docletpath", System.getProperty("java.class.path"),
+                "-d", javadocDir.getRoot().getPath(),
+                "-quiet",
+                "@" + argumentFile,
+                TEST_SOURCES_DIR.resolve("PrivateMembersClass.java")
+                                .toString())
+                .inheritIO()
+                .start();
+        assertEquals(0, process.waitFor());
+
+        final String classPage = read(TEST_SOURCES_PACKAGE, "PrivateMembersClass.html");
+        assertTrue(classPage.contains("privateMethod()"));
+        assertFalse(classPage.contains("internalPrivateMethod"));
+    }
+
+    private void generateJavadoc(String... sources) throws IOException {
+        generateJavadoc(Collections.<String>emptyList(), sources);
+    }
+
+    @SuppressWarnings("AccessOfSystemProperties") // `@Internal` must be resolved by the tool
+    private void generateJavadoc(List<String> toolOptions, String... sources) throws IOException {
+        final DocumentationTool tool = ToolProvider.getSystemDocumentationTool();
+        try (StandardJavaFileManager fileManager =
+                     tool.getStandardFileManager(null, null, StandardCharsets.UTF_8)) {
+            final List<File> files = new ArrayList<>();
+            for (String source : sources) {
+                files.add(TEST_SOURCES_DIR.resolve(source)
+                                          .toFile());
+            }
+            final Iterable<? extends JavaFileObject> units =
+                    fileManager.getJavaFileObjectsFromFiles(files);
+            // Test resources are on the classpath, so an empty source path keeps the tool
+            // from picking up the sources which were not passed explicitly.
+            final List<String> options = new ArrayList<>(Arrays.asList(
+                    "-d", javadocDir.getRoot().getPath(),
+                    "-sourcepath", emptyDir.getRoot().getPath(),
+                    "-classpath", System.getProperty("java.class.path"),
+                    "-quiet"));
+            options.addAll(toolOptions);
+            final boolean success = tool.getTask(null, fileManager, null,
+                                                 ExcludeInternalElementsDoclet.class,
+                                                 options, units)
+                                        .call();
+            assertTrue(success);
+        }
+    }
+
+    private boolean generated(String... path) {
+        return Files.exists(Paths.get(javadocDir.getRoot().getPath(), path));
+    }
+
+    private String read(String... path) throws IOException {
+        final byte[] content = Files.readAllBytes(Paths.get(javadocDir.getRoot().getPath(), path));
+        return new String(content, StandardCharsets.UTF_8);
+    }
+}
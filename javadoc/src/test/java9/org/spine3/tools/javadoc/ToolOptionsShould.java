@@ -0,0 +1,47 @@
+package org.spine3.tools.javadoc;
+
+import jdk.javadoc.doclet.StandardDoclet;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ToolOptionsShould {
+
+    @Test
+    public void select_tool_options_from_command_line() {
+        final List<String> arguments = Arrays.asList(
+                "-J-Xmx1g", "-doclet", "SomeDoclet", "-docletpath", "doclets",
+                "-d", "out", "-private", "-encoding", "Cp1252", "--show-types=package",
+                "-Xdoclint:all", "-classpath", "libs", "-subpackages", "org", "Source.java");
+
+        final StandardDoclet doclet = new StandardDoclet();
+        doclet.init(Locale.ROOT, null);
+
+        final List<String> options =
+                ToolOptions.fromCommandLine(arguments, doclet.getSupportedOptions());
+
+        assertEquals(Arrays.asList("-private", "--show-types=package", "-classpath", "libs"),
+                     options);
+    }
+
+    @Test
+    public void tokenize_argument_file() {
+        final String text = "# The options.\n-classpath 'a b\\\\c'\n  -d \"out\"\t-private";
+
+        assertEquals(Arrays.asList("-classpath", "a b\\c", "-d", "out", "-private"),
+                     ToolOptions.tokenize(text));
+    }
+
+    @Test
+    public void recognize_source_version_options() {
+        assertTrue(ToolOptions.specifiesSourceVersion(Arrays.asList("--release", "9")));
+        assertTrue(ToolOptions.specifiesSourceVersion(Arrays.asList("--source=9")));
+        assertFalse(ToolOptions.specifiesSourceVersion(Arrays.asList("-private")));
+    }
+}
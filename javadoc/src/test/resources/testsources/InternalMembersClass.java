@@ -0,0 +1,50 @@
+package testsources;
+
+import org.spine3.Internal;
+
+public class InternalMembersClass {
+
+    /**
+     * The internal field; with a tricky initializer.
+     */
+    @Internal
+    public final Runnable internalField = new Runnable() {
+        @Override
+        public void run() {
+            final String text = "}; {";
+        }
+    };
+
+    /**
+     * The internal method.
+     */
+    @Internal
+    public void internalMethod() {
+    }
+
+    public void keptMethod() {
+    }
+
+    /**
+     * The internal nested class.
+     */
+    @Internal
+    public static class InternalNestedClass {
+    }
+
+    public enum Kind {
+
+        @Internal
+        INTERNAL_CONSTANT("}", ';') {
+            @Override
+            public String toString() {
+                return "internal";
+            }
+        },
+
+        KEPT_CONSTANT("kept", ',');
+
+        Kind(String name, char separator) {
+        }
+    }
+}
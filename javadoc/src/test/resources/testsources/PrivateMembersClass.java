@@ -0,0 +1,13 @@
+package testsources;
+
+import org.spine3.Internal;
+
+public class PrivateMembersClass {
+
+    private void privateMethod() {
+    }
+
+    @Internal
+    private void internalPrivateMethod() {
+    }
+}
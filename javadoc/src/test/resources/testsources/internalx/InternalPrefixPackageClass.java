@@ -0,0 +1,4 @@
+package testsources.internalx;
+
+public class InternalPrefixPackageClass {
+}
@@ -144,6 +144,17 @@ public class Extension {
         }
     }
 
+    /**
+     * Obtains the directory of the files locking the updates of the generated resources.
+     *
+     * <p>The directory is kept out of the generated resources, so the lock files
+     * are not packaged along with them.
+     */
+    public static String getLockDir(Project project) {
+        return project.getProjectDir()
+                      .getAbsolutePath() + "/build/tmp/locks";
+    }
+
     public static List<String> getDirsToClean(Project project) {
         log().debug("Finding the directories to clean");
         final List<String> dirs = spineProtobuf(project).dirsToClean;
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2017, TeamDev Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.spine3.gradle.protobuf.lookup.enrichments;
+
+import com.google.common.collect.ImmutableList;
+
+import java.io.BufferedInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * A binary index of the enrichments, which maps the enrichment types to the event types
+ * they enrich and vice versa.
+ *
+ * <p>All the type names are interned into a sorted table, so that each type is referred to
+ * by its integer ID. Both directions of the mapping are stored in the index, so nothing is
+ * split or inverted at runtime. A lookup is a plain array access.
+ *
+ * <p>The instances of this class are immutable and can be shared between threads
+ * without any synchronization.
+ *
+ * <p>The index is written by {@link EnrichmentIndexWriter} in the following format:
+ *
+ * <pre>
+ * int    magic number
+ * int    format version
+ * int    type count
+ * UTF[]  type names, sorted alphabetically; the position of a name is its ID
+ * int    enrichment count
+ * {int enrichment ID, int event count, int[] event IDs}[]
+ * int    event count
+ * {int event ID, int enrichment count, int[] enrichment IDs}[]
+ * </pre>
+ *
+ * @see EnrichmentLookupPlugin
+ */
+public final class EnrichmentIndex {
+
+    /**
+     * The name of the index file.
+     *
+     * <p>NOTE: the filename is referenced by `core-java` as well,
+     * make sure to update `core-java` project upon changing this value.
+     */
+    public static final String FILE_NAME = "enrichments.idx";
+
+    /** The value returned by {@link #getTypeId(String)} for the unknown types. */
+    public static final int UNKNOWN_TYPE_ID = -1;
+
+    /** The first four bytes of the index file, {@code SPEI} in ASCII. */
+    static final int MAGIC_NUMBER = 0x53504549;
+
+    static final int FORMAT_VERSION = 1;
+
+    private final ImmutableList<String> typeNames;
+    private final ImmutableList<ImmutableList<String>> eventsByEnrichment;
+    private final ImmutableList<ImmutableList<String>> enrichmentsByEvent;
+
+    private EnrichmentIndex(ImmutableList<String> typeNames,
+                            int[][] eventsByEnrichment,
+                            int[][] enrichmentsByEvent) {
+        this.typeNames = typeNames;
+        this.eventsByEnrichment = resolveNames(eventsByEnrichment, typeNames);
+        this.enrichmentsByEvent = resolveNames(enrichmentsByEvent, typeNames);
+    }
+
+    /**
+     * Reads the index from the given stream.
+     *
+     * <p>The stream is not closed by this method.
+     *
+     * @param stream the stream to read the index file contents from
+     * @return new instance of the index
+     * @throws IllegalStateException if the stream does not contain a valid index
+     */
+    public static EnrichmentIndex readFrom(InputStream stream) {
+        checkNotNull(stream);
+        final DataInputStream input = new DataInputStream(new BufferedInputStream(stream));
+        try {
+            checkState(input.readInt() == MAGIC_NUMBER, "Not an enrichment index.");
+            final int version = input.readInt();
+            checkState(version == FORMAT_VERSION,
+                       "Unsupported enrichment index version: %s", version);
+            final int typeCount = input.readInt();
+            final ImmutableList.Builder<String> typeNames = ImmutableList.builder();
+            for (int id = 0; id < typeCount; id++) {
+                typeNames.add(input.readUTF());
+            }
+            final int[][] eventsByEnrichment = readRelation(input, typeCount);
+            final int[][] enrichmentsByEvent = readRelation(input, typeCount);
+            final EnrichmentIndex result = new EnrichmentIndex(typeNames.build(),
+                                                               eventsByEnrichment,
+                                                               enrichmentsByEvent);
+            return result;
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read the enrichment index.", e);
+        }
+    }
+
+    /**
+     * Returns the number of the types known to the index.
+     *
+     * <p>The type IDs are in the range {@code [0, getTypeCount())}.
+     */
+    public int getTypeCount() {
+        return typeNames.size();
+    }
+
+    /**
+     * Obtains the ID of the given enrichment or event type.
+     *
+     * @param typeName the fully-qualified name of the Protobuf type
+     * @return the ID of the type or {@link #UNKNOWN_TYPE_ID} if the type is not in the index
+     */
+    public int getTypeId(String typeName) {
+        checkNotNull(typeName);
+        final int index = Collections.binarySearch(typeNames, typeName);
+        final int result = index < 0 ? UNKNOWN_TYPE_ID : index;
+        return result;
+    }
+
+    /**
+     * Obtains the fully-qualified name of the type with the given ID.
+     */
+    public String getTypeName(int typeId) {
+        return typeNames.get(typeId);
+    }
+
+    /**
+     * Obtains the names of the event types enriched by the enrichment with the given ID.
+     */
+    public ImmutableList<String> getEvents(int enrichmentId) {
+        return eventsByEnrichment.get(enrichmentId);
+    }
+
+    /**
+     * Obtains the names of the enrichment types applied to the event with the given ID.
+     */
+    public ImmutableList<String> getEnrichments(int eventId) {
+        return enrichmentsByEvent.get(eventId);
+    }
+
+    /**
+     * Obtains the names of the event types enriched by the given enrichment type.
+     *
+     * @return the event type names or an empty list if the enrichment is unknown
+     */
+    public ImmutableList<String> getEvents(String enrichmentType) {
+        final int id = getTypeId(enrichmentType);
+        return id == UNKNOWN_TYPE_ID
+               ? ImmutableList.<String>of()
+               : getEvents(id);
+    }
+
+    /**
+     * Obtains the names of the enrichment types applied to the given event type.
+     *
+     * @return the enrichment type names or an empty list if the event is unknown
+     */
+    public ImmutableList<String> getEnrichments(String eventType) {
+        final int id = getTypeId(eventType);
+        return id == UNKNOWN_TYPE_ID
+               ? ImmutableList.<String>of()
+               : getEnrichments(id);
+    }
+
+    private static int[][] readRelation(DataInput input, int typeCount) throws IOException {
+        final int[][] result = new int[typeCount][];
+        final int sourceCount = input.readInt();
+        for (int i = 0; i < sourceCount; i++) {
+            final int sourceId = input.readInt();
+            checkTypeId(sourceId, typeCount);
+            final int targetCount = input.readInt();
+            final int[] targets = new int[targetCount];
+            for (int j = 0; j < targetCount; j++) {
+                final int targetId = input.readInt();
+                checkTypeId(targetId, typeCount);
+                targets[j] = targetId;
+            }
+            result[sourceId] = targets;
+        }
+        return result;
+    }
+
+    private static void checkTypeId(int typeId, int typeCount) {
+        checkState(typeId >= 0 && typeId < typeCount,
+                   "Invalid type ID %s in the enrichment index.", typeId);
+    }
+
+    private static ImmutableList<ImmutableList<String>> resolveNames(int[][] relation,
+                                                                     ImmutableList<String> names) {
+        final ImmutableList.Builder<ImmutableList<String>> result = ImmutableList.builder();
+        for (int[] targets : relation) {
+            if (targets == null) {
+                result.add(ImmutableList.<String>of());
+                continue;
+            }
+            final ImmutableList.Builder<String> targetNames = ImmutableList.builder();
+            for (int targetId : targets) {
+                targetNames.add(names.get(targetId));
+            }
+            result.add(targetNames.build());
+        }
+        return result.build();
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2017, TeamDev Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.spine3.gradle.protobuf.lookup.enrichments;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Multimaps;
+import com.google.common.collect.SortedSetMultimap;
+import com.google.common.collect.TreeMultimap;
+import com.google.common.io.Files;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.spine3.gradle.FileUtil;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import static com.google.common.collect.Maps.newHashMap;
+import static org.spine3.gradle.protobuf.lookup.enrichments.EnrichmentIndex.FORMAT_VERSION;
+import static org.spine3.gradle.protobuf.lookup.enrichments.EnrichmentIndex.MAGIC_NUMBER;
+
+/**
+ * Writes the {@linkplain EnrichmentIndex binary enrichment index}.
+ *
+ * <p>The type names are sorted before being interned, so the same enrichments always
+ * produce the same file.
+ */
+class EnrichmentIndexWriter {
+
+    private static final Splitter EVENT_NAME_SPLITTER = Splitter.on(',')
+                                                                .trimResults()
+                                                                .omitEmptyStrings();
+
+    private final File indexFile;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param rootDirPath   a path to a directory where the index file is (or will be) located
+     * @param indexFileName a name of the index file to write to (can be non-existing)
+     */
+    EnrichmentIndexWriter(String rootDirPath, String indexFileName) {
+        this.indexFile = new File(rootDirPath, indexFileName);
+    }
+
+    /**
+     * Writes the index file rewriting its contents if it already exists.
+     *
+     * <p>The index is written to a temporary file first, which then replaces the index file,
+     * so the readers never observe a partially written index.
+     *
+     * @param enrichments the entries from enrichment type name to the comma-separated names
+     *                    of the event types to enrich
+     */
+    void write(Iterator<? extends Map.Entry<String, String>> enrichments) {
+        log().debug("Writing the enrichment index to {}", indexFile);
+        final SortedSetMultimap<String, String> eventsByEnrichment = TreeMultimap.create();
+        while (enrichments.hasNext()) {
+            final Map.Entry<String, String> entry = enrichments.next();
+            final Iterable<String> events = EVENT_NAME_SPLITTER.split(entry.getValue());
+            eventsByEnrichment.putAll(entry.getKey(), events);
+        }
+        final SortedSetMultimap<String, String> enrichmentsByEvent =
+                Multimaps.invertFrom(eventsByEnrichment, TreeMultimap.<String, String>create());
+
+        final SortedSet<String> allTypes = new TreeSet<>(eventsByEnrichment.keySet());
+        allTypes.addAll(enrichmentsByEvent.keySet());
+        final ImmutableList<String> typeNames = ImmutableList.copyOf(allTypes);
+        final Map<String, Integer> typeIds = newHashMap();
+        for (int id = 0; id < typeNames.size(); id++) {
+            typeIds.put(typeNames.get(id), id);
+        }
+
+        createParentDirs();
+        final File tempFile = FileUtil.createTempFile(indexFile);
+        try {
+            final DataOutputStream output = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(tempFile)));
+            try {
+                output.writeInt(MAGIC_NUMBER);
+                output.writeInt(FORMAT_VERSION);
+                output.writeInt(typeNames.size());
+                for (String typeName : typeNames) {
+                    output.writeUTF(typeName);
+                }
+                writeRelation(output, eventsByEnrichment, typeIds);
+                writeRelation(output, enrichmentsByEvent, typeIds);
+            } finally {
+                output.close();
+            }
+            FileUtil.replace(tempFile, indexFile);
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot write the enrichment index to " +
+                                               indexFile.getAbsolutePath(), e);
+        } finally {
+            if (tempFile.exists() && !tempFile.delete()) {
+                log().warn("Cannot delete the temporary file {}", tempFile.getAbsolutePath());
+            }
+        }
+        log().debug("Enrichment index written successfully. {} types interned.",
+                    typeNames.size());
+    }
+
+    private void createParentDirs() {
+        try {
+            Files.createParentDirs(indexFile);
+        } catch (IOException e) {
+            final String errMsg = "Cannot create the parent folders at ";
+            throw new RuntimeException(errMsg + indexFile.getAbsolutePath(), e);
+        }
+    }
+
+    private static void writeRelation(DataOutputStream output,
+                                      SortedSetMultimap<String, String> relation,
+                                      Map<String, Integer> typeIds) throws IOException {
+        final Map<String, Collection<String>> targetsBySource = relation.asMap();
+        output.writeInt(targetsBySource.size());
+        for (Map.Entry<String, Collection<String>> entry : targetsBySource.entrySet()) {
+            output.writeInt(typeIds.get(entry.getKey()));
+            final Collection<String> targets = entry.getValue();
+            output.writeInt(targets.size());
+            for (String target : targets) {
+                output.writeInt(typeIds.get(target));
+            }
+        }
+    }
+
+    private static Logger log() {
+        return LogSingleton.INSTANCE.value;
+    }
+
+    private enum LogSingleton {
+        INSTANCE;
+        @SuppressWarnings("NonSerializableFieldInSerializableClass")
+        private final Logger value = LoggerFactory.getLogger(EnrichmentIndexWriter.class);
+    }
+}
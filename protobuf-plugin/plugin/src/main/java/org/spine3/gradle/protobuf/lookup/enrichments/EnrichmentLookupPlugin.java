@@ -19,6 +19,7 @@
  */
 package org.spine3.gradle.protobuf.lookup.enrichments;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
 import org.gradle.api.Action;
 import org.gradle.api.Project;
@@ -27,8 +28,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.spine3.gradle.SpinePlugin;
 import org.spine3.gradle.protobuf.util.DescriptorSetUtil;
+import org.spine3.gradle.protobuf.util.FileUpdateLock;
+import org.spine3.gradle.protobuf.util.PropertiesReader;
 import org.spine3.gradle.protobuf.util.PropertiesWriter;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Collection;
 import java.util.Map;
 
@@ -39,6 +44,7 @@ import static org.spine3.gradle.TaskName.FIND_ENRICHMENTS;
 import static org.spine3.gradle.TaskName.FIND_TEST_ENRICHMENTS;
 import static org.spine3.gradle.TaskName.PROCESS_RESOURCES;
 import static org.spine3.gradle.TaskName.PROCESS_TEST_RESOURCES;
+import static org.spine3.gradle.protobuf.Extension.getLockDir;
 import static org.spine3.gradle.protobuf.Extension.getMainDescriptorSetPath;
 import static org.spine3.gradle.protobuf.Extension.getMainTargetGenResourcesDir;
 import static org.spine3.gradle.protobuf.Extension.getTestDescriptorSetPath;
@@ -55,6 +61,14 @@ import static org.spine3.gradle.protobuf.util.DescriptorSetUtil.getProtoFileDesc
  *
  * <p>{@code ENRICHMENT_TYPE_NAME=FIRST_EVENT_TYPE_NAME,SECOND_EVENT_TYPE_NAME}
  *
+ * <p>The same enrichments are also written to the {@linkplain EnrichmentIndex binary index},
+ * which allows to look them up in both directions without parsing the values above.
+ *
+ * <p>The {@code (by)} options of the enrichment fields are resolved into
+ * {@linkplain FieldResolution field resolutions}, which are written to a separate
+ * {@code .properties} file. Unlike the enrichments, the resolutions are not merged with
+ * the ones written before.
+ *
  * @author Alexander Litus
  * @author Alex Tymchenko
  */
@@ -67,6 +81,14 @@ public class EnrichmentLookupPlugin extends SpinePlugin {
      */
     private static final String PROPS_FILE_NAME = "enrichments.properties";
 
+    /**
+     * The name of the file to populate with the {@linkplain FieldResolution field resolutions}.
+     *
+     * <p>NOTE: the filename is referenced by `core-java` as well,
+     * make sure to update `core-java` project upon changing this value.
+     */
+    private static final String PLANS_FILE_NAME = "enrichment_plans.properties";
+
     @Override
     public void apply(final Project project) {
         final Action<Task> mainScopeAction = mainScopeActionFor(project);
@@ -94,7 +116,8 @@ public class EnrichmentLookupPlugin extends SpinePlugin {
             @Override
             public void execute(Task task) {
                 findEnrichmentsAndWriteProps(getTestTargetGenResourcesDir(project),
-                                             getTestDescriptorSetPath(project));
+                                             getTestDescriptorSetPath(project),
+                                             getLockDir(project));
             }
         };
     }
@@ -105,25 +128,31 @@ public class EnrichmentLookupPlugin extends SpinePlugin {
             @Override
             public void execute(Task task) {
                 findEnrichmentsAndWriteProps(getMainTargetGenResourcesDir(project),
-                                             getMainDescriptorSetPath(project));
+                                             getMainDescriptorSetPath(project),
+                                             getLockDir(project));
             }
         };
     }
 
-    private static void findEnrichmentsAndWriteProps(
+    @VisibleForTesting // otherwise it would have been private
+    static void findEnrichmentsAndWriteProps(
             // It's important to have a self-explanatory name for this variable.
             @SuppressWarnings("MethodParameterNamingConvention") String targetGeneratedResourcesDir,
-            String descriptorSetPath) {
+            String descriptorSetPath,
+            String lockDir) {
         log().debug("Enrichment lookup started");
 
         final Map<String, String> propsMap = newHashMap();
         final DescriptorSetUtil.IsNotGoogleProto protoFilter =
                 new DescriptorSetUtil.IsNotGoogleProto();
-        final Collection<FileDescriptorProto> files = getProtoFileDescriptors(descriptorSetPath,
-                                                                              protoFilter);
-        for (FileDescriptorProto file : files) {
-            final Map<String, String> enrichments = new EnrichmentsFinder(file).findEnrichments();
-            propsMap.putAll(enrichments);
+        final Collection<FileDescriptorProto> allFiles = getProtoFileDescriptors(descriptorSetPath);
+        final MessageTypeIndex typeIndex = MessageTypeIndex.of(allFiles);
+        for (FileDescriptorProto file : allFiles) {
+            if (protoFilter.apply(file)) {
+                final Map<String, String> enrichments =
+                        new EnrichmentsFinder(file, typeIndex).findEnrichments();
+                propsMap.putAll(enrichments);
+            }
         }
         if (propsMap.isEmpty()) {
             log().debug("Enrichment lookup complete. No enrichments found.");
@@ -133,12 +162,49 @@ public class EnrichmentLookupPlugin extends SpinePlugin {
         log().debug("Writing the enrichment description to {}/{}",
                     targetGeneratedResourcesDir, PROPS_FILE_NAME);
         final PropertiesWriter writer =
-                new PropertiesWriter(targetGeneratedResourcesDir, PROPS_FILE_NAME);
-        writer.write(propsMap);
+                new PropertiesWriter(targetGeneratedResourcesDir, PROPS_FILE_NAME, lockDir);
+        final EnrichmentIndexWriter indexWriter =
+                new EnrichmentIndexWriter(targetGeneratedResourcesDir, EnrichmentIndex.FILE_NAME);
+        final Map<String, String> plans = new FieldResolutionPlanner(typeIndex).plan(propsMap);
+        final PropertiesWriter plansWriter =
+                new PropertiesWriter(targetGeneratedResourcesDir, PLANS_FILE_NAME, lockDir);
+        // The index must describe the same enrichments as the merged `.properties` file,
+        // so it is written under the same lock along with the plans.
+        final FileUpdateLock lock = writer.lock();
+        try {
+            writer.write(propsMap);
+            log().debug("Writing the enrichment index to {}/{}",
+                        targetGeneratedResourcesDir, EnrichmentIndex.FILE_NAME);
+            writeIndex(indexWriter, new File(targetGeneratedResourcesDir, PROPS_FILE_NAME));
+
+            // The plans of the previous build are dropped, as the fields they
+            // refer to might have changed.
+            log().debug("Writing the enrichment field resolution plans to {}/{}",
+                        targetGeneratedResourcesDir, PLANS_FILE_NAME);
+            plansWriter.overwrite(plans);
+        } finally {
+            lock.release();
+        }
 
         log().debug("Enrichment lookup complete");
     }
 
+    /**
+     * Writes the index of the enrichments read from the {@code .properties} file.
+     */
+    private static void writeIndex(EnrichmentIndexWriter indexWriter, File propsFile) {
+        try {
+            final PropertiesReader reader = PropertiesReader.open(propsFile);
+            try {
+                indexWriter.write(reader);
+            } finally {
+                reader.close();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read the enrichments from " + propsFile, e);
+        }
+    }
+
     private static Logger log() {
         return LogSingleton.INSTANCE.value;
     }
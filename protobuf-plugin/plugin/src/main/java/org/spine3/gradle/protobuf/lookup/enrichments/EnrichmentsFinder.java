@@ -32,17 +32,17 @@ import org.slf4j.LoggerFactory;
 
 import java.util.AbstractMap;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.regex.Pattern;
 
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.Lists.newLinkedList;
 import static java.lang.String.format;
+import static java.util.Arrays.asList;
 import static java.util.regex.Pattern.compile;
 import static org.spine3.gradle.protobuf.util.UnknownOptions.getUnknownOptionValue;
 import static org.spine3.gradle.protobuf.util.UnknownOptions.hasUnknownOption;
@@ -58,7 +58,7 @@ class EnrichmentsFinder {
     /**
      * The field number of the field option `by` defined in `Spine/core-java`.
      */
-    private static final Long OPTION_NUMBER_ENRICH_BY = 57125L;
+    static final Long OPTION_NUMBER_ENRICH_BY = 57125L;
 
     /**
      * The field number of the message option `enrichment_for` defined in `Spine/core-java`.
@@ -80,8 +80,14 @@ class EnrichmentsFinder {
      * <p>{@code string enrichment_value [(by) = "*.my_event_id"];} tells that this enrichment
      * may have any target event types. That's why an FQN of the target type is replaced by
      * this wildcard option.
+     *
+     * <p>The wildcard is resolved at build time into all the event types, which have
+     * a compatible field with the referenced name.
+     *
+     * @see MessageTypeIndex#findEventsWithField(String, FieldDescriptorProto)
      */
-    private static final String ANY_BY_OPTION_TARGET = "*";
+    static final String ANY_BY_OPTION_TARGET = "*";
+    static final String WILDCARD_PREFIX = ANY_BY_OPTION_TARGET + '.';
     private static final String PIPE_SEPARATOR = "|";
     private static final Pattern PATTERN_SPACE = compile(" ");
     private static final Pattern PATTERN_TARGET_NAME_SEPARATOR = compile(TARGET_NAME_SEPARATOR);
@@ -89,15 +95,19 @@ class EnrichmentsFinder {
 
     private final FileDescriptorProto file;
     private final String packagePrefix;
+    private final MessageTypeIndex typeIndex;
 
     /**
      * Creates a new instance.
      *
-     * @param file a file to search enrichments in
+     * @param file      a file to search enrichments in
+     * @param typeIndex an index of all the known message types used to resolve
+     *                  the wildcard {@code (by)} option values
      */
-    EnrichmentsFinder(FileDescriptorProto file) {
+    EnrichmentsFinder(FileDescriptorProto file, MessageTypeIndex typeIndex) {
         this.file = file;
         this.packagePrefix = file.getPackage() + PROTO_TYPE_SEPARATOR;
+        this.typeIndex = typeIndex;
     }
 
     /**
@@ -120,6 +130,8 @@ class EnrichmentsFinder {
      * Merge duplicate values into a single value for the same key.
      *
      * <p>The values are joined with {@link EnrichmentsFinder#TARGET_NAME_SEPARATOR}.
+     * The event type names are sorted, so the result does not depend on the order
+     * the values were found in.
      *
      * <p>Merging may be required when the wildcard `By` option values are handled,
      * i.e. when processing a single enrichment type as a map key, but multiple target
@@ -129,19 +141,20 @@ class EnrichmentsFinder {
         log().debug("Merging duplicate properties in enrichments.proto");
         final ImmutableMap.Builder<String, String> mergedResult = ImmutableMap.builder();
         for (String key : source.keySet()) {
-            final Set<String> valuesPerKey = source.get(key);
+            final Set<String> valuesPerKey = new TreeSet<>();
+            for (String value : source.get(key)) {
+                valuesPerKey.addAll(asList(PATTERN_TARGET_NAME_SEPARATOR.split(value)));
+            }
             // Empty type name might be present in the values
             // If so, remove it from the set
             valuesPerKey.remove(EMPTY_TYPE_NAME);
-
-            final String mergedValue;
-            if (valuesPerKey.size() > 1) {
-                mergedValue = Joiner.on(TARGET_NAME_SEPARATOR)
-                                    .join(valuesPerKey);
-            } else {
-                mergedValue = valuesPerKey.iterator()
-                                          .next();
+            if (valuesPerKey.isEmpty()) {
+                log().warn("No target events found for the enrichment {}", key);
+                continue;
             }
+
+            final String mergedValue = Joiner.on(TARGET_NAME_SEPARATOR)
+                                             .join(valuesPerKey);
             mergedResult.put(key, mergedValue);
         }
 
@@ -156,11 +169,9 @@ class EnrichmentsFinder {
         if (!entries.isEmpty()) {
             return;
         }
-        final Map<String, String> entryFromField = scanFields(msg);
-        if (entryFromField.size() > 0) {
-            for (Map.Entry<String, String> entry : entryFromField.entrySet()) {
-                put(entry, targetMap);
-            }
+        final Multimap<String, String> entriesFromFields = scanFields(msg);
+        if (!entriesFromFields.isEmpty()) {
+            targetMap.putAll(entriesFromFields);
             return;
         }
         final Map.Entry<String, String> entryFromInnerMsg = scanInnerMessages(msg);
@@ -204,16 +215,22 @@ class EnrichmentsFinder {
         return msgScanResultBuilder.build();
     }
 
-    private Map<String, String> scanFields(DescriptorProto msg) {
+    /**
+     * Finds the target events of the {@code (by)} options of the message fields.
+     *
+     * <p>Each field contributes its own events, so the result may have several values
+     * for the enrichment. They are merged by {@link #mergeDuplicateValues(HashMultimap)}.
+     */
+    private Multimap<String, String> scanFields(DescriptorProto msg) {
         final String msgName = msg.getName();
         log().debug("Scanning fields of message {} for the enrichment annotations", msgName);
-        final Map<String, String> enrichmentsMap = new HashMap<>();
+        final Multimap<String, String> enrichmentsMap = HashMultimap.create();
         for (FieldDescriptorProto field : msg.getFieldList()) {
             if (hasOptionEnrichBy(field)) {
                 final Collection<String> eventNamesFromBy = parseEventNameFromOptBy(field);
                 final Map.Entry<String, String> foundEvents = groupFoundEvents(msgName,
                                                                                eventNamesFromBy,
-                                                                               field.getName());
+                                                                               field);
                 enrichmentsMap.put(foundEvents.getKey(), foundEvents.getValue());
             }
         }
@@ -222,8 +239,9 @@ class EnrichmentsFinder {
 
     private Map.Entry<String, String> groupFoundEvents(String enrichment,
                                                        Collection<String> events,
-                                                       String fieldName) {
-        final Collection<String> eventGroup = new HashSet<>(events.size());
+                                                       FieldDescriptorProto field) {
+        final String fieldName = field.getName();
+        final Collection<String> eventGroup = new TreeSet<>();
         for (String eventName : events) {
             if (eventName == null || eventName.trim()
                                               .isEmpty()) {
@@ -232,9 +250,9 @@ class EnrichmentsFinder {
             log().debug("'by' option found on field {} targeting {}", fieldName, eventName);
 
             if (ANY_BY_OPTION_TARGET.equals(eventName)) {
-                log().debug("Skipping a wildcard event");
-                // Ignore the wildcard By options, as we don't know
-                // the target event type in this case.
+                final Collection<String> wildcardEvents = resolveWildcard(field);
+                log().debug("Wildcard reference resolved to the events: {}", wildcardEvents);
+                eventGroup.addAll(wildcardEvents);
                 continue;
             }
             eventGroup.add(eventName);
@@ -248,6 +266,25 @@ class EnrichmentsFinder {
         return result;
     }
 
+    /**
+     * Finds all the event types, which have a compatible field with the name referenced by
+     * the wildcard {@code (by)} option of the given field.
+     *
+     * <p>A wildcard may be the only value of the option, so the whole option value is
+     * the wildcard reference.
+     */
+    private Collection<String> resolveWildcard(FieldDescriptorProto field) {
+        final String byArgument = getUnknownOptionValue(field, OPTION_NUMBER_ENRICH_BY).trim();
+        final String eventFieldName = byArgument.substring(WILDCARD_PREFIX.length())
+                                                .trim();
+        final Collection<String> result = typeIndex.findEventsWithField(eventFieldName, field);
+        if (result.isEmpty()) {
+            log().warn("No events with the field `{}` found for the wildcard `by` option " +
+                               "of the field {}", eventFieldName, field.getName());
+        }
+        return result;
+    }
+
     @SuppressWarnings("MethodWithMultipleLoops")    // It's fine in this case.
     private Map.Entry<String, String> scanInnerMessages(DescriptorProto msg) {
         log().debug("Scanning inner messages of {} message for the annotations", msg.getName());
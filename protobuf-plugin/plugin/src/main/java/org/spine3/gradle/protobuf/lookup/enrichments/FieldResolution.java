@@ -0,0 +1,177 @@
+/*
+ * Copyright 2017, TeamDev Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.spine3.gradle.protobuf.lookup.enrichments;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Objects;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Describes how a single enrichment field is obtained from an event.
+ *
+ * <p>The resolution is computed at build time out of the {@code (by)} option of the enrichment
+ * field. It holds the event type, the path of the field numbers leading to the source field
+ * in the event message and the kind of the conversion required to turn the source field value
+ * into the enrichment field value.
+ *
+ * <p>The resolutions are written to the {@code .properties} file in the following format:
+ *
+ * <p>{@code ENRICHMENT_TYPE_NAME.FIELD_NUMBER=EVENT_TYPE_NAME/SOURCE_FIELD_PATH/CONVERTER_KIND}
+ *
+ * <p>For example:
+ *
+ * <p>{@code spine.sample.ProjectEnrichment.1=spine.sample.ProjectCreated/1.2/COPY}
+ *
+ * <p>Several resolutions of a single field, which come from the alternatives of the
+ * {@code (by)} option, are separated by commas.
+ *
+ * @see FieldResolutionPlanner
+ */
+public final class FieldResolution {
+
+    private static final char PART_SEPARATOR = '/';
+    private static final char PATH_SEPARATOR = '.';
+    private static final int PART_COUNT = 3;
+
+    private final String eventType;
+    private final ImmutableList<Integer> sourceFieldPath;
+    private final ConverterKind converterKind;
+
+    FieldResolution(String eventType, List<Integer> sourceFieldPath, ConverterKind converterKind) {
+        checkNotNull(eventType);
+        checkArgument(!sourceFieldPath.isEmpty(), "The source field path must not be empty.");
+        checkNotNull(converterKind);
+        this.eventType = eventType;
+        this.sourceFieldPath = ImmutableList.copyOf(sourceFieldPath);
+        this.converterKind = converterKind;
+    }
+
+    /**
+     * Parses the resolution from its {@linkplain #toPropertyValue() property value} form.
+     *
+     * @param value the value to parse
+     * @return the parsed resolution
+     * @throws IllegalArgumentException if the value is malformed
+     */
+    public static FieldResolution parse(String value) {
+        checkNotNull(value);
+        final List<String> parts = Splitter.on(PART_SEPARATOR)
+                                           .splitToList(value);
+        checkArgument(parts.size() == PART_COUNT, "Malformed field resolution: %s", value);
+        final ImmutableList.Builder<Integer> path = ImmutableList.builder();
+        for (String fieldNumber : Splitter.on(PATH_SEPARATOR)
+                                          .split(parts.get(1))) {
+            path.add(Integer.valueOf(fieldNumber));
+        }
+        final ConverterKind converterKind = ConverterKind.valueOf(parts.get(2));
+        return new FieldResolution(parts.get(0), path.build(), converterKind);
+    }
+
+    /**
+     * Obtains the fully-qualified name of the event type to take the value from.
+     */
+    public String getEventType() {
+        return eventType;
+    }
+
+    /**
+     * Obtains the numbers of the fields leading to the source field in the event message.
+     *
+     * <p>The last number is the number of the source field itself. The preceding numbers,
+     * if any, are the numbers of the message fields which contain it.
+     */
+    public ImmutableList<Integer> getSourceFieldPath() {
+        return sourceFieldPath;
+    }
+
+    public ConverterKind getConverterKind() {
+        return converterKind;
+    }
+
+    /**
+     * Converts the resolution into the form used in the {@code .properties} file.
+     */
+    public String toPropertyValue() {
+        final String path = Joiner.on(PATH_SEPARATOR)
+                                  .join(sourceFieldPath);
+        return eventType + PART_SEPARATOR + path + PART_SEPARATOR + converterKind.name();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final FieldResolution other = (FieldResolution) o;
+        return eventType.equals(other.eventType) &&
+               sourceFieldPath.equals(other.sourceFieldPath) &&
+               converterKind == other.converterKind;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(eventType, sourceFieldPath, converterKind);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("eventType", eventType)
+                          .add("sourceFieldPath", sourceFieldPath)
+                          .add("converterKind", converterKind)
+                          .toString();
+    }
+
+    /**
+     * The kind of the conversion of the source field value into the enrichment field value.
+     */
+    public enum ConverterKind {
+
+        /**
+         * The source and the enrichment fields are of the same type,
+         * the value is copied as-is.
+         */
+        COPY,
+
+        /**
+         * Both fields are of scalar types, but the types differ.
+         *
+         * <p>The value is converted using the standard scalar conversion.
+         */
+        SCALAR_CONVERSION,
+
+        /**
+         * At least one of the fields is a message or an enum and the types differ.
+         *
+         * <p>The value is converted by an enrichment function registered at runtime.
+         */
+        FUNCTION
+    }
+}
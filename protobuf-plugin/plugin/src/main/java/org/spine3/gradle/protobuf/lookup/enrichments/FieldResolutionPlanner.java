@@ -0,0 +1,303 @@
+/*
+ * Copyright 2017, TeamDev Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.spine3.gradle.protobuf.lookup.enrichments;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Optional;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.DescriptorProtos.DescriptorProto;
+import com.google.protobuf.DescriptorProtos.FieldDescriptorProto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.spine3.gradle.protobuf.lookup.enrichments.FieldResolution.ConverterKind;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Lists.newLinkedList;
+import static com.google.common.collect.Maps.newHashMap;
+import static com.google.protobuf.DescriptorProtos.FieldDescriptorProto.Type.TYPE_ENUM;
+import static com.google.protobuf.DescriptorProtos.FieldDescriptorProto.Type.TYPE_GROUP;
+import static com.google.protobuf.DescriptorProtos.FieldDescriptorProto.Type.TYPE_MESSAGE;
+import static org.spine3.gradle.protobuf.lookup.enrichments.EnrichmentsFinder.ANY_BY_OPTION_TARGET;
+import static org.spine3.gradle.protobuf.lookup.enrichments.EnrichmentsFinder.OPTION_NUMBER_ENRICH_BY;
+import static org.spine3.gradle.protobuf.lookup.enrichments.EnrichmentsFinder.WILDCARD_PREFIX;
+import static org.spine3.gradle.protobuf.util.UnknownOptions.getUnknownOptionValue;
+
+/**
+ * Resolves the {@code (by)} options of the enrichment fields into {@link FieldResolution}s.
+ *
+ * <p>Each field reference is resolved against the {@link MessageTypeIndex}, so the runtime
+ * can copy the source fields by their numbers without parsing the option values
+ * and without looking up the fields by name.
+ *
+ * <p>A {@code (by)} option value may reference a field in one of the following forms:
+ * <ul>
+ *     <li>{@code EVENT_TYPE_NAME.field_name} — the event type is specified explicitly,
+ *         either by its fully-qualified name or relatively to the enrichment package;
+ *     <li>{@code field_name} — the field belongs to each of the events the enrichment
+ *         is applied to;
+ *     <li>{@code *.field_name} — the field belongs to any event, which has a compatible
+ *         field with such a name.
+ * </ul>
+ *
+ * <p>The field name may be a path of several dot-separated names, if the source field
+ * is nested into a message field of the event.
+ */
+class FieldResolutionPlanner {
+
+    private static final char PROTO_TYPE_SEPARATOR = '.';
+    private static final String RESOLUTION_SEPARATOR = ",";
+    private static final Splitter ALTERNATIVE_SPLITTER = Splitter.on('|')
+                                                                 .trimResults()
+                                                                 .omitEmptyStrings();
+    private static final Splitter EVENT_NAME_SPLITTER = Splitter.on(',')
+                                                                .trimResults()
+                                                                .omitEmptyStrings();
+    private static final Splitter FIELD_PATH_SPLITTER = Splitter.on(PROTO_TYPE_SEPARATOR);
+
+    private final MessageTypeIndex index;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param index the index of all the message types known to the build
+     */
+    FieldResolutionPlanner(MessageTypeIndex index) {
+        this.index = index;
+    }
+
+    /**
+     * Creates the resolution plans for the fields of the given enrichments.
+     *
+     * @param enrichments a map from enrichment type name to the comma-separated names
+     *                    of the event types to enrich, as found by {@link EnrichmentsFinder}
+     * @return a map from {@code ENRICHMENT_TYPE_NAME.FIELD_NUMBER} to the comma-separated
+     * {@linkplain FieldResolution#toPropertyValue() field resolutions}
+     */
+    Map<String, String> plan(Map<String, String> enrichments) {
+        log().debug("Resolving the enrichment fields of {} enrichments", enrichments.size());
+        final Map<String, String> result = newHashMap();
+        for (Map.Entry<String, String> entry : enrichments.entrySet()) {
+            final String enrichmentType = entry.getKey();
+            final List<String> events = EVENT_NAME_SPLITTER.splitToList(entry.getValue());
+            planEnrichment(enrichmentType, events, result);
+        }
+        log().debug("Resolved {} enrichment fields", result.size());
+        return result;
+    }
+
+    private void planEnrichment(String enrichmentType,
+                                Collection<String> events,
+                                Map<String, String> result) {
+        final Optional<DescriptorProto> enrichment = index.find(enrichmentType);
+        if (!enrichment.isPresent()) {
+            log().warn("Enrichment type {} is not found in the descriptor set.",
+                       enrichmentType);
+            return;
+        }
+        final String protoPackage = index.getPackage(enrichmentType)
+                                         .get();
+        final String packagePrefix = protoPackage.isEmpty()
+                                     ? ""
+                                     : protoPackage + PROTO_TYPE_SEPARATOR;
+        for (FieldDescriptorProto field : enrichment.get()
+                                                    .getFieldList()) {
+            final String byArgument = getUnknownOptionValue(field, OPTION_NUMBER_ENRICH_BY);
+            if (byArgument == null) {
+                continue;
+            }
+            final List<FieldResolution> resolutions = resolveField(field, byArgument,
+                                                                   events, packagePrefix);
+            if (resolutions.isEmpty()) {
+                log().warn("Cannot resolve the `by` option value `{}` of the field {}.{}",
+                           byArgument, enrichmentType, field.getName());
+                continue;
+            }
+            final List<String> values = newLinkedList();
+            for (FieldResolution resolution : resolutions) {
+                values.add(resolution.toPropertyValue());
+            }
+            final String key = enrichmentType + PROTO_TYPE_SEPARATOR + field.getNumber();
+            result.put(key, Joiner.on(RESOLUTION_SEPARATOR)
+                                  .join(values));
+        }
+    }
+
+    private List<FieldResolution> resolveField(FieldDescriptorProto field,
+                                               String byArgument,
+                                               Collection<String> events,
+                                               String packagePrefix) {
+        final List<FieldResolution> result = newLinkedList();
+        for (String reference : ALTERNATIVE_SPLITTER.split(byArgument)) {
+            if (reference.startsWith(ANY_BY_OPTION_TARGET)) {
+                result.addAll(resolveWildcard(reference, field));
+                continue;
+            }
+            final FieldReference fieldReference = parseReference(reference, packagePrefix);
+            final Collection<String> sourceEvents = fieldReference.eventType.isPresent()
+                    ? ImmutableList.of(fieldReference.eventType.get())
+                    : events;
+            for (String event : sourceEvents) {
+                final Optional<FieldResolution> resolution =
+                        resolve(event, fieldReference.fieldPath, field);
+                if (resolution.isPresent()) {
+                    result.add(resolution.get());
+                } else {
+                    log().debug("Field {} is not found in the event {}",
+                                fieldReference.fieldPath, event);
+                }
+            }
+        }
+        return result;
+    }
+
+    private List<FieldResolution> resolveWildcard(String reference,
+                                                  FieldDescriptorProto field) {
+        final String fieldName = reference.substring(WILDCARD_PREFIX.length())
+                                          .trim();
+        final List<FieldResolution> result = newLinkedList();
+        for (String event : index.findEventsWithField(fieldName, field)) {
+            final Optional<FieldResolution> resolution = resolve(event, fieldName, field);
+            if (resolution.isPresent()) {
+                result.add(resolution.get());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Splits the field reference into the event type name and the field path.
+     *
+     * <p>The longest prefix of the reference, which is a known message type, is treated
+     * as the event type name. If there is no such prefix, the whole reference is
+     * the field path.
+     */
+    private FieldReference parseReference(String reference, String packagePrefix) {
+        int separatorIndex = reference.lastIndexOf(PROTO_TYPE_SEPARATOR);
+        while (separatorIndex > 0) {
+            final String typeName = reference.substring(0, separatorIndex);
+            final String fieldPath = reference.substring(separatorIndex + 1);
+            if (index.contains(typeName)) {
+                return new FieldReference(typeName, fieldPath);
+            }
+            final String relativeTypeName = packagePrefix + typeName;
+            if (index.contains(relativeTypeName)) {
+                return new FieldReference(relativeTypeName, fieldPath);
+            }
+            separatorIndex = reference.lastIndexOf(PROTO_TYPE_SEPARATOR, separatorIndex - 1);
+        }
+        return new FieldReference(null, reference);
+    }
+
+    /**
+     * Walks the field path through the event message and its nested message fields.
+     *
+     * @return the resolution or {@code Optional.absent()} if the path cannot be resolved
+     */
+    private Optional<FieldResolution> resolve(String eventType,
+                                              String fieldPath,
+                                              FieldDescriptorProto enrichmentField) {
+        Optional<DescriptorProto> message = index.find(eventType);
+        final List<Integer> fieldNumbers = newArrayList();
+        FieldDescriptorProto sourceField = null;
+        final Iterator<String> fieldNames = FIELD_PATH_SPLITTER.split(fieldPath)
+                                                               .iterator();
+        while (fieldNames.hasNext()) {
+            if (!message.isPresent()) {
+                return Optional.absent();
+            }
+            sourceField = findField(message.get(), fieldNames.next());
+            if (sourceField == null) {
+                return Optional.absent();
+            }
+            fieldNumbers.add(sourceField.getNumber());
+            if (fieldNames.hasNext()) {
+                if (sourceField.getType() != TYPE_MESSAGE) {
+                    return Optional.absent();
+                }
+                message = index.find(sourceField.getTypeName());
+            }
+        }
+        final ConverterKind converterKind = converterKind(sourceField, enrichmentField);
+        final FieldResolution result = new FieldResolution(eventType,
+                                                           fieldNumbers,
+                                                           converterKind);
+        return Optional.of(result);
+    }
+
+    private static FieldDescriptorProto findField(DescriptorProto message, String fieldName) {
+        for (FieldDescriptorProto field : message.getFieldList()) {
+            if (field.getName()
+                     .equals(fieldName)) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    private static ConverterKind converterKind(FieldDescriptorProto source,
+                                               FieldDescriptorProto target) {
+        final boolean sameCardinality = source.getLabel() == target.getLabel();
+        final boolean sameType = source.getType() == target.getType() &&
+                                 source.getTypeName()
+                                       .equals(target.getTypeName());
+        if (sameCardinality && sameType) {
+            return ConverterKind.COPY;
+        }
+        if (sameCardinality && isScalar(source) && isScalar(target)) {
+            return ConverterKind.SCALAR_CONVERSION;
+        }
+        return ConverterKind.FUNCTION;
+    }
+
+    private static boolean isScalar(FieldDescriptorProto field) {
+        final FieldDescriptorProto.Type type = field.getType();
+        return type != TYPE_MESSAGE && type != TYPE_ENUM && type != TYPE_GROUP;
+    }
+
+    /**
+     * A parsed {@code (by)} option reference.
+     */
+    private static class FieldReference {
+
+        private final Optional<String> eventType;
+        private final String fieldPath;
+
+        private FieldReference(String eventType, String fieldPath) {
+            this.eventType = Optional.fromNullable(eventType);
+            this.fieldPath = fieldPath;
+        }
+    }
+
+    private static Logger log() {
+        return LoggerSingleton.INSTANCE.logger;
+    }
+
+    private enum LoggerSingleton {
+        INSTANCE;
+        @SuppressWarnings("NonSerializableFieldInSerializableClass")
+        private final Logger logger = LoggerFactory.getLogger(FieldResolutionPlanner.class);
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2017, TeamDev Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.spine3.gradle.protobuf.lookup.enrichments;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.LinkedListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.protobuf.DescriptorProtos.DescriptorProto;
+import com.google.protobuf.DescriptorProtos.FieldDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.collect.Maps.newHashMap;
+import static com.google.protobuf.DescriptorProtos.FieldDescriptorProto.Type.TYPE_ENUM;
+import static com.google.protobuf.DescriptorProtos.FieldDescriptorProto.Type.TYPE_GROUP;
+import static com.google.protobuf.DescriptorProtos.FieldDescriptorProto.Type.TYPE_MESSAGE;
+
+/**
+ * An index of all the message types declared in a descriptor set.
+ *
+ * <p>Allows to resolve message type references, which are found in the enrichment options,
+ * without scanning the descriptors repeatedly.
+ *
+ * <p>The top-level messages declared in the files, which names end with
+ * {@code events.proto}, are treated as events. Their fields are indexed by name
+ * to resolve the wildcard {@code (by)} option references.
+ */
+class MessageTypeIndex {
+
+    private static final char PROTO_TYPE_SEPARATOR = '.';
+    private static final String EVENTS_FILE_SUFFIX = "events.proto";
+
+    /** A map from the fully-qualified message type name to the message descriptor. */
+    private final Map<String, DescriptorProto> messages = newHashMap();
+
+    /** A map from the fully-qualified message type name to the Protobuf package of the type. */
+    private final Map<String, String> packages = newHashMap();
+
+    /** A map from the field name to the event fields with such a name. */
+    private final ListMultimap<String, EventField> eventFields = LinkedListMultimap.create();
+
+    private MessageTypeIndex() {
+    }
+
+    /**
+     * Creates an index of the message types declared in the given files.
+     *
+     * @param files all the files of the descriptor set, including the imported ones
+     * @return new index
+     */
+    static MessageTypeIndex of(Iterable<FileDescriptorProto> files) {
+        final MessageTypeIndex result = new MessageTypeIndex();
+        for (FileDescriptorProto file : files) {
+            final String protoPackage = file.getPackage();
+            final String prefix = protoPackage.isEmpty()
+                                  ? ""
+                                  : protoPackage + PROTO_TYPE_SEPARATOR;
+            final boolean isEventsFile = file.getName()
+                                             .endsWith(EVENTS_FILE_SUFFIX);
+            for (DescriptorProto msg : file.getMessageTypeList()) {
+                result.put(msg, prefix, protoPackage);
+                if (isEventsFile) {
+                    result.putEventFields(prefix + msg.getName(), msg);
+                }
+            }
+        }
+        log().debug("Indexed {} message types and {} event fields",
+                    result.messages.size(), result.eventFields.size());
+        return result;
+    }
+
+    private void put(DescriptorProto msg, String prefix, String protoPackage) {
+        final String typeName = prefix + msg.getName();
+        messages.put(typeName, msg);
+        packages.put(typeName, protoPackage);
+        final String nestedPrefix = typeName + PROTO_TYPE_SEPARATOR;
+        for (DescriptorProto nested : msg.getNestedTypeList()) {
+            put(nested, nestedPrefix, protoPackage);
+        }
+    }
+
+    private void putEventFields(String eventType, DescriptorProto event) {
+        for (FieldDescriptorProto field : event.getFieldList()) {
+            eventFields.put(field.getName(), new EventField(eventType, field));
+        }
+    }
+
+    /**
+     * Finds the events, which have a field with the given name, compatible with
+     * the given enrichment field.
+     *
+     * <p>A field is compatible if it has the same cardinality and the same type as
+     * the enrichment field, so the value of such a field can be copied as is. For message
+     * and enum fields, the names of the field types must match as well.
+     *
+     * @param fieldName       the name of the event field
+     * @param enrichmentField the field of the enrichment to obtain the value for
+     * @return the names of the event types in the order of their declaration
+     */
+    List<String> findEventsWithField(String fieldName, FieldDescriptorProto enrichmentField) {
+        final ImmutableList.Builder<String> result = ImmutableList.builder();
+        for (EventField eventField : eventFields.get(fieldName)) {
+            final FieldDescriptorProto field = eventField.field;
+            if (isCompatible(field, enrichmentField)) {
+                result.add(eventField.eventType);
+            }
+        }
+        return result.build();
+    }
+
+    private static boolean isCompatible(FieldDescriptorProto eventField,
+                                        FieldDescriptorProto enrichmentField) {
+        final FieldDescriptorProto.Type type = eventField.getType();
+        if (type == TYPE_GROUP
+                || type != enrichmentField.getType()
+                || eventField.getLabel() != enrichmentField.getLabel()) {
+            return false;
+        }
+        final boolean hasTypeName = type == TYPE_MESSAGE || type == TYPE_ENUM;
+        final boolean result = !hasTypeName
+                || normalize(eventField.getTypeName())
+                        .equals(normalize(enrichmentField.getTypeName()));
+        return result;
+    }
+
+    /**
+     * Finds the message type by its name.
+     *
+     * <p>The name may start with a dot, as the type references in the field descriptors do.
+     *
+     * @param typeName the fully-qualified name of the message type
+     * @return the descriptor of the type or {@code Optional.absent()} if there is no such type
+     */
+    Optional<DescriptorProto> find(String typeName) {
+        final DescriptorProto result = messages.get(normalize(typeName));
+        return Optional.fromNullable(result);
+    }
+
+    /**
+     * Checks if there is a message type with the given name.
+     */
+    boolean contains(String typeName) {
+        return messages.containsKey(normalize(typeName));
+    }
+
+    /**
+     * Obtains the Protobuf package the given message type is declared in.
+     *
+     * @return the package name or {@code Optional.absent()} if there is no such type
+     */
+    Optional<String> getPackage(String typeName) {
+        final String result = packages.get(normalize(typeName));
+        return Optional.fromNullable(result);
+    }
+
+    private static String normalize(String typeName) {
+        final String result = !typeName.isEmpty() && typeName.charAt(0) == PROTO_TYPE_SEPARATOR
+                              ? typeName.substring(1)
+                              : typeName;
+        return result;
+    }
+
+    /**
+     * A field declared in an event message.
+     */
+    private static class EventField {
+
+        private final String eventType;
+        private final FieldDescriptorProto field;
+
+        private EventField(String eventType, FieldDescriptorProto field) {
+            this.eventType = eventType;
+            this.field = field;
+        }
+    }
+
+    private static Logger log() {
+        return LoggerSingleton.INSTANCE.logger;
+    }
+
+    private enum LoggerSingleton {
+        INSTANCE;
+        @SuppressWarnings("NonSerializableFieldInSerializableClass")
+        private final Logger logger = LoggerFactory.getLogger(MessageTypeIndex.class);
+    }
+}
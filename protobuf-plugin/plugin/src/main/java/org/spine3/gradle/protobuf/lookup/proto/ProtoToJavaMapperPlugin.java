@@ -39,6 +39,7 @@ import static org.spine3.gradle.TaskName.MAP_PROTO_TO_JAVA;
 import static org.spine3.gradle.TaskName.MAP_TEST_PROTO_TO_JAVA;
 import static org.spine3.gradle.TaskName.PROCESS_RESOURCES;
 import static org.spine3.gradle.TaskName.PROCESS_TEST_RESOURCES;
+import static org.spine3.gradle.protobuf.Extension.getLockDir;
 import static org.spine3.gradle.protobuf.Extension.getMainDescriptorSetPath;
 import static org.spine3.gradle.protobuf.Extension.getMainTargetGenResourcesDir;
 import static org.spine3.gradle.protobuf.Extension.getTestDescriptorSetPath;
@@ -96,7 +97,8 @@ public class ProtoToJavaMapperPlugin extends SpinePlugin {
             @Override
             public void execute(Task task) {
                 mapProtoToJavaAndWriteProps(getTestTargetGenResourcesDir(project),
-                                            getTestDescriptorSetPath(project));
+                                            getTestDescriptorSetPath(project),
+                                            getLockDir(project));
             }
         };
     }
@@ -107,14 +109,16 @@ public class ProtoToJavaMapperPlugin extends SpinePlugin {
             @Override
             public void execute(Task task) {
                 mapProtoToJavaAndWriteProps(getMainTargetGenResourcesDir(project),
-                                            getMainDescriptorSetPath(project));
+                                            getMainDescriptorSetPath(project),
+                                            getLockDir(project));
             }
         };
     }
 
     @SuppressWarnings("MethodParameterNamingConvention")
     private static void mapProtoToJavaAndWriteProps(String targetGeneratedResourcesDir,
-                                                    String descriptorSetPath) {
+                                                    String descriptorSetPath,
+                                                    String lockDir) {
         final Map<String, String> propsMap = newHashMap();
         final Collection<FileDescriptorProto> files =
                 getProtoFileDescriptors(descriptorSetPath, new IsNotGoogleProto());
@@ -133,7 +137,8 @@ public class ProtoToJavaMapperPlugin extends SpinePlugin {
         log().debug("Saving proto-to-java mapping: {}", files);
 
         final PropertiesWriter writer = new PropertiesWriter(targetGeneratedResourcesDir,
-                                                             PROPERTIES_FILE_NAME);
+                                                             PROPERTIES_FILE_NAME,
+                                                             lockDir);
         writer.write(propsMap);
     }
 
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2017, TeamDev Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.spine3.gradle.protobuf.util;
+
+import com.google.common.collect.MapMaker;
+import com.google.common.io.Files;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An exclusive lock guarding the read-modify-write of a file.
+ *
+ * <p>The lock is held both within the current JVM (e.g. between the projects of a build
+ * executed with {@code --parallel}) and across the processes running on the same machine.
+ *
+ * <p>The OS-level lock is taken on a separate lock file, since the guarded file itself is
+ * replaced on update. The lock file is not deleted after the update: a process waiting for
+ * the lock on a deleted file would not notice that another process has created the lock
+ * file anew. So the lock file should be kept out of the directories, which are packaged
+ * or published.
+ *
+ * <p>The lock is reentrant: the thread holding it may acquire it again, e.g. to update
+ * a file under the lock guarding the files derived from it. Each acquisition must be
+ * released.
+ */
+public final class FileUpdateLock {
+
+    /**
+     * The in-JVM locks by the canonical path of the lock file.
+     *
+     * <p>The values are weak, so a lock is dropped once no thread holds or waits for it.
+     */
+    private static final ConcurrentMap<String, ReentrantLock> jvmLocks =
+            new MapMaker().weakValues()
+                          .makeMap();
+
+    private final ReentrantLock jvmLock;
+
+    /**
+     * The opened lock file or {@code null} if the lock is acquired again by the thread
+     * holding it.
+     */
+    private final RandomAccessFile lockFile;
+
+    /**
+     * The OS-level lock or {@code null} if the lock is acquired again by the thread
+     * holding it.
+     */
+    private final FileLock fileLock;
+
+    private FileUpdateLock(ReentrantLock jvmLock, RandomAccessFile lockFile, FileLock fileLock) {
+        this.jvmLock = jvmLock;
+        this.lockFile = lockFile;
+        this.fileLock = fileLock;
+    }
+
+    /**
+     * Blocks until the exclusive lock on the given lock file is acquired.
+     *
+     * <p>The lock file and its parent directories are created if they do not exist.
+     *
+     * @param file the lock file shared by all the updaters of the guarded file
+     * @return the acquired lock, which must be {@linkplain #release() released}
+     *         after the update
+     */
+    public static FileUpdateLock acquire(File file) {
+        final String path = canonicalPath(file);
+        final ReentrantLock jvmLock = jvmLockFor(path);
+        jvmLock.lock();
+        if (jvmLock.getHoldCount() > 1) {
+            // The OS-level lock is already held by the current thread.
+            return new FileUpdateLock(jvmLock, null, null);
+        }
+        try {
+            Files.createParentDirs(file);
+            final RandomAccessFile lockFile = new RandomAccessFile(file, "rw");
+            try {
+                final FileChannel channel = lockFile.getChannel();
+                final FileLock fileLock = channel.lock();
+                return new FileUpdateLock(jvmLock, lockFile, fileLock);
+            } catch (IOException | RuntimeException e) {
+                lockFile.close();
+                throw e;
+            }
+        } catch (IOException e) {
+            jvmLock.unlock();
+            throw new IllegalStateException("Cannot lock the file " + path, e);
+        } catch (RuntimeException e) {
+            jvmLock.unlock();
+            throw e;
+        }
+    }
+
+    /**
+     * Releases the lock.
+     */
+    public void release() {
+        try {
+            if (fileLock != null) {
+                fileLock.release();
+                lockFile.close();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot release the file lock.", e);
+        } finally {
+            jvmLock.unlock();
+        }
+    }
+
+    private static ReentrantLock jvmLockFor(String path) {
+        final ReentrantLock newLock = new ReentrantLock();
+        final ReentrantLock existingLock = jvmLocks.putIfAbsent(path, newLock);
+        return existingLock == null
+               ? newLock
+               : existingLock;
+    }
+
+    private static String canonicalPath(File file) {
+        try {
+            return file.getCanonicalPath();
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot resolve the path of " + file, e);
+        }
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2017, TeamDev Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.spine3.gradle.protobuf.util;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Maps;
+import com.google.common.io.Files;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Reads the entries of a {@code .properties} file one by one.
+ *
+ * <p>Unlike {@link java.util.Properties#load(java.io.Reader) Properties.load()}, this reader
+ * does not keep the read entries in memory, which allows to process files of any size.
+ *
+ * <p>The entries are returned in the order of their appearance in the file. The syntax
+ * supported is the one of the {@link java.util.Properties Properties} class: comments,
+ * line continuations, the {@code =}, {@code :} and whitespace key-value separators
+ * and escape sequences, including the {@code \\uxxxx} ones.
+ *
+ * <p>The reader must be {@linkplain #close() closed} after use.
+ */
+public final class PropertiesReader extends AbstractIterator<Map.Entry<String, String>>
+        implements Closeable {
+
+    private static final char ESCAPE = '\\';
+
+    private final BufferedReader reader;
+
+    private PropertiesReader(BufferedReader reader) {
+        super();
+        this.reader = reader;
+    }
+
+    /**
+     * Opens the {@code .properties} file for reading.
+     *
+     * @param file the file to read, which is encoded in ISO 8859-1
+     * @return the reader of the file entries
+     * @throws IOException if the file cannot be opened
+     */
+    public static PropertiesReader open(File file) throws IOException {
+        return new PropertiesReader(Files.newReader(file, Charsets.ISO_8859_1));
+    }
+
+    @Override
+    protected Map.Entry<String, String> computeNext() {
+        final String line;
+        try {
+            line = readLogicalLine();
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read the properties.", e);
+        }
+        if (line == null) {
+            return endOfData();
+        }
+        final Map.Entry<String, String> result = parseEntry(line);
+        return result;
+    }
+
+    /**
+     * Reads the next non-blank and non-comment line joining the continuation lines.
+     *
+     * @return the logical line or {@code null} if the end of the stream is reached
+     */
+    private String readLogicalLine() throws IOException {
+        StringBuilder logicalLine = null;
+        String physicalLine;
+        while ((physicalLine = reader.readLine()) != null) {
+            final String line = stripLeadingWhitespace(physicalLine);
+            if (logicalLine == null) {
+                if (line.isEmpty() || isComment(line)) {
+                    continue;
+                }
+                logicalLine = new StringBuilder(line.length());
+            }
+            if (endsWithContinuation(line)) {
+                logicalLine.append(line, 0, line.length() - 1);
+            } else {
+                logicalLine.append(line);
+                return logicalLine.toString();
+            }
+        }
+        return logicalLine == null
+               ? null
+               : logicalLine.toString();
+    }
+
+    private static Map.Entry<String, String> parseEntry(String line) {
+        final int length = line.length();
+        int keyLength = 0;
+        int valueStart = length;
+        boolean hasSeparator = false;
+        boolean precedingBackslash = false;
+        while (keyLength < length) {
+            final char c = line.charAt(keyLength);
+            if (!precedingBackslash) {
+                if (c == '=' || c == ':') {
+                    valueStart = keyLength + 1;
+                    hasSeparator = true;
+                    break;
+                }
+                if (isWhitespace(c)) {
+                    valueStart = keyLength + 1;
+                    break;
+                }
+            }
+            precedingBackslash = c == ESCAPE && !precedingBackslash;
+            keyLength++;
+        }
+        while (valueStart < length) {
+            final char c = line.charAt(valueStart);
+            if (!isWhitespace(c)) {
+                if (hasSeparator || (c != '=' && c != ':')) {
+                    break;
+                }
+                hasSeparator = true;
+            }
+            valueStart++;
+        }
+        final String key = unescape(line.substring(0, keyLength));
+        final String value = unescape(line.substring(valueStart));
+        return Maps.immutableEntry(key, value);
+    }
+
+    private static String unescape(String escaped) {
+        if (escaped.indexOf(ESCAPE) < 0) {
+            return escaped;
+        }
+        final int length = escaped.length();
+        final StringBuilder result = new StringBuilder(length);
+        int index = 0;
+        while (index < length) {
+            char c = escaped.charAt(index++);
+            if (c == ESCAPE) {
+                if (index == length) {
+                    break;
+                }
+                c = escaped.charAt(index++);
+                if (c == 'u') {
+                    if (index + 4 > length) {
+                        throw new IllegalArgumentException("Malformed \\uxxxx encoding.");
+                    }
+                    final String code = escaped.substring(index, index + 4);
+                    try {
+                        c = (char) Integer.parseInt(code, 16);
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Malformed \\uxxxx encoding.", e);
+                    }
+                    index += 4;
+                } else if (c == 't') {
+                    c = '\t';
+                } else if (c == 'r') {
+                    c = '\r';
+                } else if (c == 'n') {
+                    c = '\n';
+                } else if (c == 'f') {
+                    c = '\f';
+                }
+            }
+            result.append(c);
+        }
+        return result.toString();
+    }
+
+    private static String stripLeadingWhitespace(String line) {
+        int start = 0;
+        while (start < line.length() && isWhitespace(line.charAt(start))) {
+            start++;
+        }
+        return line.substring(start);
+    }
+
+    private static boolean endsWithContinuation(String line) {
+        int backslashes = 0;
+        int index = line.length() - 1;
+        while (index >= 0 && line.charAt(index) == ESCAPE) {
+            backslashes++;
+            index--;
+        }
+        return backslashes % 2 == 1;
+    }
+
+    private static boolean isComment(String line) {
+        final char first = line.charAt(0);
+        return first == '#' || first == '!';
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\f';
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -19,30 +19,53 @@
  */
 package org.spine3.gradle.protobuf.util;
 
+import com.google.common.base.Charsets;
 import com.google.common.io.Files;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.spine3.gradle.FileUtil;
 
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
 import java.util.Collections;
-import java.util.Enumeration;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Properties;
-import java.util.TreeSet;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 /**
  * A utility class for writing to {@code .properties} file.
  *
+ * <p>The entries are written sorted by their keys. Unlike
+ * {@link Properties#store(java.io.OutputStream, String) Properties.store()}, no timestamp
+ * comment is written and the lines are always separated with {@code \n}, so the same
+ * entries always produce the same bytes, regardless of the time or the platform.
+ *
+ * <p>The new entries are merged with the contents of the existing file in a single pass
+ * without loading the file into memory. If the existing file turns out to be unsorted
+ * (e.g. it was edited manually), it is merged in memory instead.
+ *
+ * <p>The update of the file is guarded by a lock, so the writers from different threads
+ * and processes sharing the same file do not lose each other's entries. The lock file is
+ * kept in a separate directory, so it does not get into the output along with
+ * the written file. The lock file is named after the written file, so the writers of
+ * the files with the same name in different directories merely wait for each other.
+ *
  * @author Alexander Litus, Alex Tymchenko
  */
 public class PropertiesWriter {
 
+    private static final String LOCK_FILE_SUFFIX = ".lock";
+    private static final char LINE_SEPARATOR = '\n';
+    private static final String HEX_DIGITS = "0123456789ABCDEF";
+
     private final String propsFilePath;
-    private final String rootDirPath;
+    private final String lockFilePath;
 
     /**
      * Creates a new instance.
@@ -50,103 +73,289 @@ public class PropertiesWriter {
      * @param rootDirPath   a path to a directory where the {@code .properties} file is
      *                      (or will be) located
      * @param propsFileName a name of the {@code .properties} file to write to (can be non-existing)
+     * @param lockDirPath   a path to a directory to keep the file locking the updates in
      */
-    public PropertiesWriter(String rootDirPath, String propsFileName) {
-        this.rootDirPath = rootDirPath;
+    public PropertiesWriter(String rootDirPath, String propsFileName, String lockDirPath) {
         this.propsFilePath = rootDirPath + File.separator + propsFileName;
+        this.lockFilePath = lockDirPath + File.separator + propsFileName + LOCK_FILE_SUFFIX;
     }
 
     /**
      * Updates the {@code .properties} file rewriting its contents if it already exists.
      *
+     * <p>The entries already present in the file are kept. If the file has an entry with
+     * the same key and a different value, the new value is not set.
+     *
      * @param propertiesMap a map containing properties to write to the file
      */
     public void write(Map<String, String> propertiesMap) {
-        log().debug("Preparing properties file {}", propsFilePath);
-        final File rootDir = new File(rootDirPath);
-        createParentFolders(rootDir);
+        update(propertiesMap, true);
+    }
+
+    /**
+     * Replaces the contents of the {@code .properties} file with the given entries.
+     *
+     * <p>Unlike {@link #write(Map)}, drops the entries already present in the file.
+     *
+     * @param propertiesMap a map containing properties to write to the file
+     */
+    public void overwrite(Map<String, String> propertiesMap) {
+        update(propertiesMap, false);
+    }
 
-        final Properties props = new SortedProperties();
+    private void update(Map<String, String> propertiesMap, boolean keepExisting) {
+        log().debug("Preparing properties file {}", propsFilePath);
         final File file = new File(propsFilePath);
-        prepareTargetFile(props, file);
+        createParentFolders(file);
 
+        final SortedMap<String, String> newEntries = sorted(propertiesMap);
         log().debug(
-                "Preparing properties (size is {}). Enable more verbose logging for more info.",
-                propertiesMap.size());
-        for (Map.Entry<String, String> entry : propertiesMap.entrySet()) {
-            final String key = entry.getKey();
-            final String value = entry.getValue();
-            if (!props.containsKey(key)) {
-                props.setProperty(key, value);
-            } else {
-                final String currentValue = props.getProperty(key);
-                if (!currentValue.equals(value)) {
-                    log().warn("Entry with the key `{}` already exists. Value: `{}`." +
-                                       " New value `{}` was not set.", key, currentValue, value);
-                }
-            }
+                "Merging properties (size is {}). Enable more verbose logging for more info.",
+                newEntries.size());
+        final FileUpdateLock lock = lock();
+        try {
+            mergeAndReplace(file, newEntries, keepExisting);
+        } finally {
+            lock.release();
         }
-        log().debug("Preparing properties complete. Size is {}.", props.size());
-        log().debug("Prepared properties: {}", props);
+    }
 
+    /**
+     * Acquires the lock guarding the updates of the {@code .properties} file.
+     *
+     * <p>The lock may be held by the caller to update the files derived from
+     * the {@code .properties} file along with it. The lock is reentrant, so
+     * the {@code .properties} file may be {@linkplain #write(Map) written} meanwhile.
+     *
+     * @return the acquired lock, which must be {@linkplain FileUpdateLock#release() released}
+     *         after the update
+     */
+    public FileUpdateLock lock() {
+        return FileUpdateLock.acquire(new File(lockFilePath));
+    }
+
+    /**
+     * Writes the merged contents to a temporary file and then moves it in place of
+     * the target file.
+     *
+     * <p>The target file is replaced atomically where the file system supports it,
+     * so the readers never observe a partially written file.
+     *
+     * @param keepExisting whether the entries of the target file are merged or dropped
+     */
+    private void mergeAndReplace(File file,
+                                 SortedMap<String, String> newEntries,
+                                 boolean keepExisting) {
+        final File mergedFile = FileUtil.createTempFile(file);
         try {
+            final boolean merged = keepExisting
+                                   ? mergeStreaming(file, newEntries, mergedFile)
+                                   : merge(noEntries(), newEntries, mergedFile);
+            if (!merged) {
+                log().debug("The file {} is not sorted. Merging it in memory.", propsFilePath);
+                mergeInMemory(file, newEntries, mergedFile);
+            }
             log().debug("Writing properties file {}", propsFilePath);
-            final FileWriter outFileWriter = new FileWriter(file);
-            final BufferedWriter bufferedWriter = new BufferedWriter(outFileWriter);
-            props.store(bufferedWriter, /*comments=*/null);
-            bufferedWriter.close();
+            FileUtil.replace(mergedFile, file);
             log().debug("Properties file written successfully");
         } catch (IOException e) {
             throw new RuntimeException(e);
+        } finally {
+            if (mergedFile.exists() && !mergedFile.delete()) {
+                log().warn("Cannot delete the temporary file {}", mergedFile.getAbsolutePath());
+            }
         }
     }
 
-    private static void prepareTargetFile(Properties props, File file) {
-        log().debug("Preparing the target file");
-        if (file.exists()) {
-            try {
-                final FileInputStream fis = new FileInputStream(file);
-                props.load(fis);
-            } catch (@SuppressWarnings("OverlyBroadCatchBlock") IOException e) {
-                final String errMsg = "Error loading the properties from the file: ";
-                throw new RuntimeException(errMsg +
-                                                   file.getAbsolutePath(), e);
-            }
-        } else {
-            createParentFolders(file);
+    /**
+     * Merges the contents of the target file, which is expected to be sorted, with
+     * the new entries.
+     *
+     * @return {@code true} if the file was merged, {@code false} if the target file
+     *         is not sorted
+     */
+    private static boolean mergeStreaming(File file,
+                                          SortedMap<String, String> newEntries,
+                                          File mergedFile) throws IOException {
+        if (!file.exists()) {
+            return merge(noEntries(), newEntries, mergedFile);
+        }
+        final PropertiesReader reader = PropertiesReader.open(file);
+        try {
+            return merge(reader, newEntries, mergedFile);
+        } finally {
+            reader.close();
         }
     }
 
-    private static void createParentFolders(File file) {
+    private static void mergeInMemory(File file,
+                                      SortedMap<String, String> newEntries,
+                                      File mergedFile) throws IOException {
+        final Properties props = new Properties();
+        final InputStream fis = new FileInputStream(file);
         try {
-            Files.createParentDirs(file);
-        } catch (IOException e) {
-            final String errMsg = "Cannot create the parent folders at ";
+            props.load(fis);
+        } catch (@SuppressWarnings("OverlyBroadCatchBlock") IOException e) {
+            final String errMsg = "Error loading the properties from the file: ";
             throw new RuntimeException(errMsg + file.getAbsolutePath(), e);
+        } finally {
+            fis.close();
+        }
+        final SortedMap<String, String> existingEntries = new TreeMap<>();
+        for (String key : props.stringPropertyNames()) {
+            existingEntries.put(key, props.getProperty(key));
         }
+        merge(existingEntries.entrySet()
+                             .iterator(), newEntries, mergedFile);
     }
 
     /**
-     * Customized {@link Properties}, which key set is sorted.
+     * Writes the sorted union of the existing and the new entries to the given file.
      *
-     * <p>The instance of this class is used to maintain the alphanumerical order
-     * in the {@code .properties} files generated out of the instance contents.
+     * <p>The existing entries take precedence over the new ones with the same keys.
      *
-     * <p>Such a trick simplifies the resulting {@code .properties} file navigation
-     * and makes any potential debugging easier.
+     * @return {@code true} if the entries were merged, {@code false} if the existing
+     *         entries are not sorted
+     */
+    @SuppressWarnings("MethodWithMultipleLoops")    // It's fine for a merge.
+    private static boolean merge(Iterator<Map.Entry<String, String>> existingEntries,
+                                 SortedMap<String, String> newEntries,
+                                 File mergedFile) throws IOException {
+        final Iterator<Map.Entry<String, String>> newIterator = newEntries.entrySet()
+                                                                          .iterator();
+        final BufferedWriter writer = Files.newWriter(mergedFile, Charsets.ISO_8859_1);
+        try {
+            Map.Entry<String, String> existing = next(existingEntries);
+            Map.Entry<String, String> added = next(newIterator);
+            while (existing != null) {
+                final String key = existing.getKey();
+                final int comparison = added == null
+                                       ? -1
+                                       : key.compareTo(added.getKey());
+                if (comparison > 0) {
+                    writeEntry(added, writer);
+                    added = next(newIterator);
+                    continue;
+                }
+                if (comparison == 0) {
+                    warnIfConflicts(existing, added);
+                    added = next(newIterator);
+                }
+                writeEntry(existing, writer);
+                existing = next(existingEntries);
+                if (existing != null && key.compareTo(existing.getKey()) >= 0) {
+                    return false;
+                }
+            }
+            while (added != null) {
+                writeEntry(added, writer);
+                added = next(newIterator);
+            }
+            return true;
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static void warnIfConflicts(Map.Entry<String, String> existing,
+                                        Map.Entry<String, String> added) {
+        final String currentValue = existing.getValue();
+        final String value = added.getValue();
+        if (!currentValue.equals(value)) {
+            log().warn("Entry with the key `{}` already exists. Value: `{}`." +
+                               " New value `{}` was not set.",
+                       existing.getKey(), currentValue, value);
+        }
+    }
+
+    private static void writeEntry(Map.Entry<String, String> entry,
+                                   BufferedWriter writer) throws IOException {
+        escape(entry.getKey(), true, writer);
+        writer.write('=');
+        escape(entry.getValue(), false, writer);
+        writer.write(LINE_SEPARATOR);
+    }
+
+    /**
+     * Writes the given key or value escaping the characters in the same way
+     * {@link Properties#store(java.io.OutputStream, String) Properties.store()} does.
      */
-    @SuppressWarnings("ClassExtendsConcreteCollection")
-    // It's the best (and still readable) way for customization.
-    private static final class SortedProperties extends Properties {
-
-        // Generated automatically.
-        private static final long serialVersionUID = -4508611340425795981L;
-
-        @SuppressWarnings("RefusedBequest")
-        // as we replace `keys()` with a completely different behavior.
-        @Override
-        public synchronized Enumeration<Object> keys() {
-            return Collections.enumeration(new TreeSet<>(keySet()));
+    private static void escape(String text, boolean escapeSpace, Writer out) throws IOException {
+        final int length = text.length();
+        for (int i = 0; i < length; i++) {
+            final char c = text.charAt(i);
+            if (c > '=' && c < 127) {
+                if (c == '\\') {
+                    out.write("\\\\");
+                } else {
+                    out.write(c);
+                }
+                continue;
+            }
+            switch (c) {
+                case ' ':
+                    if (i == 0 || escapeSpace) {
+                        out.write('\\');
+                    }
+                    out.write(' ');
+                    break;
+                case '\t':
+                    out.write("\\t");
+                    break;
+                case '\n':
+                    out.write("\\n");
+                    break;
+                case '\r':
+                    out.write("\\r");
+                    break;
+                case '\f':
+                    out.write("\\f");
+                    break;
+                case '=':
+                case ':':
+                case '#':
+                case '!':
+                    out.write('\\');
+                    out.write(c);
+                    break;
+                default:
+                    if (c < 0x0020 || c > 0x007e) {
+                        out.write("\\u");
+                        out.write(HEX_DIGITS.charAt((c >> 12) & 0xF));
+                        out.write(HEX_DIGITS.charAt((c >> 8) & 0xF));
+                        out.write(HEX_DIGITS.charAt((c >> 4) & 0xF));
+                        out.write(HEX_DIGITS.charAt(c & 0xF));
+                    } else {
+                        out.write(c);
+                    }
+            }
+        }
+    }
+
+    private static Iterator<Map.Entry<String, String>> noEntries() {
+        return Collections.emptyIterator();
+    }
+
+    private static <T> T next(Iterator<T> iterator) {
+        return iterator.hasNext()
+               ? iterator.next()
+               : null;
+    }
+
+    private static SortedMap<String, String> sorted(Map<String, String> entries) {
+        if (entries instanceof SortedMap
+                && ((SortedMap<String, String>) entries).comparator() == null) {
+            return (SortedMap<String, String>) entries;
+        }
+        return new TreeMap<>(entries);
+    }
+
+    private static void createParentFolders(File file) {
+        try {
+            Files.createParentDirs(file);
+        } catch (IOException e) {
+            final String errMsg = "Cannot create the parent folders at ";
+            throw new RuntimeException(errMsg + file.getAbsolutePath(), e);
         }
     }
 
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2017, TeamDev Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.spine3.gradle.protobuf.lookup.enrichments;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class EnrichmentIndexShould {
+
+    private static final String ENRICHMENT = "spine.test.ProjectEnrichment";
+    private static final String ANOTHER_ENRICHMENT = "spine.test.TaskEnrichment";
+    private static final String EVENT = "spine.test.ProjectCreated";
+    private static final String ANOTHER_EVENT = "spine.test.TaskAdded";
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private EnrichmentIndex index;
+
+    @Before
+    public void setUp() throws IOException {
+        final Map<String, String> enrichments = ImmutableMap.of(
+                ENRICHMENT, EVENT + ',' + ANOTHER_EVENT,
+                ANOTHER_ENRICHMENT, ANOTHER_EVENT);
+        index = writeAndRead(enrichments);
+    }
+
+    @Test
+    public void map_enrichments_to_events() {
+        assertEquals(asList(EVENT, ANOTHER_EVENT), index.getEvents(ENRICHMENT));
+        assertEquals(asList(ANOTHER_EVENT), index.getEvents(ANOTHER_ENRICHMENT));
+    }
+
+    @Test
+    public void map_events_to_enrichments() {
+        assertEquals(asList(ENRICHMENT), index.getEnrichments(EVENT));
+        assertEquals(asList(ENRICHMENT, ANOTHER_ENRICHMENT),
+                     index.getEnrichments(ANOTHER_EVENT));
+    }
+
+    @Test
+    public void intern_type_names() {
+        assertEquals(4, index.getTypeCount());
+        final int eventId = index.getTypeId(EVENT);
+        assertEquals(EVENT, index.getTypeName(eventId));
+        assertEquals(asList(ENRICHMENT), index.getEnrichments(eventId));
+    }
+
+    @Test
+    public void return_empty_lists_for_unknown_types() {
+        final String unknownType = "spine.test.Unknown";
+        assertEquals(EnrichmentIndex.UNKNOWN_TYPE_ID, index.getTypeId(unknownType));
+        assertTrue(index.getEvents(unknownType)
+                        .isEmpty());
+        assertTrue(index.getEnrichments(unknownType)
+                        .isEmpty());
+    }
+
+    @Test
+    public void return_empty_lists_for_types_without_relations() {
+        assertTrue(index.getEnrichments(ENRICHMENT)
+                        .isEmpty());
+        assertTrue(index.getEvents(EVENT)
+                        .isEmpty());
+    }
+
+    @Test
+    public void not_leave_temporary_files() {
+        assertArrayEquals(new String[]{EnrichmentIndex.FILE_NAME}, folder.getRoot()
+                                                                         .list());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void fail_to_read_not_an_index() {
+        EnrichmentIndex.readFrom(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5}));
+    }
+
+    private EnrichmentIndex writeAndRead(Map<String, String> enrichments) throws IOException {
+        final File dir = folder.getRoot();
+        new EnrichmentIndexWriter(dir.getAbsolutePath(), EnrichmentIndex.FILE_NAME)
+                .write(enrichments.entrySet()
+                                  .iterator());
+        final InputStream input = new FileInputStream(new File(dir, EnrichmentIndex.FILE_NAME));
+        try {
+            return EnrichmentIndex.readFrom(input);
+        } finally {
+            input.close();
+        }
+    }
+}
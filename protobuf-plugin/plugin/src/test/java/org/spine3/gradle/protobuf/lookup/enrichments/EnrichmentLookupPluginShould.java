@@ -0,0 +1,117 @@
+/*
+ * Copyright 2017, TeamDev Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.spine3.gradle.protobuf.lookup.enrichments;
+
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.DescriptorProtos.FieldDescriptorProto.Type;
+import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FileDescriptorSet;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.spine3.gradle.protobuf.lookup.enrichments.FieldResolution.ConverterKind;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.spine3.gradle.protobuf.lookup.enrichments.Given.EVENT_PACKAGE;
+import static org.spine3.gradle.protobuf.lookup.enrichments.Given.TEST_PACKAGE;
+import static org.spine3.gradle.protobuf.lookup.enrichments.Given.enrichedBy;
+import static org.spine3.gradle.protobuf.lookup.enrichments.Given.eventsFile;
+import static org.spine3.gradle.protobuf.lookup.enrichments.Given.field;
+import static org.spine3.gradle.protobuf.lookup.enrichments.Given.file;
+import static org.spine3.gradle.protobuf.lookup.enrichments.Given.message;
+
+public class EnrichmentLookupPluginShould {
+
+    private static final String PLANS_FILE_NAME = "enrichment_plans.properties";
+    private static final String ENRICHMENT = TEST_PACKAGE + ".ProjectEnrichment";
+    private static final String PROJECT_CREATED = EVENT_PACKAGE + ".ProjectCreated";
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private File resourcesDir;
+    private File descriptorSet;
+    private String lockDir;
+
+    @Before
+    public void setUp() throws IOException {
+        resourcesDir = folder.newFolder("resources");
+        descriptorSet = new File(folder.getRoot(), "main.desc");
+        lockDir = new File(folder.getRoot(), "locks").getAbsolutePath();
+    }
+
+    @Test
+    public void replace_plans_of_changed_field_mapping() throws IOException {
+        findEnrichments(PROJECT_CREATED + ".name");
+        findEnrichments(PROJECT_CREATED + ".title");
+
+        final Properties plans = loadPlans();
+        assertEquals(1, plans.size());
+        final FieldResolution titleResolution =
+                new FieldResolution(PROJECT_CREATED, ImmutableList.of(2), ConverterKind.COPY);
+        assertEquals(titleResolution.toPropertyValue(), plans.getProperty(ENRICHMENT + ".1"));
+    }
+
+    private void findEnrichments(String byOption) throws IOException {
+        final FileDescriptorProto events =
+                eventsFile(EVENT_PACKAGE,
+                           message("ProjectCreated",
+                                   field("name", 1, Type.TYPE_STRING),
+                                   field("title", 2, Type.TYPE_STRING)));
+        final FileDescriptorProto enrichments =
+                file(TEST_PACKAGE,
+                     message("ProjectEnrichment",
+                             enrichedBy(field("project_name", 1, Type.TYPE_STRING), byOption)));
+        final OutputStream output = new FileOutputStream(descriptorSet);
+        try {
+            FileDescriptorSet.newBuilder()
+                             .addFile(events)
+                             .addFile(enrichments)
+                             .build()
+                             .writeTo(output);
+        } finally {
+            output.close();
+        }
+        EnrichmentLookupPlugin.findEnrichmentsAndWriteProps(resourcesDir.getAbsolutePath(),
+                                                            descriptorSet.getAbsolutePath(),
+                                                            lockDir);
+    }
+
+    private Properties loadPlans() throws IOException {
+        final Properties result = new Properties();
+        final InputStream input = new FileInputStream(new File(resourcesDir, PLANS_FILE_NAME));
+        try {
+            result.load(input);
+        } finally {
+            input.close();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2017, TeamDev Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.spine3.gradle.protobuf.lookup.enrichments;
+
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.DescriptorProtos.FieldDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FieldDescriptorProto.Label;
+import com.google.protobuf.DescriptorProtos.FieldDescriptorProto.Type;
+import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.spine3.gradle.protobuf.lookup.enrichments.Given.EVENT_PACKAGE;
+import static org.spine3.gradle.protobuf.lookup.enrichments.Given.TEST_PACKAGE;
+import static org.spine3.gradle.protobuf.lookup.enrichments.Given.enrichedBy;
+import static org.spine3.gradle.protobuf.lookup.enrichments.Given.eventsFile;
+import static org.spine3.gradle.protobuf.lookup.enrichments.Given.field;
+import static org.spine3.gradle.protobuf.lookup.enrichments.Given.file;
+import static org.spine3.gradle.protobuf.lookup.enrichments.Given.message;
+import static org.spine3.gradle.protobuf.lookup.enrichments.Given.messageField;
+
+public class EnrichmentsFinderShould {
+
+    private static final String ENRICHMENT = TEST_PACKAGE + ".UserEnrichment";
+    private static final String USER_ID = TEST_PACKAGE + ".UserId";
+    private static final String LEGACY_USER_ID = TEST_PACKAGE + ".LegacyUserId";
+
+    private FileDescriptorProto events;
+
+    @Before
+    public void setUp() {
+        final FieldDescriptorProto repeatedUserId =
+                FieldDescriptorProto.newBuilder(field("user_id", 1, Type.TYPE_STRING))
+                                    .setLabel(Label.LABEL_REPEATED)
+                                    .build();
+        events = eventsFile(EVENT_PACKAGE,
+                            message("UserCreated", field("user_id", 1, Type.TYPE_STRING)),
+                            message("UserDeleted", field("user_id", 3, Type.TYPE_STRING)),
+                            message("UsersMerged", repeatedUserId),
+                            message("UserArchived", messageField("user_id", 2, USER_ID)),
+                            message("UserRestored", messageField("user_id", 2, LEGACY_USER_ID)),
+                            message("ProjectCreated", field("name", 1, Type.TYPE_STRING)));
+    }
+
+    @Test
+    public void resolve_wildcard_into_events_with_compatible_field() {
+        final Map<String, String> enrichments = find(
+                enrichedBy(field("user_name", 1, Type.TYPE_STRING), "*.user_id"));
+
+        assertEquals(1, enrichments.size());
+        assertEquals(EVENT_PACKAGE + ".UserCreated," + EVENT_PACKAGE + ".UserDeleted",
+                     enrichments.get(ENRICHMENT));
+    }
+
+    @Test
+    public void not_resolve_wildcard_into_fields_of_other_type() {
+        final Map<String, String> enrichments = find(
+                enrichedBy(messageField("user_id", 1, USER_ID), "*.user_id"));
+
+        assertEquals(EVENT_PACKAGE + ".UserArchived", enrichments.get(ENRICHMENT));
+    }
+
+    @Test
+    public void merge_events_of_several_wildcard_fields() {
+        final Map<String, String> enrichments = find(
+                enrichedBy(field("user_name", 1, Type.TYPE_STRING), "*.user_id"),
+                enrichedBy(field("project_name", 2, Type.TYPE_STRING), "*.name"));
+
+        assertEquals(EVENT_PACKAGE + ".ProjectCreated," +
+                     EVENT_PACKAGE + ".UserCreated," +
+                     EVENT_PACKAGE + ".UserDeleted",
+                     enrichments.get(ENRICHMENT));
+    }
+
+    @Test
+    public void sort_target_event_names() {
+        final Map<String, String> enrichments = find(
+                enrichedBy(field("user_name", 1, Type.TYPE_STRING),
+                           EVENT_PACKAGE + ".UserDeleted.user_id | " +
+                           EVENT_PACKAGE + ".UserCreated.user_id"));
+
+        assertEquals(EVENT_PACKAGE + ".UserCreated," + EVENT_PACKAGE + ".UserDeleted",
+                     enrichments.get(ENRICHMENT));
+    }
+
+    @Test
+    public void skip_wildcard_without_matching_events() {
+        final Map<String, String> enrichments = find(
+                enrichedBy(field("user_name", 1, Type.TYPE_STRING), "*.missing_field"));
+
+        assertTrue(enrichments.isEmpty());
+    }
+
+    private Map<String, String> find(FieldDescriptorProto... fields) {
+        final FileDescriptorProto enrichments =
+                file(TEST_PACKAGE, message("UserEnrichment", fields));
+        final MessageTypeIndex index = MessageTypeIndex.of(ImmutableList.of(enrichments, events));
+        return new EnrichmentsFinder(enrichments, index).findEnrichments();
+    }
+}
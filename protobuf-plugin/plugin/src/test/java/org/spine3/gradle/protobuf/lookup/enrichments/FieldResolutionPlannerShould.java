@@ -0,0 +1,176 @@
+/*
+ * Copyright 2017, TeamDev Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.spine3.gradle.protobuf.lookup.enrichments;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.protobuf.DescriptorProtos.FieldDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FieldDescriptorProto.Type;
+import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
+import org.junit.Before;
+import org.junit.Test;
+import org.spine3.gradle.protobuf.lookup.enrichments.FieldResolution.ConverterKind;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.spine3.gradle.protobuf.lookup.enrichments.Given.EVENT_PACKAGE;
+import static org.spine3.gradle.protobuf.lookup.enrichments.Given.TEST_PACKAGE;
+import static org.spine3.gradle.protobuf.lookup.enrichments.Given.enrichedBy;
+import static org.spine3.gradle.protobuf.lookup.enrichments.Given.eventsFile;
+import static org.spine3.gradle.protobuf.lookup.enrichments.Given.field;
+import static org.spine3.gradle.protobuf.lookup.enrichments.Given.file;
+import static org.spine3.gradle.protobuf.lookup.enrichments.Given.message;
+import static org.spine3.gradle.protobuf.lookup.enrichments.Given.messageField;
+
+public class FieldResolutionPlannerShould {
+
+    private static final String ENRICHMENT = TEST_PACKAGE + ".ProjectEnrichment";
+    private static final String PROJECT_ID = TEST_PACKAGE + ".ProjectId";
+    private static final String PROJECT_CREATED = EVENT_PACKAGE + ".ProjectCreated";
+    private static final String PROJECT_STARTED = EVENT_PACKAGE + ".ProjectStarted";
+
+    private FileDescriptorProto events;
+
+    @Before
+    public void setUp() {
+        events = eventsFile(EVENT_PACKAGE,
+                            message("ProjectCreated",
+                                    messageField("project_id", 1, PROJECT_ID),
+                                    field("name", 2, Type.TYPE_STRING),
+                                    field("task_count", 3, Type.TYPE_INT32)),
+                            message("ProjectStarted",
+                                    field("name", 4, Type.TYPE_STRING)));
+    }
+
+    @Test
+    public void resolve_fully_qualified_reference() {
+        final Map<String, String> plans = plan(
+                enrichedBy(field("project_name", 1, Type.TYPE_STRING),
+                           PROJECT_CREATED + ".project_id"),
+                PROJECT_CREATED);
+
+        assertResolution(plans, ENRICHMENT + ".1",
+                         new FieldResolution(PROJECT_CREATED, ImmutableList.of(1),
+                                             ConverterKind.FUNCTION));
+    }
+
+    @Test
+    public void resolve_reference_relative_to_enrichment_package() {
+        final Map<String, String> plans = plan(
+                enrichedBy(field("project_name", 1, Type.TYPE_STRING),
+                           "event.ProjectCreated.name"),
+                PROJECT_CREATED);
+
+        assertResolution(plans, ENRICHMENT + ".1",
+                         new FieldResolution(PROJECT_CREATED, ImmutableList.of(2),
+                                             ConverterKind.COPY));
+    }
+
+    @Test
+    public void resolve_nested_field_path() {
+        final Map<String, String> plans = plan(
+                enrichedBy(field("id_value", 2, Type.TYPE_STRING),
+                           PROJECT_CREATED + ".project_id.value"),
+                PROJECT_CREATED);
+
+        assertResolution(plans, ENRICHMENT + ".2",
+                         new FieldResolution(PROJECT_CREATED, ImmutableList.of(1, 1),
+                                             ConverterKind.COPY));
+    }
+
+    @Test
+    public void resolve_short_reference_for_each_enriched_event() {
+        final Map<String, String> plans = plan(
+                enrichedBy(field("project_name", 1, Type.TYPE_STRING), "name"),
+                PROJECT_CREATED + ',' + PROJECT_STARTED);
+
+        final String expected =
+                new FieldResolution(PROJECT_CREATED, ImmutableList.of(2), ConverterKind.COPY)
+                        .toPropertyValue() + ',' +
+                new FieldResolution(PROJECT_STARTED, ImmutableList.of(4), ConverterKind.COPY)
+                        .toPropertyValue();
+        assertEquals(expected, plans.get(ENRICHMENT + ".1"));
+    }
+
+    @Test
+    public void resolve_scalar_conversions() {
+        final Map<String, String> plans = plan(
+                enrichedBy(field("task_count", 1, Type.TYPE_INT64),
+                           PROJECT_CREATED + ".task_count"),
+                PROJECT_CREATED);
+
+        assertResolution(plans, ENRICHMENT + ".1",
+                         new FieldResolution(PROJECT_CREATED, ImmutableList.of(3),
+                                             ConverterKind.SCALAR_CONVERSION));
+    }
+
+    @Test
+    public void resolve_wildcard_reference_for_each_event_with_field() {
+        final Map<String, String> plans = plan(
+                enrichedBy(field("project_name", 1, Type.TYPE_STRING), "*.name"),
+                PROJECT_CREATED + ',' + PROJECT_STARTED);
+
+        final String expected =
+                new FieldResolution(PROJECT_CREATED, ImmutableList.of(2),
+                                    ConverterKind.COPY).toPropertyValue() + ',' +
+                new FieldResolution(PROJECT_STARTED, ImmutableList.of(4),
+                                    ConverterKind.COPY).toPropertyValue();
+        assertEquals(expected, plans.get(ENRICHMENT + ".1"));
+    }
+
+    @Test
+    public void skip_unresolvable_references() {
+        final Map<String, String> plans = plan(
+                enrichedBy(field("project_name", 1, Type.TYPE_STRING),
+                           PROJECT_CREATED + ".missing_field"),
+                PROJECT_CREATED);
+
+        assertTrue(plans.isEmpty());
+    }
+
+    @Test
+    public void parse_property_value() {
+        final FieldResolution resolution =
+                new FieldResolution(PROJECT_CREATED, ImmutableList.of(1, 2),
+                                    ConverterKind.FUNCTION);
+
+        assertEquals(resolution, FieldResolution.parse(resolution.toPropertyValue()));
+    }
+
+    private static void assertResolution(Map<String, String> plans,
+                                         String key,
+                                         FieldResolution expected) {
+        assertEquals(1, plans.size());
+        assertEquals(expected.toPropertyValue(), plans.get(key));
+    }
+
+    private Map<String, String> plan(FieldDescriptorProto field,
+                                     String enrichedEvents) {
+        final FileDescriptorProto enrichments =
+                file(TEST_PACKAGE,
+                     message("ProjectId", field("value", 1, Type.TYPE_STRING)),
+                     message("ProjectEnrichment", field));
+        final MessageTypeIndex index = MessageTypeIndex.of(ImmutableList.of(enrichments, events));
+        final FieldResolutionPlanner planner = new FieldResolutionPlanner(index);
+        return planner.plan(ImmutableMap.of(ENRICHMENT, enrichedEvents));
+    }
+}
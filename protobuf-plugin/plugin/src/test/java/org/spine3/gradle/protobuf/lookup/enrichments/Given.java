@@ -0,0 +1,109 @@
+/*
+ * Copyright 2017, TeamDev Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.spine3.gradle.protobuf.lookup.enrichments;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.DescriptorProtos.DescriptorProto;
+import com.google.protobuf.DescriptorProtos.FieldDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FieldDescriptorProto.Label;
+import com.google.protobuf.DescriptorProtos.FieldDescriptorProto.Type;
+import com.google.protobuf.DescriptorProtos.FieldOptions;
+import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
+import com.google.protobuf.UnknownFieldSet;
+
+import static java.util.Arrays.asList;
+import static org.spine3.gradle.protobuf.lookup.enrichments.EnrichmentsFinder.OPTION_NUMBER_ENRICH_BY;
+
+/**
+ * A factory of the descriptors used in the enrichment lookup tests.
+ */
+@SuppressWarnings("UtilityClass")
+class Given {
+
+    static final String TEST_PACKAGE = "spine.test";
+    static final String EVENT_PACKAGE = "spine.test.event";
+
+    // prevent instantiation of this utility class
+    private Given() {
+    }
+
+    static FileDescriptorProto file(String protoPackage, DescriptorProto... messages) {
+        return file(protoPackage, "test.proto", messages);
+    }
+
+    /**
+     * Creates a file, which messages are treated as events.
+     */
+    static FileDescriptorProto eventsFile(String protoPackage, DescriptorProto... messages) {
+        return file(protoPackage, "events.proto", messages);
+    }
+
+    private static FileDescriptorProto file(String protoPackage,
+                                            String fileName,
+                                            DescriptorProto... messages) {
+        return FileDescriptorProto.newBuilder()
+                                  .setName(protoPackage.replace('.', '/') + '/' + fileName)
+                                  .setPackage(protoPackage)
+                                  .addAllMessageType(asList(messages))
+                                  .build();
+    }
+
+    static DescriptorProto message(String name, FieldDescriptorProto... fields) {
+        return DescriptorProto.newBuilder()
+                              .setName(name)
+                              .addAllField(asList(fields))
+                              .build();
+    }
+
+    static FieldDescriptorProto field(String name, int number, Type type) {
+        return FieldDescriptorProto.newBuilder()
+                                   .setName(name)
+                                   .setNumber(number)
+                                   .setType(type)
+                                   .setLabel(Label.LABEL_OPTIONAL)
+                                   .build();
+    }
+
+    static FieldDescriptorProto messageField(String name, int number, String typeName) {
+        return FieldDescriptorProto.newBuilder(field(name, number, Type.TYPE_MESSAGE))
+                                   .setTypeName('.' + typeName)
+                                   .build();
+    }
+
+    /**
+     * Marks the field with the {@code (by)} option with the given value.
+     */
+    static FieldDescriptorProto enrichedBy(FieldDescriptorProto field, String byValue) {
+        final UnknownFieldSet.Field option =
+                UnknownFieldSet.Field.newBuilder()
+                                     .addLengthDelimited(ByteString.copyFromUtf8(byValue))
+                                     .build();
+        final UnknownFieldSet unknownFields =
+                UnknownFieldSet.newBuilder()
+                               .addField(OPTION_NUMBER_ENRICH_BY.intValue(), option)
+                               .build();
+        final FieldOptions options = FieldOptions.newBuilder()
+                                                 .setUnknownFields(unknownFields)
+                                                 .build();
+        return FieldDescriptorProto.newBuilder(field)
+                                   .setOptions(options)
+                                   .build();
+    }
+}
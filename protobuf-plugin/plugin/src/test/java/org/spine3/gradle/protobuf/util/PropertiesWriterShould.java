@@ -0,0 +1,240 @@
+/*
+ * Copyright 2017, TeamDev Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.spine3.gradle.protobuf.util;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.Files;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class PropertiesWriterShould {
+
+    private static final String FILE_NAME = "test.properties";
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private File outputDir;
+    private String lockDir;
+    private File file;
+    private PropertiesWriter writer;
+
+    @Before
+    public void setUp() throws IOException {
+        outputDir = folder.newFolder("output");
+        lockDir = new File(folder.getRoot(), "locks").getAbsolutePath();
+        file = new File(outputDir, FILE_NAME);
+        writer = newWriter(outputDir);
+    }
+
+    @Test
+    public void write_entries_sorted_by_key() throws IOException {
+        writer.write(ImmutableMap.of("c", "3", "a", "1", "b", "2"));
+
+        assertEquals(asList("a=1", "b=2", "c=3"), readEntryLines());
+    }
+
+    @Test
+    public void merge_new_entries_into_existing_file() throws IOException {
+        writer.write(ImmutableMap.of("b", "2", "d", "4"));
+        writer.write(ImmutableMap.of("a", "1", "c", "3", "e", "5"));
+
+        assertEquals(asList("a=1", "b=2", "c=3", "d=4", "e=5"), readEntryLines());
+    }
+
+    @Test
+    public void keep_existing_value_on_conflict() throws IOException {
+        writer.write(ImmutableMap.of("a", "old"));
+        writer.write(ImmutableMap.of("a", "new", "b", "2"));
+
+        assertEquals(ImmutableMap.of("a", "old", "b", "2"), load());
+    }
+
+    @Test
+    public void drop_existing_entries_on_overwrite() throws IOException {
+        writer.write(ImmutableMap.of("a", "old", "b", "2"));
+        writer.overwrite(ImmutableMap.of("a", "new", "c", "3"));
+
+        assertEquals(asList("a=new", "c=3"), readEntryLines());
+    }
+
+    @Test
+    public void merge_unsorted_existing_file() throws IOException {
+        Files.write("z=26\n# comment\na = 1\nm : 13\n", file, Charsets.ISO_8859_1);
+
+        writer.write(ImmutableMap.of("b", "2", "a", "new"));
+
+        assertEquals(asList("a=1", "b=2", "m=13", "z=26"), readEntryLines());
+    }
+
+    @Test
+    public void preserve_escaped_entries() throws IOException {
+        final Map<String, String> entries = ImmutableMap.of(
+                "key with spaces", " leading space",
+                "key:with=separators", "#value!",
+                "multiline", "line 1\nline 2\\",
+                "unicode", "\u0441\u043f\u0430\u0439\u043d");
+        writer.write(entries);
+        writer.write(ImmutableMap.of("another", "value"));
+
+        final Map<String, String> expected = ImmutableMap.<String, String>builder()
+                                                         .putAll(entries)
+                                                         .put("another", "value")
+                                                         .build();
+        assertEquals(expected, load());
+    }
+
+    @Test
+    public void read_continuation_lines() throws IOException {
+        Files.write("a = first, \\\n    second\nb=2\n", file, Charsets.ISO_8859_1);
+
+        writer.write(ImmutableMap.of("c", "3"));
+
+        assertEquals(ImmutableMap.of("a", "first, second", "b", "2", "c", "3"), load());
+    }
+
+    @Test
+    public void produce_identical_bytes_for_same_entries() throws IOException {
+        final Map<String, String> entries = new HashMap<>();
+        final Map<String, String> reversedEntries = new LinkedHashMap<>();
+        for (int i = 0; i < 100; i++) {
+            entries.put("key" + i, "value" + i);
+        }
+        for (int i = 99; i >= 0; i--) {
+            reversedEntries.put("key" + i, "value" + i);
+        }
+        writer.write(entries);
+        final File otherDir = folder.newFolder();
+        newWriter(otherDir).write(reversedEntries);
+
+        final byte[] expected = Files.toByteArray(file);
+        assertArrayEquals(expected, Files.toByteArray(new File(otherDir, FILE_NAME)));
+
+        writer.write(entries);
+        assertArrayEquals(expected, Files.toByteArray(file));
+    }
+
+    @Test
+    public void not_write_timestamp() throws IOException {
+        writer.write(ImmutableMap.of("a", "1"));
+
+        assertEquals("a=1\n", Files.toString(file, Charsets.ISO_8859_1));
+    }
+
+    @Test
+    public void not_leave_stray_files_in_output_dir() {
+        writer.write(ImmutableMap.of("a", "1"));
+        writer.write(ImmutableMap.of("b", "2"));
+
+        assertArrayEquals(new String[]{FILE_NAME}, outputDir.list());
+        assertArrayEquals(new String[]{FILE_NAME + ".lock"}, new File(lockDir).list());
+    }
+
+    @Test
+    public void write_under_held_lock() throws IOException {
+        final FileUpdateLock lock = writer.lock();
+        try {
+            writer.write(ImmutableMap.of("a", "1"));
+        } finally {
+            lock.release();
+        }
+        writer.write(ImmutableMap.of("b", "2"));
+
+        assertEquals(asList("a=1", "b=2"), readEntryLines());
+    }
+
+    @Test
+    public void not_lose_entries_on_concurrent_writes() throws Exception {
+        final int writerCount = 8;
+        final ExecutorService executor = Executors.newFixedThreadPool(writerCount);
+        final List<Future<?>> results = new ArrayList<>();
+        final Map<String, String> expected = new HashMap<>();
+        for (int i = 0; i < writerCount; i++) {
+            final Map<String, String> entries = ImmutableMap.of("writer" + i, "value" + i);
+            expected.putAll(entries);
+            results.add(executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    newWriter(outputDir).write(entries);
+                }
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+        executor.shutdown();
+
+        assertEquals(expected, load());
+    }
+
+    private PropertiesWriter newWriter(File dir) {
+        return new PropertiesWriter(dir.getAbsolutePath(), FILE_NAME, lockDir);
+    }
+
+    private List<String> readEntryLines() throws IOException {
+        final List<String> result = new ArrayList<>();
+        for (String line : Files.readLines(file, Charsets.ISO_8859_1)) {
+            if (!line.startsWith("#")) {
+                result.add(line);
+            }
+        }
+        return result;
+    }
+
+    private Map<String, String> load() throws IOException {
+        final Properties props = new Properties();
+        final InputStream stream = new FileInputStream(file);
+        try {
+            props.load(stream);
+        } finally {
+            stream.close();
+        }
+        final ImmutableMap.Builder<String, String> result = ImmutableMap.builder();
+        for (String key : props.stringPropertyNames()) {
+            result.put(key, props.getProperty(key));
+        }
+        return result.build();
+    }
+
+    private static List<String> asList(String... lines) {
+        return Arrays.asList(lines);
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2017, TeamDev Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.spine3.gradle.reflections;
+
+import com.google.common.collect.Multimap;
+import org.reflections.Reflections;
+import org.reflections.ReflectionsException;
+import org.reflections.Store;
+import org.reflections.serializers.Serializer;
+import org.reflections.util.Utils;
+import org.spine3.gradle.FileUtil;
+import org.spine3.tools.reflections.BinaryIndex;
+import org.spine3.tools.reflections.BinaryIndexReader;
+
+import javax.annotation.Nullable;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.SortedSet;
+
+import static com.google.common.collect.Maps.newHashMap;
+import static com.google.common.collect.Maps.newTreeMap;
+import static com.google.common.collect.Sets.newTreeSet;
+
+/**
+ * The Reflections {@link Serializer} writing the compact {@linkplain BinaryIndex binary index}.
+ *
+ * <p>The strings are written once into the string table and referenced by their IDs.
+ * All the strings, index names, shards, entries and values are sorted, so the same store
+ * is always written to the same bytes.
+ *
+ * <p>The index is written to a temporary file first, which then atomically replaces
+ * the index file. So the readers never see a partially written index.
+ *
+ * <p>At runtime, the index is read with the {@link BinaryIndexReader}, which does not
+ * depend on Gradle.
+ */
+public class BinaryIndexSerializer extends BinaryIndexReader {
+
+    @Override
+    public File save(Reflections reflections, String filename) {
+        final File file = Utils.prepareFile(filename);
+        final File tempFile = FileUtil.createTempFile(file);
+        try {
+            try {
+                final DataOutputStream out = new DataOutputStream(
+                        new BufferedOutputStream(new FileOutputStream(tempFile)));
+                try {
+                    write(reflections.getStore(), out);
+                } finally {
+                    out.close();
+                }
+                FileUtil.replace(tempFile, file);
+            } finally {
+                if (tempFile.exists() && !tempFile.delete()) {
+                    tempFile.deleteOnExit();
+                }
+            }
+        } catch (IOException e) {
+            throw new ReflectionsException("Could not save to file " + filename, e);
+        }
+        return file;
+    }
+
+    /**
+     * Lists the entries of the store in the order they are written to the index.
+     */
+    @Override
+    public String toString(Reflections reflections) {
+        final StringBuilder result = new StringBuilder();
+        final SortedMap<String, Shard> shards = toShards(reflections.getStore());
+        for (Map.Entry<String, Shard> shard : shards.entrySet()) {
+            result.append("package ")
+                  .append(shard.getKey())
+                  .append('\n');
+            for (Map.Entry<String, SortedMap<String, SortedSet<String>>> index
+                    : shard.getValue().sections.entrySet()) {
+                for (Map.Entry<String, SortedSet<String>> entry : index.getValue().entrySet()) {
+                    result.append("  ")
+                          .append(index.getKey())
+                          .append(' ')
+                          .append(entry.getKey())
+                          .append(" -> ")
+                          .append(entry.getValue())
+                          .append('\n');
+                }
+            }
+        }
+        return result.toString();
+    }
+
+    private static void write(Store store, DataOutputStream out) throws IOException {
+        final SortedSet<String> indexNames = newTreeSet(store.keySet());
+        final SortedMap<String, Shard> shards = toShards(store);
+
+        final SortedSet<String> strings = newTreeSet(indexNames);
+        for (Map.Entry<String, Shard> shard : shards.entrySet()) {
+            strings.add(shard.getKey());
+            for (SortedMap<String, SortedSet<String>> index : shard.getValue().sections.values()) {
+                for (Map.Entry<String, SortedSet<String>> entry : index.entrySet()) {
+                    strings.add(entry.getKey());
+                    strings.addAll(entry.getValue());
+                }
+            }
+        }
+        final Map<String, Integer> ids = newHashMap();
+        for (String string : strings) {
+            ids.put(string, ids.size());
+        }
+
+        out.writeInt(BinaryIndex.MAGIC);
+        out.writeInt(BinaryIndex.VERSION);
+        writeStrings(strings, out);
+        out.writeInt(indexNames.size());
+        for (String indexName : indexNames) {
+            out.writeInt(ids.get(indexName));
+        }
+        // Skip to the end of the shard directory to know the offsets of the shards.
+        int shardOffset = out.size() + 4 + shards.size() * 8;
+        out.writeInt(shards.size());
+        for (Map.Entry<String, Shard> shard : shards.entrySet()) {
+            out.writeInt(ids.get(shard.getKey()));
+            out.writeInt(shardOffset);
+            shardOffset += shard.getValue()
+                                .size(indexNames);
+        }
+        for (Shard shard : shards.values()) {
+            for (String indexName : indexNames) {
+                writeSection(shard.sections.get(indexName), ids, out);
+            }
+        }
+    }
+
+    /**
+     * Groups the entries of the store by the package of the key and by the index.
+     */
+    private static SortedMap<String, Shard> toShards(Store store) {
+        final SortedMap<String, Shard> result = newTreeMap();
+        for (String indexName : store.keySet()) {
+            final Multimap<String, String> index = store.get(indexName);
+            for (Map.Entry<String, Collection<String>> entry : index.asMap()
+                                                                     .entrySet()) {
+                final String key = entry.getKey();
+                final String packageName = BinaryIndex.packageOf(key);
+                Shard shard = result.get(packageName);
+                if (shard == null) {
+                    shard = new Shard();
+                    result.put(packageName, shard);
+                }
+                shard.put(indexName, key, entry.getValue());
+            }
+        }
+        return result;
+    }
+
+    private static void writeStrings(SortedSet<String> strings, DataOutputStream out)
+            throws IOException {
+        out.writeInt(strings.size());
+        int offset = 0;
+        for (String string : strings) {
+            out.writeInt(offset);
+            offset += string.getBytes(BinaryIndex.CHARSET).length;
+        }
+        out.writeInt(offset);
+        for (String string : strings) {
+            out.write(string.getBytes(BinaryIndex.CHARSET));
+        }
+    }
+
+    private static void writeSection(@Nullable SortedMap<String, SortedSet<String>> section,
+                                     Map<String, Integer> ids,
+                                     DataOutputStream out) throws IOException {
+        if (section == null) {
+            out.writeInt(0);
+            return;
+        }
+        out.writeInt(section.size());
+        int firstValue = 0;
+        for (Map.Entry<String, SortedSet<String>> entry : section.entrySet()) {
+            out.writeInt(ids.get(entry.getKey()));
+            out.writeInt(firstValue);
+            out.writeInt(entry.getValue()
+                              .size());
+            firstValue += entry.getValue()
+                               .size();
+        }
+        for (SortedSet<String> values : section.values()) {
+            for (String value : values) {
+                out.writeInt(ids.get(value));
+            }
+        }
+    }
+
+    /**
+     * The entries whose keys belong to the same package.
+     */
+    private static final class Shard {
+
+        /**
+         * The values by the key and by the index name.
+         */
+        private final SortedMap<String, SortedMap<String, SortedSet<String>>> sections =
+                newTreeMap();
+
+        private void put(String indexName, String key, Collection<String> values) {
+            SortedMap<String, SortedSet<String>> section = sections.get(indexName);
+            if (section == null) {
+                section = newTreeMap();
+                sections.put(indexName, section);
+            }
+            section.put(key, newTreeSet(values));
+        }
+
+        /**
+         * Obtains the size of the shard in bytes.
+         */
+        private int size(Iterable<String> indexNames) {
+            int result = 0;
+            for (String indexName : indexNames) {
+                result += 4;
+                final SortedMap<String, SortedSet<String>> section = sections.get(indexName);
+                if (section != null) {
+                    for (SortedSet<String> values : section.values()) {
+                        result += 3 * 4 + values.size() * 4;
+                    }
+                }
+            }
+            return result;
+        }
+    }
+}
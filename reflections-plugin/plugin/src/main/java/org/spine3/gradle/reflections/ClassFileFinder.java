@@ -0,0 +1,136 @@
+/*
+ * Copyright 2017, TeamDev Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.spine3.gradle.reflections;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Sets.newLinkedHashSet;
+
+/**
+ * Finds the class files to scan in the compiled class directories.
+ *
+ * <p>If package names are specified, only the classes of these packages and their subpackages
+ * are found. Only the directories of these packages are walked, so the rest of the classes
+ * are not even listed.
+ */
+final class ClassFileFinder {
+
+    private static final String CLASS_FILE_EXTENSION = ".class";
+    private static final String ALL_CLASS_FILES_PATTERN = "**/*" + CLASS_FILE_EXTENSION;
+
+    private final List<String> packageDirs;
+
+    /**
+     * Creates the finder.
+     *
+     * @param packages the names of the packages to find the classes in, or an empty list
+     *                 to find all the classes
+     */
+    ClassFileFinder(Collection<String> packages) {
+        this.packageDirs = toPackageDirs(packages);
+    }
+
+    /**
+     * Converts the package names to relative directory paths.
+     *
+     * <p>The packages nested into the other packages of the list are dropped, as their
+     * classes are found anyway.
+     */
+    private static List<String> toPackageDirs(Collection<String> packages) {
+        final List<String> dirs = newArrayList();
+        for (String packageName : packages) {
+            final String trimmed = packageName.trim();
+            if (!trimmed.isEmpty()) {
+                dirs.add(trimmed.replace('.', '/'));
+            }
+        }
+        final ImmutableList.Builder<String> result = ImmutableList.builder();
+        for (String dir : dirs) {
+            if (!isNested(dir, dirs)) {
+                result.add(dir);
+            }
+        }
+        return result.build();
+    }
+
+    private static boolean isNested(String dir, List<String> dirs) {
+        for (String other : dirs) {
+            if (dir.startsWith(other + '/')) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Obtains the Ant-style patterns of the found class files relative to
+     * a class directory.
+     */
+    List<String> getPatterns() {
+        if (packageDirs.isEmpty()) {
+            return ImmutableList.of(ALL_CLASS_FILES_PATTERN);
+        }
+        final ImmutableList.Builder<String> result = ImmutableList.builder();
+        for (String dir : packageDirs) {
+            result.add(dir + '/' + ALL_CLASS_FILES_PATTERN);
+        }
+        return result.build();
+    }
+
+    /**
+     * Finds the class files in the given directories.
+     *
+     * @param classesDirs the compiled class directories
+     * @return the found class files in the order of the directories
+     */
+    Set<File> find(Iterable<File> classesDirs) {
+        final Set<File> result = newLinkedHashSet();
+        for (File classesDir : classesDirs) {
+            if (packageDirs.isEmpty()) {
+                collect(classesDir, result);
+            } else {
+                for (String packageDir : packageDirs) {
+                    collect(new File(classesDir, packageDir), result);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static void collect(File dir, Collection<File> classFiles) {
+        if (!dir.isDirectory()) {
+            return;
+        }
+        for (File file : Files.fileTreeTraverser()
+                              .preOrderTraversal(dir)) {
+            if (file.isFile() && file.getName()
+                                     .endsWith(CLASS_FILE_EXTENSION)) {
+                classFiles.add(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,339 @@
+/*
+ * Copyright 2017, TeamDev Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.spine3.gradle.reflections;
+
+import com.google.common.collect.ImmutableList;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Reads the {@linkplain ClassMetadata class data} directly from the bytes of a class file.
+ *
+ * <p>Only the header of the class file is read: the constant pool, the class name,
+ * the superclass and the interfaces. The fields and the methods are skipped without being
+ * looked into, and of the class attributes only the annotations are read. The constant pool
+ * entries are not decoded, except for the few names the class data consists of.
+ *
+ * <p>The class data is the same as Reflections reads with Javassist, including
+ * the annotations which are not retained at runtime. But no Javassist {@code ClassFile}
+ * with all its members, attributes and bytecode is built for that.
+ *
+ * <p>The parser is not thread-safe, but a new instance is used for each class file,
+ * so the class files may be parsed in parallel.
+ */
+final class ClassFileParser {
+
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private static final String VISIBLE_ANNOTATIONS = "RuntimeVisibleAnnotations";
+    private static final String INVISIBLE_ANNOTATIONS = "RuntimeInvisibleAnnotations";
+
+    // The tags of the constant pool entries.
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_FLOAT = 4;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_DOUBLE = 6;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_FIELD_REF = 9;
+    private static final int CONSTANT_METHOD_REF = 10;
+    private static final int CONSTANT_INTERFACE_METHOD_REF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+    private static final int CONSTANT_METHOD_HANDLE = 15;
+    private static final int CONSTANT_METHOD_TYPE = 16;
+    private static final int CONSTANT_DYNAMIC = 17;
+    private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+    private static final int CONSTANT_MODULE = 19;
+    private static final int CONSTANT_PACKAGE = 20;
+
+    private final byte[] bytes;
+    private int position;
+
+    /**
+     * The positions of the constant pool entries right after their tags, by the entry index.
+     */
+    private int[] constants;
+
+    private ClassFileParser(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    /**
+     * Reads the class data from the contents of a class file.
+     *
+     * @param classFile the bytes of the class file
+     * @return the class data
+     * @throws IOException if the bytes are not a valid class file
+     */
+    static ClassMetadata parse(byte[] classFile) throws IOException {
+        try {
+            return new ClassFileParser(classFile).parse();
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("The class file is truncated.", e);
+        }
+    }
+
+    private ClassMetadata parse() throws IOException {
+        if (readInt() != MAGIC) {
+            throw new IOException("Not a class file.");
+        }
+        // The minor and the major versions.
+        skip(4);
+        readConstantPool();
+        // The access flags.
+        skip(2);
+        final String className = getClassName(readUnsignedShort());
+        final String superclassName = getClassName(readUnsignedShort());
+        final int interfaceCount = readUnsignedShort();
+        final ImmutableList.Builder<String> interfaceNames = ImmutableList.builder();
+        for (int i = 0; i < interfaceCount; i++) {
+            interfaceNames.add(getClassName(readUnsignedShort()));
+        }
+        if (className == null) {
+            throw new IOException("The class name is missing.");
+        }
+        skipMembers();
+        skipMembers();
+        return new ClassMetadata(className, superclassName, interfaceNames.build(),
+                                 readAnnotationNames());
+    }
+
+    private void readConstantPool() throws IOException {
+        final int count = readUnsignedShort();
+        constants = new int[count];
+        // The entry 0 is not present in the class file.
+        for (int i = 1; i < count; i++) {
+            final int tag = readUnsignedByte();
+            constants[i] = position;
+            switch (tag) {
+                case CONSTANT_UTF8:
+                    skip(readUnsignedShort());
+                    break;
+                case CONSTANT_CLASS:
+                case CONSTANT_STRING:
+                case CONSTANT_METHOD_TYPE:
+                case CONSTANT_MODULE:
+                case CONSTANT_PACKAGE:
+                    skip(2);
+                    break;
+                case CONSTANT_METHOD_HANDLE:
+                    skip(3);
+                    break;
+                case CONSTANT_INTEGER:
+                case CONSTANT_FLOAT:
+                case CONSTANT_FIELD_REF:
+                case CONSTANT_METHOD_REF:
+                case CONSTANT_INTERFACE_METHOD_REF:
+                case CONSTANT_NAME_AND_TYPE:
+                case CONSTANT_DYNAMIC:
+                case CONSTANT_INVOKE_DYNAMIC:
+                    skip(4);
+                    break;
+                case CONSTANT_LONG:
+                case CONSTANT_DOUBLE:
+                    skip(8);
+                    // These entries take two slots.
+                    i++;
+                    break;
+                default:
+                    throw new IOException("Unknown constant pool tag " + tag);
+            }
+        }
+    }
+
+    /**
+     * Skips the fields or the methods of the class.
+     */
+    private void skipMembers() {
+        final int count = readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            // The access flags, the name and the descriptor.
+            skip(6);
+            skipAttributes();
+        }
+    }
+
+    private void skipAttributes() {
+        final int count = readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            // The attribute name.
+            skip(2);
+            skip(readInt());
+        }
+    }
+
+    /**
+     * Reads the names of the annotations from the class attributes.
+     *
+     * <p>The runtime-visible annotations go first, as Reflections lists them.
+     */
+    private List<String> readAnnotationNames() throws IOException {
+        int visibleAnnotations = -1;
+        int invisibleAnnotations = -1;
+        final int count = readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            final String name = getUtf8(readUnsignedShort());
+            final int length = readInt();
+            if (visibleAnnotations < 0 && VISIBLE_ANNOTATIONS.equals(name)) {
+                visibleAnnotations = position;
+            } else if (invisibleAnnotations < 0 && INVISIBLE_ANNOTATIONS.equals(name)) {
+                invisibleAnnotations = position;
+            }
+            skip(length);
+        }
+        final ImmutableList.Builder<String> result = ImmutableList.builder();
+        readAnnotationNames(visibleAnnotations, result);
+        readAnnotationNames(invisibleAnnotations, result);
+        return result.build();
+    }
+
+    private void readAnnotationNames(int attributePosition, ImmutableList.Builder<String> names)
+            throws IOException {
+        if (attributePosition < 0) {
+            return;
+        }
+        position = attributePosition;
+        final int count = readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            names.add(toClassName(getUtf8(readUnsignedShort())));
+            skipElementValuePairs();
+        }
+    }
+
+    private void skipElementValuePairs() throws IOException {
+        final int count = readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            // The element name.
+            skip(2);
+            skipElementValue();
+        }
+    }
+
+    private void skipElementValue() throws IOException {
+        final char tag = (char) readUnsignedByte();
+        switch (tag) {
+            case 'B':
+            case 'C':
+            case 'D':
+            case 'F':
+            case 'I':
+            case 'J':
+            case 'S':
+            case 'Z':
+            case 's':
+            case 'c':
+                skip(2);
+                break;
+            case 'e':
+                skip(4);
+                break;
+            case '@':
+                // The annotation type.
+                skip(2);
+                skipElementValuePairs();
+                break;
+            case '[':
+                final int count = readUnsignedShort();
+                for (int i = 0; i < count; i++) {
+                    skipElementValue();
+                }
+                break;
+            default:
+                throw new IOException("Unknown annotation element tag " + tag);
+        }
+    }
+
+    /**
+     * Obtains the name of the class referenced by the constant pool entry.
+     *
+     * @return the class name or {@code null} for the entry 0,
+     *         which stands for no superclass of {@code java.lang.Object}
+     */
+    @Nullable
+    private String getClassName(int index) throws IOException {
+        if (index == 0) {
+            return null;
+        }
+        final String internalName = getUtf8(readUnsignedShort(constants[index]));
+        return internalName.replace('/', '.');
+    }
+
+    private String getUtf8(int index) throws IOException {
+        final int start = constants[index];
+        final int length = readUnsignedShort(start);
+        final int dataStart = start + 2;
+        for (int i = dataStart; i < dataStart + length; i++) {
+            final int value = bytes[i];
+            if (value <= 0) {
+                // Non-ASCII chars are encoded in the modified UTF-8 read by `readUTF`.
+                return new DataInputStream(new ByteArrayInputStream(bytes, start, length + 2))
+                        .readUTF();
+            }
+        }
+        return new String(bytes, dataStart, length, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Converts the type descriptor, e.g. {@code Lorg/spine3/Internal;},
+     * to the class name.
+     */
+    private static String toClassName(String descriptor) throws IOException {
+        if (descriptor.length() < 3
+                || descriptor.charAt(0) != 'L'
+                || descriptor.charAt(descriptor.length() - 1) != ';') {
+            throw new IOException("Invalid annotation type " + descriptor);
+        }
+        return descriptor.substring(1, descriptor.length() - 1)
+                         .replace('/', '.');
+    }
+
+    private void skip(int count) {
+        if (count < 0 || position + count > bytes.length) {
+            throw new IndexOutOfBoundsException("Cannot skip " + count + " bytes");
+        }
+        position += count;
+    }
+
+    private int readUnsignedByte() {
+        return bytes[position++] & 0xFF;
+    }
+
+    private int readUnsignedShort() {
+        final int result = readUnsignedShort(position);
+        position += 2;
+        return result;
+    }
+
+    private int readUnsignedShort(int start) {
+        return (bytes[start] & 0xFF) << 8 | bytes[start + 1] & 0xFF;
+    }
+
+    private int readInt() {
+        final int result = readUnsignedShort(position) << 16 | readUnsignedShort(position + 2);
+        position += 4;
+        return result;
+    }
+}
@@ -0,0 +1,413 @@
+/*
+ * Copyright 2017, TeamDev Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.spine3.gradle.reflections;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import org.reflections.Store;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.spine3.gradle.FileUtil;
+
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Lists.newArrayListWithCapacity;
+import static com.google.common.collect.Maps.newHashMap;
+import static com.google.common.collect.Maps.newTreeMap;
+
+/**
+ * A persistent index of the scanned class files.
+ *
+ * <p>The {@linkplain ClassMetadata class data} is keyed by the class file path and the hash
+ * of its contents. The size and the modification time of the file are stored as well,
+ * so that unchanged files are recognized without being read.
+ *
+ * <p>The class file paths are stored relative to the base directory, which contains
+ * the class directories, e.g. {@code build/classes/main/org/spine3/base/Command.class}
+ * is stored as {@code classes/main/org/spine3/base/Command.class}. So the index stays valid
+ * if the project is moved to another directory.
+ *
+ * <p>The index is loaded once before the scan and {@linkplain #save() saved} after it.
+ * Only the files {@linkplain #update(File) updated} during the current scan are saved,
+ * so the removed files are dropped from the index.
+ *
+ * <p>The added and the changed class files may be {@linkplain #update(Collection) read}
+ * in parallel. Each of them is parsed by the {@link ClassFileParser}.
+ */
+final class ClassIndex {
+
+    /**
+     * The version of the index format and of the stored class data.
+     *
+     * <p>Must be increased each time the class data starts to be read differently,
+     * so that the data indexed by the previous versions is not reused.
+     */
+    private static final int VERSION = 2;
+
+    private static final HashFunction CONTENT_HASH = Hashing.murmur3_128();
+
+    private final File file;
+    private final Path baseDir;
+    private final Map<String, Entry> previousEntries;
+    private final Map<String, Entry> currentEntries = newTreeMap();
+
+    private int unchangedCount;
+    private int readCount;
+
+    private ClassIndex(File file, File baseDir, Map<String, Entry> previousEntries) {
+        this.file = file;
+        this.baseDir = baseDir.getAbsoluteFile()
+                              .toPath()
+                              .normalize();
+        this.previousEntries = previousEntries;
+    }
+
+    /**
+     * Loads the index from the given file.
+     *
+     * <p>If the file does not exist or cannot be read, an empty index is returned.
+     *
+     * @param file    the index file
+     * @param baseDir the directory containing the class directories, the class file paths
+     *                are relative to
+     */
+    static ClassIndex load(File file, File baseDir) {
+        if (!file.exists()) {
+            return new ClassIndex(file, baseDir, ImmutableMap.<String, Entry>of());
+        }
+        try {
+            final DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(new FileInputStream(file)));
+            try {
+                return new ClassIndex(file, baseDir, readEntries(in));
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            log().warn("Cannot read the class index {}. The index is ignored.", file, e);
+            return new ClassIndex(file, baseDir, ImmutableMap.<String, Entry>of());
+        }
+    }
+
+    /**
+     * Adds the class file to the current scan.
+     *
+     * <p>The class file is read only if it was added or changed since the previous scan.
+     * Otherwise, the indexed class data is reused.
+     *
+     * @param classFile the class file to add
+     * @return the data of the class
+     * @throws IOException if the class file cannot be read
+     */
+    ClassMetadata update(File classFile) throws IOException {
+        final Entry unchanged = findUnchanged(classFile);
+        if (unchanged != null) {
+            return unchanged.metadata;
+        }
+        final String path = pathOf(classFile);
+        final Entry entry = readEntry(classFile, previousEntries.get(path));
+        put(path, entry);
+        return entry.metadata;
+    }
+
+    /**
+     * Adds the class files to the current scan.
+     *
+     * <p>Works as {@link #update(File)} called for each of the files, except that the added
+     * and the changed files are read in parallel. The files which cannot be read are skipped.
+     *
+     * @param classFiles the class files to add
+     */
+    void update(Collection<File> classFiles) {
+        final List<File> filesToRead = newArrayList();
+        for (File classFile : classFiles) {
+            if (findUnchanged(classFile) == null) {
+                filesToRead.add(classFile);
+            }
+        }
+        if (filesToRead.isEmpty()) {
+            return;
+        }
+        final ForkJoinPool pool = new ForkJoinPool();
+        try {
+            final List<ForkJoinTask<Entry>> tasks = newArrayListWithCapacity(filesToRead.size());
+            for (File classFile : filesToRead) {
+                final Entry previous = previousEntries.get(pathOf(classFile));
+                tasks.add(pool.submit(new ReadTask(classFile, previous)));
+            }
+            for (int i = 0; i < tasks.size(); i++) {
+                final Entry entry = tasks.get(i)
+                                         .join();
+                if (entry != null) {
+                    put(pathOf(filesToRead.get(i)), entry);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Adds the class file to the current scan if its size and modification time
+     * did not change since the previous scan.
+     *
+     * @return the indexed entry of the file or {@code null} if the file should be read
+     */
+    @Nullable
+    private Entry findUnchanged(File classFile) {
+        final String path = pathOf(classFile);
+        final Entry previous = previousEntries.get(path);
+        if (previous != null
+                && previous.size == classFile.length()
+                && previous.lastModified == classFile.lastModified()) {
+            unchangedCount++;
+            currentEntries.put(path, previous);
+            return previous;
+        }
+        return null;
+    }
+
+    /**
+     * Obtains the indexed path of the class file.
+     *
+     * @return the path relative to the base directory with the {@code /} separators, or
+     *         the absolute path if the file is not in the base directory
+     */
+    private String pathOf(File classFile) {
+        final Path path = classFile.getAbsoluteFile()
+                                   .toPath()
+                                   .normalize();
+        if (!path.startsWith(baseDir)) {
+            return path.toString();
+        }
+        return baseDir.relativize(path)
+                      .toString()
+                      .replace(File.separatorChar, '/');
+    }
+
+    private void put(String path, Entry entry) {
+        final Entry previous = previousEntries.get(path);
+        if (previous != null && previous.metadata == entry.metadata) {
+            unchangedCount++;
+        } else {
+            readCount++;
+        }
+        currentEntries.put(path, entry);
+    }
+
+    /**
+     * Reads the class file.
+     *
+     * <p>The class file is parsed only if its content differs from the previously indexed one.
+     * Otherwise, the indexed class data is reused.
+     */
+    private static Entry readEntry(File classFile, @Nullable Entry previous) throws IOException {
+        final long size = classFile.length();
+        final long lastModified = classFile.lastModified();
+        final byte[] content = Files.toByteArray(classFile);
+        final HashCode contentHash = CONTENT_HASH.hashBytes(content);
+        final ClassMetadata metadata = previous != null && previous.contentHash.equals(contentHash)
+                                       ? previous.metadata
+                                       : ClassFileParser.parse(content);
+        return new Entry(size, lastModified, contentHash, metadata);
+    }
+
+    /**
+     * Adds all the classes of the current scan to the Reflections store.
+     */
+    void addTo(Store store) {
+        ClassMetadata.createIndexes(store);
+        for (Entry entry : currentEntries.values()) {
+            entry.metadata.addTo(store);
+        }
+    }
+
+    /**
+     * Obtains the number of the files of the current scan, which were not read,
+     * since they did not change.
+     */
+    int getUnchangedCount() {
+        return unchangedCount;
+    }
+
+    /**
+     * Obtains the number of the files of the current scan, which were read,
+     * since they were added or changed.
+     */
+    int getReadCount() {
+        return readCount;
+    }
+
+    /**
+     * Obtains the number of the previously indexed files, which are not
+     * in the current scan.
+     */
+    int getRemovedCount() {
+        int result = 0;
+        for (String path : previousEntries.keySet()) {
+            if (!currentEntries.containsKey(path)) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Writes the class files of the current scan to the index file.
+     *
+     * <p>The index is written to a temporary file first, which then atomically replaces
+     * the index file. So an interrupted build never leaves a partially written index.
+     */
+    void save() {
+        try {
+            Files.createParentDirs(file);
+            final File tempFile = FileUtil.createTempFile(file);
+            try {
+                final DataOutputStream out = new DataOutputStream(
+                        new BufferedOutputStream(new FileOutputStream(tempFile)));
+                try {
+                    writeEntries(out);
+                } finally {
+                    out.close();
+                }
+                FileUtil.replace(tempFile, file);
+            } finally {
+                if (tempFile.exists() && !tempFile.delete()) {
+                    tempFile.deleteOnExit();
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot write the class index " + file, e);
+        }
+    }
+
+    private void writeEntries(DataOutputStream out) throws IOException {
+        out.writeInt(VERSION);
+        out.writeInt(currentEntries.size());
+        for (Map.Entry<String, Entry> pathEntry : currentEntries.entrySet()) {
+            final Entry entry = pathEntry.getValue();
+            out.writeUTF(pathEntry.getKey());
+            out.writeLong(entry.size);
+            out.writeLong(entry.lastModified);
+            final byte[] hash = entry.contentHash.asBytes();
+            out.writeShort(hash.length);
+            out.write(hash);
+            entry.metadata.writeTo(out);
+        }
+    }
+
+    private static Map<String, Entry> readEntries(DataInputStream in) throws IOException {
+        final int version = in.readInt();
+        if (version != VERSION) {
+            log().debug("The class index version {} is outdated.", version);
+            return ImmutableMap.of();
+        }
+        final int entryCount = in.readInt();
+        final Map<String, Entry> result = newHashMap();
+        for (int i = 0; i < entryCount; i++) {
+            final String path = in.readUTF();
+            final long size = in.readLong();
+            final long lastModified = in.readLong();
+            final byte[] hash = new byte[in.readUnsignedShort()];
+            in.readFully(hash);
+            final ClassMetadata metadata = ClassMetadata.readFrom(in);
+            result.put(path, new Entry(size, lastModified, HashCode.fromBytes(hash), metadata));
+        }
+        return result;
+    }
+
+    /**
+     * The indexed data of a single class file.
+     */
+    private static final class Entry {
+
+        private final long size;
+        private final long lastModified;
+        private final HashCode contentHash;
+        private final ClassMetadata metadata;
+
+        private Entry(long size, long lastModified, HashCode contentHash, ClassMetadata metadata) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.contentHash = contentHash;
+            this.metadata = metadata;
+        }
+    }
+
+    /**
+     * Reads a class file on the thread pool.
+     */
+    private static final class ReadTask implements Callable<Entry> {
+
+        private final File classFile;
+        @Nullable
+        private final Entry previous;
+
+        private ReadTask(File classFile, @Nullable Entry previous) {
+            this.classFile = classFile;
+            this.previous = previous;
+        }
+
+        /**
+         * Reads the class file.
+         *
+         * @return the entry of the class file or {@code null} if it cannot be read
+         */
+        @Nullable
+        @Override
+        public Entry call() {
+            try {
+                return readEntry(classFile, previous);
+            } catch (IOException e) {
+                log().warn("Cannot scan the class file {}", classFile, e);
+                return null;
+            }
+        }
+    }
+
+    private static Logger log() {
+        return LogSingleton.INSTANCE.value;
+    }
+
+    private enum LogSingleton {
+        INSTANCE;
+        @SuppressWarnings("NonSerializableFieldInSerializableClass")
+        private final Logger value = LoggerFactory.getLogger(ClassIndex.class);
+    }
+}
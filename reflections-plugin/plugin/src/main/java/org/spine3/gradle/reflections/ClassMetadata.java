@@ -0,0 +1,156 @@
+/*
+ * Copyright 2017, TeamDev Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.spine3.gradle.reflections;
+
+import com.google.common.collect.ImmutableList;
+import org.reflections.Store;
+import org.reflections.scanners.SubTypesScanner;
+import org.reflections.scanners.TypeAnnotationsScanner;
+
+import javax.annotation.Nullable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * The data of a single class, which is stored by the Reflections scanners
+ * used by the {@link ReflectionsPlugin}.
+ *
+ * <p>The data is the name of the class, the names of its supertypes, and the names of
+ * its annotations. It is read from the class file by the {@link ClassFileParser}
+ * the same way as Reflections reads it.
+ */
+final class ClassMetadata {
+
+    private static final String SUB_TYPES_INDEX = SubTypesScanner.class.getSimpleName();
+    private static final String TYPE_ANNOTATIONS_INDEX =
+            TypeAnnotationsScanner.class.getSimpleName();
+
+    private final String className;
+
+    /**
+     * The name of the superclass or {@code null} for {@code java.lang.Object}.
+     */
+    @Nullable
+    private final String superclassName;
+    private final List<String> interfaceNames;
+    private final List<String> annotationNames;
+
+    ClassMetadata(String className,
+                  @Nullable String superclassName,
+                  List<String> interfaceNames,
+                  List<String> annotationNames) {
+        this.className = className;
+        this.superclassName = superclassName;
+        this.interfaceNames = ImmutableList.copyOf(interfaceNames);
+        this.annotationNames = ImmutableList.copyOf(annotationNames);
+    }
+
+    /**
+     * Adds the class to the Reflections store.
+     *
+     * <p>The class is stored the same way as {@link SubTypesScanner} and
+     * {@link TypeAnnotationsScanner} with their default settings store it. That is,
+     * {@code java.lang.Object} is not stored as a supertype, and all the annotations
+     * are stored.
+     *
+     * @param store the store to add the class to
+     */
+    void addTo(Store store) {
+        if (superclassName != null && !Object.class.getName().equals(superclassName)) {
+            store.getOrCreate(SUB_TYPES_INDEX)
+                 .put(superclassName, className);
+        }
+        for (String interfaceName : interfaceNames) {
+            store.getOrCreate(SUB_TYPES_INDEX)
+                 .put(interfaceName, className);
+        }
+        for (String annotationName : annotationNames) {
+            store.getOrCreate(TYPE_ANNOTATIONS_INDEX)
+                 .put(annotationName, className);
+        }
+    }
+
+    /**
+     * Creates the indexes of the Reflections store, to which the classes are added.
+     *
+     * <p>The indexes are created even if no classes are added, as the scanners do.
+     *
+     * @param store the store to create the indexes in
+     */
+    static void createIndexes(Store store) {
+        store.getOrCreate(SUB_TYPES_INDEX);
+        store.getOrCreate(TYPE_ANNOTATIONS_INDEX);
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeUTF(className);
+        out.writeBoolean(superclassName != null);
+        if (superclassName != null) {
+            out.writeUTF(superclassName);
+        }
+        writeNames(interfaceNames, out);
+        writeNames(annotationNames, out);
+    }
+
+    static ClassMetadata readFrom(DataInput in) throws IOException {
+        final String className = in.readUTF();
+        final String superclassName = in.readBoolean()
+                                      ? in.readUTF()
+                                      : null;
+        final List<String> interfaceNames = readNames(in);
+        final List<String> annotationNames = readNames(in);
+        return new ClassMetadata(className, superclassName, interfaceNames, annotationNames);
+    }
+
+    private static void writeNames(List<String> names, DataOutput out) throws IOException {
+        out.writeInt(names.size());
+        for (String name : names) {
+            out.writeUTF(name);
+        }
+    }
+
+    private static List<String> readNames(DataInput in) throws IOException {
+        final int count = in.readInt();
+        final ImmutableList.Builder<String> names = ImmutableList.builder();
+        for (int i = 0; i < count; i++) {
+            names.add(in.readUTF());
+        }
+        return names.build();
+    }
+
+    String getClassName() {
+        return className;
+    }
+
+    @Nullable
+    String getSuperclassName() {
+        return superclassName;
+    }
+
+    List<String> getInterfaceNames() {
+        return interfaceNames;
+    }
+
+    List<String> getAnnotationNames() {
+        return annotationNames;
+    }
+}
@@ -21,8 +21,15 @@ package org.spine3.gradle.reflections;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
 import org.gradle.api.Project;
+import org.gradle.api.tasks.SourceSet;
 
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Locale;
+
+import static com.google.common.collect.Lists.newArrayList;
 import static java.io.File.separator;
 
 /**
@@ -36,11 +43,57 @@ public class Extension {
     static final String REFLECTIONS_PLUGIN_EXTENSION = "reflectionsPlugin";
 
     /**
-     * The absolute path to the target directory which contains generated `.xml` file
+     * The absolute path to the target directory which contains generated `.xml` or `.bin` file
      * with reflections.
      */
     public String targetDir;
 
+    /**
+     * The names of the source sets whose compiled classes are scanned.
+     *
+     * <p>Only the classes of the {@code main} source set are scanned by default.
+     */
+    public List<String> sourceSets = newArrayList(SourceSet.MAIN_SOURCE_SET_NAME);
+
+    /**
+     * The names of the packages whose classes are scanned along with the classes
+     * of their subpackages, e.g. {@code org.spine3}.
+     *
+     * <p>If there are no packages, all the classes of the source sets are scanned.
+     */
+    public List<String> packages = newArrayList();
+
+    /**
+     * The format of the generated file, either {@code xml} or {@code binary}.
+     *
+     * <p>The {@code xml} format is used by default.
+     *
+     * @see BinaryIndexSerializer
+     */
+    public String format;
+
+    /**
+     * The fully-qualified name of the registry class to generate, e.g.
+     * {@code org.example.ProjectRegistry}.
+     *
+     * <p>If set, the subtypes and the annotated types are also listed in the generated class.
+     * The class is compiled by the {@code reflectionsRegistry} source set and packed to
+     * the project JAR. Otherwise, no registry is generated.
+     *
+     * @see RegistryWriter
+     */
+    public String registryClass;
+
+    /**
+     * The absolute path to the directory to write the source of
+     * the {@linkplain #registryClass registry class} to.
+     *
+     * <p>The directory is the source directory of the {@code reflectionsRegistry} source set.
+     * It is cleared each time the registry is generated, so it should not be used by the other
+     * source sets.
+     */
+    public String registryDir;
+
     static String getTargetDir(Project project) {
         final String path = reflectionsPlugin(project).targetDir;
         if (path == null || path.isEmpty()) {
@@ -53,6 +106,67 @@ public class Extension {
         }
     }
 
+    static List<String> getSourceSets(Project project) {
+        final List<String> sourceSets = reflectionsPlugin(project).sourceSets;
+        return sourceSets == null
+               ? ImmutableList.<String>of()
+               : ImmutableList.copyOf(sourceSets);
+    }
+
+    static List<String> getPackages(Project project) {
+        final List<String> packages = reflectionsPlugin(project).packages;
+        return packages == null
+               ? ImmutableList.<String>of()
+               : ImmutableList.copyOf(packages);
+    }
+
+    static IndexFormat getFormat(Project project) {
+        final String format = reflectionsPlugin(project).format;
+        if (format == null || format.trim()
+                                    .isEmpty()) {
+            return IndexFormat.XML;
+        }
+        final String name = format.trim()
+                                  .toUpperCase(Locale.ROOT);
+        final List<String> supported = newArrayList();
+        for (IndexFormat value : IndexFormat.values()) {
+            if (value.name()
+                     .equals(name)) {
+                return value;
+            }
+            supported.add(value.name()
+                               .toLowerCase(Locale.ROOT));
+        }
+        throw new IllegalArgumentException("Unknown Reflections index format `" + format +
+                                                   "`. Supported formats: " +
+                                                   Joiner.on(", ")
+                                                         .join(supported) + '.');
+    }
+
+    /**
+     * Obtains the name of the registry class to generate.
+     *
+     * @return the class name or {@code null} if the registry is not generated
+     */
+    @Nullable
+    static String getRegistryClass(Project project) {
+        final String className = reflectionsPlugin(project).registryClass;
+        return className == null || className.trim()
+                                             .isEmpty()
+               ? null
+               : className.trim();
+    }
+
+    static String getRegistryDir(Project project) {
+        final String path = reflectionsPlugin(project).registryDir;
+        if (path == null || path.isEmpty()) {
+            return project.getProjectDir()
+                          .getAbsolutePath() + "/generated/main/reflections";
+        } else {
+            return path;
+        }
+    }
+
     @VisibleForTesting      // it should have been `private`.
     static Extension reflectionsPlugin(Project project) {
         return (Extension) project.getExtensions()
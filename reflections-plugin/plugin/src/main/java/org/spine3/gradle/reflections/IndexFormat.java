@@ -0,0 +1,62 @@
+/*
+ * Copyright 2017, TeamDev Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.spine3.gradle.reflections;
+
+import org.reflections.serializers.Serializer;
+import org.reflections.serializers.XmlSerializer;
+import org.spine3.tools.reflections.BinaryIndex;
+
+/**
+ * The formats of the Reflections config generated by the {@link ReflectionsPlugin}.
+ */
+enum IndexFormat {
+
+    /**
+     * The XML format of {@link XmlSerializer}, which is read by Reflections by default.
+     */
+    XML(".xml") {
+        @Override
+        Serializer newSerializer() {
+            return new XmlSerializer();
+        }
+    },
+
+    /**
+     * The compact {@linkplain BinaryIndex binary format}, which may be queried lazily.
+     */
+    BINARY(".bin") {
+        @Override
+        Serializer newSerializer() {
+            return new BinaryIndexSerializer();
+        }
+    };
+
+    private final String fileExtension;
+
+    IndexFormat(String fileExtension) {
+        this.fileExtension = fileExtension;
+    }
+
+    String getFileExtension() {
+        return fileExtension;
+    }
+
+    abstract Serializer newSerializer();
+}
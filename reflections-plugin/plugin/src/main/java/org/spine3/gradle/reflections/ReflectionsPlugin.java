@@ -19,15 +19,20 @@
  */
 package org.spine3.gradle.reflections;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.io.Files;
 import org.gradle.api.Action;
 import org.gradle.api.Project;
 import org.gradle.api.Task;
+import org.gradle.api.file.ConfigurableFileTree;
+import org.gradle.api.plugins.JavaPlugin;
+import org.gradle.api.plugins.JavaPluginConvention;
+import org.gradle.api.tasks.SourceSet;
+import org.gradle.api.tasks.SourceSetContainer;
+import org.gradle.api.tasks.bundling.Jar;
 import org.reflections.Reflections;
-import org.reflections.scanners.SubTypesScanner;
-import org.reflections.scanners.TypeAnnotationsScanner;
+import org.reflections.Store;
 import org.reflections.serializers.Serializer;
-import org.reflections.serializers.XmlSerializer;
 import org.reflections.util.ConfigurationBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,11 +40,12 @@ import org.spine3.gradle.SpinePlugin;
 
 import java.io.File;
 import java.io.IOException;
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
+import static com.google.common.base.Strings.nullToEmpty;
+import static com.google.common.collect.Lists.newArrayList;
 import static java.io.File.separatorChar;
 import static org.spine3.gradle.TaskName.BUILD;
 import static org.spine3.gradle.TaskName.CLASSES;
@@ -52,12 +58,33 @@ import static org.spine3.gradle.reflections.Extension.REFLECTIONS_PLUGIN_EXTENSI
  * <p>Uses reflections embedded scanners to build it's serialized config. This
  * serialized config is required for Reflections framework to run.
  *
+ * <p>Only the compiled classes of the {@linkplain Extension#sourceSets configured source sets}
+ * are scanned. The scan may be further restricted to
+ * the {@linkplain Extension#packages configured packages}.
+ *
+ * <p>The scan is incremental. The data of the scanned classes is stored in
+ * the {@linkplain ClassIndex class index}, so only the class files added or changed since
+ * the previous scan are read. The class files are read in parallel, and only their headers
+ * are parsed.
+ *
+ * <p>The config is written in the {@linkplain Extension#format configured format}.
+ * Optionally, the scanned types are also listed in
+ * the {@linkplain Extension#registryClass generated registry class}. The source of the registry
+ * is compiled by the {@code reflectionsRegistry} source set and packed to the project JAR.
+ *
  * <p>Corresponding Maven plugin does just the same.
  *
  * @author Alex Tymchenko
  */
 public class ReflectionsPlugin extends SpinePlugin {
 
+    private static final String INDEX_FILE_PATH = "reflections/class-index.bin";
+
+    /**
+     * The name of the source set compiling the {@linkplain Extension#registryClass registry}.
+     */
+    static final String REGISTRY_SOURCE_SET_NAME = "reflectionsRegistry";
+
     /**
      * Applied to project.
      *
@@ -80,46 +107,203 @@ public class ReflectionsPlugin extends SpinePlugin {
                                                              .insertBeforeTask(BUILD)
                                                              .applyNowTo(project);
 
+        declareInputsAndOutputs(project.getTasks()
+                                       .getByName(SCAN_CLASS_PATH.getValue()), project);
+
+        project.afterEvaluate(new Action<Project>() {
+            @Override
+            public void execute(Project evaluatedProject) {
+                addRegistrySourceSet(evaluatedProject);
+            }
+        });
+
         log().debug("Reflection Gradle plugin initialized with the Gradle task: {}", task);
     }
 
+    /**
+     * Declares the scanned class files as the inputs of the task and the generated
+     * Reflections config and the {@linkplain ClassIndex class index} as its outputs.
+     *
+     * <p>This way the task is skipped if no class files changed. Otherwise, only the changed
+     * class files are read, while the data of the rest of the classes is taken from the index.
+     *
+     * <p>The task also depends on the tasks compiling the classes of the scanned source sets.
+     */
+    private static void declareInputsAndOutputs(Task task, final Project project) {
+        task.dependsOn(new Callable<List<String>>() {
+            @Override
+            public List<String> call() {
+                final List<String> result = newArrayList();
+                for (SourceSet sourceSet : getSourceSetsToScan(project)) {
+                    result.add(sourceSet.getClassesTaskName());
+                }
+                return result;
+            }
+        });
+        task.getInputs()
+            .files(new Callable<List<ConfigurableFileTree>>() {
+                @Override
+                public List<ConfigurableFileTree> call() {
+                    final List<String> patterns = newClassFileFinder(project).getPatterns();
+                    final List<ConfigurableFileTree> result = newArrayList();
+                    for (File classesDir : getClassesDirs(project)) {
+                        final ConfigurableFileTree classFiles = project.fileTree(classesDir);
+                        classFiles.include(patterns);
+                        result.add(classFiles);
+                    }
+                    return result;
+                }
+            });
+        task.getOutputs()
+            .file(new Callable<File>() {
+                @Override
+                public File call() {
+                    return getReflectionsOutputFile(project);
+                }
+            });
+        task.getOutputs()
+            .file(getIndexFile(project));
+        task.getInputs()
+            .property("registryClass", new Callable<String>() {
+                @Override
+                public String call() {
+                    return nullToEmpty(Extension.getRegistryClass(project));
+                }
+            });
+        task.getOutputs()
+            .files(new Callable<List<File>>() {
+                @Override
+                public List<File> call() {
+                    final String registryClass = Extension.getRegistryClass(project);
+                    if (registryClass == null) {
+                        return ImmutableList.of();
+                    }
+                    final File registryDir = new File(Extension.getRegistryDir(project));
+                    return ImmutableList.of(new RegistryWriter(registryClass).getSourceFile(
+                            registryDir));
+                }
+            });
+    }
+
+    /**
+     * Adds the source set compiling the {@linkplain Extension#registryClass registry class}.
+     *
+     * <p>The registry is generated by the {@code scanClassPath} task, which runs after
+     * the scanned classes are compiled. So the registry cannot be compiled along with them and
+     * is compiled by a separate source set instead. The compiled registry is added to
+     * the project JAR, so that it is packed along with the classes listed in it.
+     */
+    private static void addRegistrySourceSet(Project project) {
+        final JavaPluginConvention javaConvention =
+                project.getConvention()
+                       .findPlugin(JavaPluginConvention.class);
+        if (Extension.getRegistryClass(project) == null || javaConvention == null) {
+            return;
+        }
+        final SourceSet registrySourceSet = javaConvention.getSourceSets()
+                                                          .create(REGISTRY_SOURCE_SET_NAME);
+        registrySourceSet.getJava()
+                         .setSrcDirs(ImmutableList.of(Extension.getRegistryDir(project)));
+        registrySourceSet.getResources()
+                         .setSrcDirs(ImmutableList.of());
+        project.getTasks()
+               .getByName(registrySourceSet.getCompileJavaTaskName())
+               .dependsOn(SCAN_CLASS_PATH.getValue());
+        final Task jar = project.getTasks()
+                                .findByName(JavaPlugin.JAR_TASK_NAME);
+        if (jar instanceof Jar) {
+            ((Jar) jar).from(registrySourceSet.getOutput());
+        }
+        log().debug("The registry is compiled by the `{}` source set", REGISTRY_SOURCE_SET_NAME);
+    }
+
     private static void scanClassPath(Project project) {
         log().debug("Scanning the classpath");
 
-        final String outputDirPath = project.getProjectDir() + "/build";
-        final File outputDir = new File(outputDirPath);
-        ensureFolderCreated(outputDir);
+        final File reflectionsOutputFile = getReflectionsOutputFile(project);
+        ensureFolderCreated(reflectionsOutputFile.getParentFile());
 
-        final String targetDirPath = Extension.getTargetDir(project);
-        final File reflectionsOutputDir = new File(targetDirPath);
-        ensureFolderCreated(reflectionsOutputDir);
+        final ClassIndex index = ClassIndex.load(getIndexFile(project), project.getBuildDir());
+        final Set<File> classFiles = newClassFileFinder(project).find(getClassesDirs(project));
+        index.update(classFiles);
+        log().debug("{} class files found: {} read, {} unchanged, {} removed",
+                    classFiles.size(), index.getReadCount(), index.getUnchangedCount(),
+                    index.getRemovedCount());
 
         final ConfigurationBuilder config = new ConfigurationBuilder();
-        config.setUrls(toUrls(outputDir));
-        config.setScanners(new SubTypesScanner(), new TypeAnnotationsScanner());
+        // The classes are added to the store from the index instead of being scanned.
+        config.setScanners();
 
-        final Serializer serializerInstance = new XmlSerializer();
+        final Serializer serializerInstance = Extension.getFormat(project)
+                                                       .newSerializer();
         config.setSerializer(serializerInstance);
 
         final Reflections reflections = new Reflections(config);
-        final String reflectionsOutputFilePath =
-                targetDirPath + separatorChar + project.getName() + "-reflections.xml";
-        reflections.save(reflectionsOutputFilePath);
+        index.addTo(reflections.getStore());
+        reflections.save(reflectionsOutputFile.getPath());
+        final String registryClass = Extension.getRegistryClass(project);
+        if (registryClass != null) {
+            writeRegistry(project, registryClass, reflections.getStore());
+        }
+        index.save();
     }
 
-    private static Set<URL> toUrls(File outputDir) {
-        // because they are file URIs, they will not cause any network-related issues.
-        @SuppressWarnings("CollectionContainsUrl")
-        final Set<URL> urls = new HashSet<>();
-        try {
-            urls.add(outputDir.toURI()
-                              .toURL());
-        } catch (MalformedURLException e) {
-            final String message = "Cannot parse an output directory: "
-                    + outputDir.getAbsolutePath();
-            throw new IllegalArgumentException(message, e);
+    private static void writeRegistry(Project project, String registryClass, Store store) {
+        log().debug("Generating the registry {}", registryClass);
+        final File registryDir = new File(Extension.getRegistryDir(project));
+        new RegistryWriter(registryClass).writeSource(store, registryDir);
+    }
+
+    /**
+     * Obtains the scanned source sets of the project.
+     *
+     * <p>The source sets missing in the project are skipped. If the Java plugin is not applied
+     * to the project, there are no source sets to scan.
+     */
+    private static List<SourceSet> getSourceSetsToScan(Project project) {
+        final JavaPluginConvention javaConvention =
+                project.getConvention()
+                       .findPlugin(JavaPluginConvention.class);
+        if (javaConvention == null) {
+            log().warn("There are no source sets to scan in {}", project);
+            return ImmutableList.of();
         }
-        return urls;
+        final SourceSetContainer sourceSets = javaConvention.getSourceSets();
+        final List<SourceSet> result = newArrayList();
+        for (String name : Extension.getSourceSets(project)) {
+            final SourceSet sourceSet = sourceSets.findByName(name);
+            if (sourceSet == null) {
+                log().warn("Source set `{}` is not found in {}", name, project);
+            } else {
+                result.add(sourceSet);
+            }
+        }
+        return result;
+    }
+
+    private static List<File> getClassesDirs(Project project) {
+        final List<File> result = newArrayList();
+        for (SourceSet sourceSet : getSourceSetsToScan(project)) {
+            result.add(sourceSet.getOutput()
+                                .getClassesDir());
+        }
+        return result;
+    }
+
+    private static ClassFileFinder newClassFileFinder(Project project) {
+        return new ClassFileFinder(Extension.getPackages(project));
+    }
+
+    private static File getReflectionsOutputFile(Project project) {
+        final String targetDirPath = Extension.getTargetDir(project);
+        final String extension = Extension.getFormat(project)
+                                          .getFileExtension();
+        return new File(targetDirPath + separatorChar + project.getName() + "-reflections"
+                                + extension);
+    }
+
+    private static File getIndexFile(Project project) {
+        return new File(project.getBuildDir(), INDEX_FILE_PATH);
     }
 
     private static void ensureFolderCreated(File folder) {
@@ -0,0 +1,330 @@
+/*
+ * Copyright 2017, TeamDev Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.spine3.gradle.reflections;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import org.reflections.Store;
+import org.reflections.scanners.SubTypesScanner;
+import org.reflections.scanners.TypeAnnotationsScanner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.Maps.newTreeMap;
+import static com.google.common.collect.Sets.newTreeSet;
+import static javax.lang.model.element.Modifier.FINAL;
+import static javax.lang.model.element.Modifier.PRIVATE;
+import static javax.lang.model.element.Modifier.PUBLIC;
+import static javax.lang.model.element.Modifier.STATIC;
+
+/**
+ * Generates the Java class listing the subtypes and the annotated types found
+ * by the {@link ReflectionsPlugin}.
+ *
+ * <p>For each supertype and each annotation, the registry class holds the names of
+ * the classes as string constants. So, at runtime, the types are looked up without
+ * reading any resources or scanning the classpath, e.g.:
+ * <pre>{@code
+ * final Set<String> commandHandlers = ProjectRegistry.getSubTypesOf(
+ *         "org.spine3.server.command.CommandHandler");
+ * }</pre>
+ *
+ * <p>The registry lists the same types as the Reflections config does, i.e. the direct
+ * supertypes and the annotations of the scanned classes. The generated code depends only
+ * on the JDK, so it is compiled separately from the scanned classes.
+ */
+final class RegistryWriter {
+
+    /**
+     * The maximum number of the type names added to the registry by a single method.
+     *
+     * <p>Keeps the generated methods within the JVM limit on the method size.
+     */
+    private static final int NAMES_PER_METHOD = 1000;
+
+    private static final String SUB_TYPES_INDEX = SubTypesScanner.class.getSimpleName();
+    private static final String TYPE_ANNOTATIONS_INDEX =
+            TypeAnnotationsScanner.class.getSimpleName();
+
+    private static final String SUB_TYPES_FIELD = "SUB_TYPES";
+    private static final String ANNOTATED_TYPES_FIELD = "ANNOTATED_TYPES";
+
+    private static final TypeName LIST_OF_STRINGS =
+            ParameterizedTypeName.get(List.class, String.class);
+    private static final TypeName SET_OF_STRINGS =
+            ParameterizedTypeName.get(Set.class, String.class);
+    private static final TypeName MAP_OF_LISTS =
+            ParameterizedTypeName.get(ClassName.get(Map.class),
+                                      ClassName.get(String.class),
+                                      LIST_OF_STRINGS);
+
+    private final ClassName className;
+
+    /**
+     * Creates the writer of the registry class.
+     *
+     * @param className the fully-qualified name of the registry class
+     */
+    RegistryWriter(String className) {
+        checkArgument(!className.trim()
+                                .isEmpty(), "The registry class name must not be empty.");
+        this.className = ClassName.bestGuess(className.trim());
+    }
+
+    /**
+     * Generates the registry of the classes in the Reflections store.
+     *
+     * <p>The types are sorted, so the same store always produces the same code.
+     *
+     * @param store the store filled by the scan
+     * @return the source file of the registry class
+     */
+    JavaFile generate(Store store) {
+        final TypeSpec.Builder registry =
+                TypeSpec.classBuilder(className)
+                        .addModifiers(PUBLIC, FINAL)
+                        .addJavadoc("The subtypes and the annotated types of the project.\n\n"
+                                            + "<p>Generated by the Spine Reflections plugin."
+                                            + " Do not edit.\n")
+                        .addField(FieldSpec.builder(MAP_OF_LISTS, SUB_TYPES_FIELD,
+                                                    PRIVATE, STATIC, FINAL)
+                                           .initializer("new $T<>()", HashMap.class)
+                                           .build())
+                        .addField(FieldSpec.builder(MAP_OF_LISTS, ANNOTATED_TYPES_FIELD,
+                                                    PRIVATE, STATIC, FINAL)
+                                           .initializer("new $T<>()", HashMap.class)
+                                           .build());
+        final CodeBlock.Builder initializer = CodeBlock.builder();
+        addRegistrationMethods(registry, initializer, "registerSubTypes", SUB_TYPES_FIELD,
+                               getIndex(store, SUB_TYPES_INDEX));
+        addRegistrationMethods(registry, initializer, "registerAnnotatedTypes",
+                               ANNOTATED_TYPES_FIELD, getIndex(store, TYPE_ANNOTATIONS_INDEX));
+        registry.addStaticBlock(initializer.build())
+                .addMethod(MethodSpec.constructorBuilder()
+                                     .addModifiers(PRIVATE)
+                                     .addComment("Prevent instantiation of this registry class.")
+                                     .build())
+                .addMethod(getDirectSubTypesOf())
+                .addMethod(getSubTypesOf())
+                .addMethod(getTypesAnnotatedWith())
+                .addMethod(getNames());
+        return JavaFile.builder(className.packageName(), registry.build())
+                       .skipJavaLangImports(true)
+                       .build();
+    }
+
+    /**
+     * Writes the source file of the registry.
+     *
+     * <p>The directory is cleared before writing, so that it contains only the registry.
+     *
+     * @param store     the store filled by the scan
+     * @param sourceDir the root directory of the generated sources
+     * @return the written source file
+     */
+    File writeSource(Store store, File sourceDir) {
+        final JavaFile javaFile = generate(store);
+        log().debug("Writing the registry {} to {}", className, sourceDir);
+        deleteRecursively(sourceDir);
+        try {
+            javaFile.writeTo(sourceDir);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot write the registry to " + sourceDir, e);
+        }
+        return getSourceFile(sourceDir);
+    }
+
+    /**
+     * Obtains the source file of the registry in the directory of the generated sources.
+     */
+    File getSourceFile(File sourceDir) {
+        final String packageName = className.packageName();
+        final File packageDir = packageName.isEmpty()
+                                ? sourceDir
+                                : new File(sourceDir, packageName.replace('.', File.separatorChar));
+        return new File(packageDir, className.simpleName() + ".java");
+    }
+
+    private static void deleteRecursively(File file) {
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        if (file.exists() && !file.delete()) {
+            throw new IllegalStateException("Cannot delete " + file);
+        }
+    }
+
+    /**
+     * Obtains the types stored in the index, sorted by the key and by the type name.
+     */
+    private static SortedMap<String, SortedSet<String>> getIndex(Store store, String indexName) {
+        final SortedMap<String, SortedSet<String>> result = newTreeMap();
+        if (!store.keySet()
+                  .contains(indexName)) {
+            return result;
+        }
+        for (Map.Entry<String, Collection<String>> entry : store.get(indexName)
+                                                                .asMap()
+                                                                .entrySet()) {
+            result.put(entry.getKey(), newTreeSet(entry.getValue()));
+        }
+        return result;
+    }
+
+    /**
+     * Adds the methods putting the types of the index into the registry field.
+     *
+     * <p>The types are split among several methods called from the static initializer,
+     * so that none of the methods is too large.
+     */
+    private static void addRegistrationMethods(TypeSpec.Builder registry,
+                                               CodeBlock.Builder initializer,
+                                               String methodPrefix,
+                                               String field,
+                                               SortedMap<String, SortedSet<String>> index) {
+        MethodSpec.Builder method = null;
+        int namesInMethod = 0;
+        int methodCount = 0;
+        for (Map.Entry<String, SortedSet<String>> entry : index.entrySet()) {
+            if (method == null || namesInMethod >= NAMES_PER_METHOD) {
+                if (method != null) {
+                    registry.addMethod(method.build());
+                }
+                final String methodName = methodPrefix + methodCount++;
+                method = MethodSpec.methodBuilder(methodName)
+                                   .addModifiers(PRIVATE, STATIC);
+                initializer.addStatement("$N()", methodName);
+                namesInMethod = 0;
+            }
+            method.addStatement("$N.put($S, $L)", field, entry.getKey(),
+                                toListCode(entry.getValue()));
+            namesInMethod += 1 + entry.getValue()
+                                      .size();
+        }
+        if (method != null) {
+            registry.addMethod(method.build());
+        }
+    }
+
+    private static CodeBlock toListCode(Collection<String> names) {
+        final CodeBlock.Builder result = CodeBlock.builder()
+                                                  .add("$T.unmodifiableList($T.asList(",
+                                                       Collections.class, Arrays.class);
+        boolean first = true;
+        for (String name : names) {
+            result.add(first ? "\n$S" : ",\n$S", name);
+            first = false;
+        }
+        return result.add("))")
+                     .build();
+    }
+
+    private static MethodSpec getDirectSubTypesOf() {
+        return MethodSpec.methodBuilder("getDirectSubTypesOf")
+                         .addJavadoc("Obtains the names of the classes directly extending"
+                                             + " or implementing the type.\n")
+                         .addModifiers(PUBLIC, STATIC)
+                         .returns(LIST_OF_STRINGS)
+                         .addParameter(String.class, "typeName")
+                         .addStatement("return getNames($N, typeName)", SUB_TYPES_FIELD)
+                         .build();
+    }
+
+    private static MethodSpec getSubTypesOf() {
+        return MethodSpec.methodBuilder("getSubTypesOf")
+                         .addJavadoc("Obtains the names of all the subtypes of the type,"
+                                             + " including the indirect ones.\n")
+                         .addModifiers(PUBLIC, STATIC)
+                         .returns(SET_OF_STRINGS)
+                         .addParameter(String.class, "typeName")
+                         .addStatement("final $T result = new $T<>(getDirectSubTypesOf(typeName))",
+                                       SET_OF_STRINGS, LinkedHashSet.class)
+                         .addStatement("final $T typesToVisit = new $T<>(result)",
+                                       LIST_OF_STRINGS, ArrayList.class)
+                         .beginControlFlow("for (int i = 0; i < typesToVisit.size(); i++)")
+                         .beginControlFlow("for (String subType : getDirectSubTypesOf("
+                                                   + "typesToVisit.get(i)))")
+                         .beginControlFlow("if (result.add(subType))")
+                         .addStatement("typesToVisit.add(subType)")
+                         .endControlFlow()
+                         .endControlFlow()
+                         .endControlFlow()
+                         .addStatement("return $T.unmodifiableSet(result)", Collections.class)
+                         .build();
+    }
+
+    private static MethodSpec getTypesAnnotatedWith() {
+        return MethodSpec.methodBuilder("getTypesAnnotatedWith")
+                         .addJavadoc("Obtains the names of the classes annotated with"
+                                             + " the annotation.\n")
+                         .addModifiers(PUBLIC, STATIC)
+                         .returns(LIST_OF_STRINGS)
+                         .addParameter(String.class, "annotationName")
+                         .addStatement("return getNames($N, annotationName)",
+                                       ANNOTATED_TYPES_FIELD)
+                         .build();
+    }
+
+    private static MethodSpec getNames() {
+        return MethodSpec.methodBuilder("getNames")
+                         .addModifiers(PRIVATE, STATIC)
+                         .returns(LIST_OF_STRINGS)
+                         .addParameter(MAP_OF_LISTS, "registry")
+                         .addParameter(String.class, "key")
+                         .addStatement("final $T result = registry.get(key)", LIST_OF_STRINGS)
+                         .addStatement("return result == null ? $T.<String>emptyList() : result",
+                                       Collections.class)
+                         .build();
+    }
+
+    private static Logger log() {
+        return LogSingleton.INSTANCE.value;
+    }
+
+    private enum LogSingleton {
+        INSTANCE;
+        @SuppressWarnings("NonSerializableFieldInSerializableClass")
+        private final Logger value = LoggerFactory.getLogger(RegistryWriter.class);
+    }
+}
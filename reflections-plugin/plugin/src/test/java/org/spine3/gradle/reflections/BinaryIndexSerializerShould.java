@@ -0,0 +1,181 @@
+/*
+ * Copyright 2017, TeamDev Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.spine3.gradle.reflections;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.Files;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.reflections.Reflections;
+import org.reflections.Store;
+import org.reflections.util.ConfigurationBuilder;
+import org.spine3.tools.reflections.BinaryIndex;
+import org.spine3.tools.reflections.BinaryIndexReader;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BinaryIndexSerializerShould {
+
+    private static final String SUB_TYPES = "SubTypesScanner";
+    private static final String TYPE_ANNOTATIONS = "TypeAnnotationsScanner";
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void read_saved_store() throws IOException {
+        final Reflections reflections = newReflections();
+        fill(reflections.getStore(), false);
+        final File file = save(reflections, "index.bin");
+
+        final Reflections read;
+        try (InputStream in = new FileInputStream(file)) {
+            read = new BinaryIndexReader().read(in);
+        }
+
+        final Store expected = reflections.getStore();
+        final Store actual = read.getStore();
+        assertEquals(expected.keySet(), actual.keySet());
+        assertEquals(expected.get(SUB_TYPES), actual.get(SUB_TYPES));
+        assertEquals(expected.get(TYPE_ANNOTATIONS), actual.get(TYPE_ANNOTATIONS));
+    }
+
+    @Test
+    public void write_same_bytes_for_same_store() throws IOException {
+        final Reflections first = newReflections();
+        fill(first.getStore(), false);
+        final Reflections second = newReflections();
+        fill(second.getStore(), true);
+
+        final byte[] firstBytes = Files.toByteArray(save(first, "first.bin"));
+        final byte[] secondBytes = Files.toByteArray(save(second, "second.bin"));
+
+        assertArrayEquals(firstBytes, secondBytes);
+    }
+
+    @Test
+    public void look_up_values_in_mapped_index() throws IOException {
+        final Reflections reflections = newReflections();
+        fill(reflections.getStore(), false);
+        final BinaryIndex index = BinaryIndex.open(save(reflections, "index.bin"));
+
+        assertEquals(ImmutableList.of(SUB_TYPES, TYPE_ANNOTATIONS), index.getIndexNames());
+        assertEquals(ImmutableSet.of("org.spine3.base.CommandId", "org.spine3.base.EventId"),
+                     index.getValues(SUB_TYPES, "com.google.protobuf.Message"));
+        assertEquals(ImmutableSet.of("org.spine3.server.Repository"),
+                     index.getValues(TYPE_ANNOTATIONS, "org.spine3.Internal"));
+        assertEquals(ImmutableSet.of("DefaultPackageClass"),
+                     index.getValues(SUB_TYPES, "DefaultPackageInterface"));
+    }
+
+    @Test
+    public void return_no_values_for_unknown_keys() throws IOException {
+        final Reflections reflections = newReflections();
+        fill(reflections.getStore(), false);
+        final BinaryIndex index = BinaryIndex.open(save(reflections, "index.bin"));
+
+        assertTrue(index.getValues(SUB_TYPES, "org.spine3.base.Unknown")
+                        .isEmpty());
+        assertTrue(index.getValues(SUB_TYPES, "org.unknown.Type")
+                        .isEmpty());
+        assertTrue(index.getValues("UnknownScanner", "com.google.protobuf.Message")
+                        .isEmpty());
+        assertTrue(index.getValues(TYPE_ANNOTATIONS, "com.google.protobuf.Message")
+                        .isEmpty());
+    }
+
+    @Test
+    public void shard_entries_by_key_package() throws IOException {
+        final Reflections reflections = newReflections();
+        fill(reflections.getStore(), false);
+        final BinaryIndex index = BinaryIndex.open(save(reflections, "index.bin"));
+
+        // "", "com.google.protobuf", "java.io", "java.lang", and "org.spine3".
+        assertEquals(5, index.getShardCount());
+    }
+
+    @Test
+    public void save_empty_store() throws IOException {
+        final Reflections reflections = newReflections();
+        final BinaryIndex index = BinaryIndex.open(save(reflections, "empty.bin"));
+
+        assertEquals(0, index.getShardCount());
+        assertTrue(index.getValues(SUB_TYPES, "com.google.protobuf.Message")
+                        .isEmpty());
+    }
+
+    @Test
+    public void replace_existing_index_without_leaving_temp_files() throws IOException {
+        final Reflections empty = newReflections();
+        save(empty, "index.bin");
+        final Reflections reflections = newReflections();
+        fill(reflections.getStore(), false);
+        final BinaryIndex index = BinaryIndex.open(save(reflections, "index.bin"));
+
+        assertEquals(5, index.getShardCount());
+        assertArrayEquals(new String[]{"index.bin"}, folder.getRoot()
+                                                           .list());
+    }
+
+    private File save(Reflections reflections, String fileName) {
+        final String path = new File(folder.getRoot(), fileName).getPath();
+        return new BinaryIndexSerializer().save(reflections, path);
+    }
+
+    private static Reflections newReflections() {
+        final ConfigurationBuilder config = new ConfigurationBuilder();
+        config.setScanners();
+        return new Reflections(config);
+    }
+
+    /**
+     * Fills the store with the same entries in the direct or in the reverse order.
+     */
+    private static void fill(Store store, boolean reverse) {
+        final String[][] entries = {
+                {SUB_TYPES, "com.google.protobuf.Message", "org.spine3.base.CommandId"},
+                {SUB_TYPES, "com.google.protobuf.Message", "org.spine3.base.EventId"},
+                {SUB_TYPES, "java.io.Serializable", "org.spine3.base.Identifiers"},
+                {SUB_TYPES, "DefaultPackageInterface", "DefaultPackageClass"},
+                {TYPE_ANNOTATIONS, "org.spine3.Internal", "org.spine3.server.Repository"},
+                {TYPE_ANNOTATIONS, "java.lang.Deprecated", "org.spine3.base.Stringifiers"}
+        };
+        final List<String[]> ordered = Arrays.asList(entries);
+        if (reverse) {
+            Collections.reverse(ordered);
+        }
+        for (String[] entry : ordered) {
+            store.getOrCreate(entry[0])
+                 .put(entry[1], entry[2]);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2017, TeamDev Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.spine3.gradle.reflections;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.Files;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+public class ClassFileFinderShould {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private File mainClasses;
+    private File testClasses;
+
+    @Before
+    public void setUp() throws IOException {
+        mainClasses = folder.newFolder("main");
+        testClasses = folder.newFolder("test");
+    }
+
+    @Test
+    public void find_all_class_files_if_no_packages_specified() throws IOException {
+        final File topLevel = newFile(mainClasses, "TopLevel.class");
+        final File nested = newFile(mainClasses, "org/spine3/Nested.class");
+        newFile(mainClasses, "org/spine3/resource.txt");
+        final File test = newFile(testClasses, "org/spine3/NestedTest.class");
+
+        final ClassFileFinder finder = new ClassFileFinder(Collections.<String>emptyList());
+        final Set<File> found = finder.find(ImmutableList.of(mainClasses, testClasses));
+
+        assertEquals(ImmutableSet.of(topLevel, nested, test), found);
+    }
+
+    @Test
+    public void find_class_files_of_packages_and_subpackages() throws IOException {
+        final File inPackage = newFile(mainClasses, "org/spine3/InPackage.class");
+        final File inSubpackage = newFile(mainClasses, "org/spine3/base/InSubpackage.class");
+        newFile(mainClasses, "org/spine3x/SamePrefix.class");
+        newFile(mainClasses, "org/Parent.class");
+        newFile(mainClasses, "TopLevel.class");
+
+        final ClassFileFinder finder = new ClassFileFinder(ImmutableList.of("org.spine3"));
+        final Set<File> found = finder.find(ImmutableList.of(mainClasses));
+
+        assertEquals(ImmutableSet.of(inPackage, inSubpackage), found);
+    }
+
+    @Test
+    public void find_class_files_of_nested_packages_once() throws IOException {
+        final File inSubpackage = newFile(mainClasses, "org/spine3/base/InSubpackage.class");
+
+        final ClassFileFinder finder =
+                new ClassFileFinder(ImmutableList.of("org.spine3.base", "org.spine3"));
+        final Set<File> found = finder.find(ImmutableList.of(mainClasses));
+
+        assertEquals(ImmutableSet.of(inSubpackage), found);
+        assertEquals(ImmutableList.of("org/spine3/**/*.class"), finder.getPatterns());
+    }
+
+    @Test
+    public void skip_missing_directories() {
+        final File missing = new File(folder.getRoot(), "missing");
+
+        final ClassFileFinder finder = new ClassFileFinder(ImmutableList.of("org.spine3"));
+
+        assertEquals(0, finder.find(ImmutableList.of(missing))
+                              .size());
+    }
+
+    @Test
+    public void provide_patterns_of_all_class_files_if_no_packages_specified() {
+        final ClassFileFinder finder = new ClassFileFinder(ImmutableList.of(" "));
+
+        assertEquals(ImmutableList.of("**/*.class"), finder.getPatterns());
+    }
+
+    private static File newFile(File dir, String path) throws IOException {
+        final File result = new File(dir, path);
+        Files.createParentDirs(result);
+        Files.touch(result);
+        return result;
+    }
+}
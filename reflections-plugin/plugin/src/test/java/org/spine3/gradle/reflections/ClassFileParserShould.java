@@ -0,0 +1,180 @@
+/*
+ * Copyright 2017, TeamDev Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.spine3.gradle.reflections;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+import javassist.bytecode.AnnotationsAttribute;
+import javassist.bytecode.ClassFile;
+import javassist.bytecode.ConstPool;
+import javassist.bytecode.annotation.Annotation;
+import org.junit.Test;
+import org.reflections.adapters.JavassistAdapter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ClassFileParserShould {
+
+    private static final JavassistAdapter ADAPTER = new JavassistAdapter();
+
+    @Test
+    public void read_class_data_same_as_javassist() throws IOException {
+        final Class<?>[] classes = {
+                Object.class,
+                String.class,
+                TimeUnit.class,
+                Deprecated.class,
+                ImmutableList.class,
+                ClassFileParserShould.class,
+                AnnotatedClass.class,
+                Complex.class
+        };
+        for (Class<?> cls : classes) {
+            assertSameAsJavassist(classBytes(cls));
+        }
+    }
+
+    @Test
+    public void read_class_without_superclass() throws IOException {
+        final ClassMetadata metadata = ClassFileParser.parse(classBytes(Object.class));
+
+        assertNull(metadata.getSuperclassName());
+    }
+
+    @Test
+    public void read_annotations_with_values() throws IOException {
+        final ClassMetadata metadata = ClassFileParser.parse(classBytes(AnnotatedClass.class));
+
+        assertEquals(ImmutableList.of(Complex.class.getName(), Deprecated.class.getName()),
+                     metadata.getAnnotationNames());
+        assertEquals(ImmutableList.of(Serializable.class.getName(), Cloneable.class.getName()),
+                     metadata.getInterfaceNames());
+    }
+
+    @Test
+    public void read_non_ascii_names_and_invisible_annotations() throws IOException {
+        final ClassFile cls = new ClassFile(false, "org.example.Cl\u00e4ss\u4e2d",
+                                            "org.example.B\u00e4se");
+        cls.setInterfaces(new String[]{"org.example.M\u00e4rker"});
+        final ConstPool constPool = cls.getConstPool();
+        final AnnotationsAttribute invisible =
+                new AnnotationsAttribute(constPool, AnnotationsAttribute.invisibleTag);
+        invisible.addAnnotation(new Annotation("org.example.Inv\u00efsible", constPool));
+        cls.addAttribute(invisible);
+        final AnnotationsAttribute visible =
+                new AnnotationsAttribute(constPool, AnnotationsAttribute.visibleTag);
+        visible.addAnnotation(new Annotation("org.example.Visible", constPool));
+        cls.addAttribute(visible);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        cls.write(new DataOutputStream(out));
+
+        final ClassMetadata metadata = ClassFileParser.parse(out.toByteArray());
+
+        assertEquals("org.example.Cl\u00e4ss\u4e2d", metadata.getClassName());
+        assertEquals("org.example.B\u00e4se", metadata.getSuperclassName());
+        assertEquals(ImmutableList.of("org.example.M\u00e4rker"), metadata.getInterfaceNames());
+        assertEquals(ImmutableList.of("org.example.Visible", "org.example.Inv\u00efsible"),
+                     metadata.getAnnotationNames());
+        assertSameAsJavassist(out.toByteArray());
+    }
+
+    @Test(expected = IOException.class)
+    public void reject_non_class_file() throws IOException {
+        ClassFileParser.parse(new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+    }
+
+    @Test(expected = IOException.class)
+    public void reject_truncated_class_file() throws IOException {
+        final byte[] classFile = classBytes(AnnotatedClass.class);
+        ClassFileParser.parse(Arrays.copyOf(classFile, classFile.length - 3));
+    }
+
+    private static void assertSameAsJavassist(byte[] classFile) throws IOException {
+        final ClassFile cls = new ClassFile(new DataInputStream(
+                new ByteArrayInputStream(classFile)));
+
+        final ClassMetadata metadata = ClassFileParser.parse(classFile);
+
+        final String className = ADAPTER.getClassName(cls);
+        assertEquals(className, metadata.getClassName());
+        assertEquals(className, ADAPTER.getSuperclassName(cls), metadata.getSuperclassName());
+        assertEquals(className, ADAPTER.getInterfacesNames(cls), metadata.getInterfaceNames());
+        assertEquals(className, ADAPTER.getClassAnnotationNames(cls),
+                     metadata.getAnnotationNames());
+    }
+
+    private static byte[] classBytes(Class<?> cls) throws IOException {
+        final String resourceName = '/' + cls.getName()
+                                             .replace('.', '/') + ".class";
+        try (InputStream in = cls.getResourceAsStream(resourceName)) {
+            return ByteStreams.toByteArray(in);
+        }
+    }
+
+    @Retention(RetentionPolicy.RUNTIME)
+    private @interface Complex {
+
+        String[] names();
+
+        TimeUnit unit();
+
+        Deprecated nested();
+
+        Class<?> type();
+
+        double ratio();
+    }
+
+    @Complex(names = {"first", "second"},
+             unit = TimeUnit.SECONDS,
+             nested = @Deprecated,
+             type = String.class,
+             ratio = 0.5)
+    @Deprecated
+    private static class AnnotatedClass implements Serializable, Cloneable {
+
+        private static final long serialVersionUID = 42L;
+        private static final double RATIO = 0.25;
+
+        private long value = serialVersionUID;
+
+        @Override
+        protected Object clone() throws CloneNotSupportedException {
+            return super.clone();
+        }
+
+        private double getRatio() {
+            return value * RATIO;
+        }
+    }
+}
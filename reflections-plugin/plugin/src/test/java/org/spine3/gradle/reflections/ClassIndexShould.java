@@ -0,0 +1,263 @@
+/*
+ * Copyright 2017, TeamDev Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.spine3.gradle.reflections;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.reflections.Reflections;
+import org.reflections.Store;
+import org.reflections.scanners.SubTypesScanner;
+import org.reflections.scanners.TypeAnnotationsScanner;
+import org.reflections.util.ConfigurationBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ClassIndexShould {
+
+    private static final String SUB_TYPES_INDEX = SubTypesScanner.class.getSimpleName();
+    private static final String TYPE_ANNOTATIONS_INDEX =
+            TypeAnnotationsScanner.class.getSimpleName();
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private File classesDir;
+    private File indexFile;
+
+    @Before
+    public void setUp() throws IOException {
+        classesDir = folder.newFolder("classes");
+        indexFile = new File(folder.getRoot(), "index.bin");
+    }
+
+    @Test
+    public void read_added_class_files() throws IOException {
+        final ClassIndex index = ClassIndex.load(indexFile, folder.getRoot());
+
+        final ClassMetadata metadata = index.update(copyClassFile(MarkedClass.class));
+
+        assertEquals(MarkedClass.class.getName(), metadata.getClassName());
+        assertEquals(AnnotatedClass.class.getName(), metadata.getSuperclassName());
+        assertTrue(metadata.getInterfaceNames()
+                           .contains(Marker.class.getName()));
+        assertEquals(1, index.getReadCount());
+        assertEquals(0, index.getUnchangedCount());
+    }
+
+    @Test
+    public void not_read_unchanged_class_files() throws IOException {
+        final File classFile = copyClassFile(MarkedClass.class);
+        scanAndSave(classFile);
+
+        final ClassIndex index = ClassIndex.load(indexFile, folder.getRoot());
+        final ClassMetadata metadata = index.update(classFile);
+
+        assertEquals(MarkedClass.class.getName(), metadata.getClassName());
+        assertEquals(0, index.getReadCount());
+        assertEquals(1, index.getUnchangedCount());
+    }
+
+    @Test
+    public void not_reparse_touched_class_files_with_same_content() throws IOException {
+        final File classFile = copyClassFile(MarkedClass.class);
+        scanAndSave(classFile);
+        assertTrue(classFile.setLastModified(classFile.lastModified() - 60_000));
+
+        final ClassIndex index = ClassIndex.load(indexFile, folder.getRoot());
+        index.update(classFile);
+
+        assertEquals(0, index.getReadCount());
+        assertEquals(1, index.getUnchangedCount());
+    }
+
+    @Test
+    public void reread_changed_class_files() throws IOException {
+        final File classFile = copyClassFile(MarkedClass.class);
+        scanAndSave(classFile);
+        Files.write(classBytes(AnnotatedClass.class), classFile);
+        assertTrue(classFile.setLastModified(classFile.lastModified() + 60_000));
+
+        final ClassIndex index = ClassIndex.load(indexFile, folder.getRoot());
+        final ClassMetadata metadata = index.update(classFile);
+
+        assertEquals(AnnotatedClass.class.getName(), metadata.getClassName());
+        assertEquals(1, index.getReadCount());
+    }
+
+    @Test
+    public void drop_removed_class_files() throws IOException {
+        final File markedClass = copyClassFile(MarkedClass.class);
+        final File annotatedClass = copyClassFile(AnnotatedClass.class);
+        scanAndSave(markedClass, annotatedClass);
+
+        final ClassIndex index = ClassIndex.load(indexFile, folder.getRoot());
+        index.update(annotatedClass);
+        final Store store = newStore();
+        index.addTo(store);
+
+        assertEquals(1, index.getRemovedCount());
+        assertFalse(store.get(SUB_TYPES_INDEX)
+                         .containsValue(MarkedClass.class.getName()));
+    }
+
+    @Test
+    public void reuse_index_of_moved_project() throws IOException {
+        final File classFile = copyClassFile(MarkedClass.class);
+        scanAndSave(classFile);
+        final File movedRoot = folder.newFolder("moved");
+        final File movedClassFile = new File(movedRoot, "classes/" + classFile.getName());
+        final File movedIndexFile = new File(movedRoot, indexFile.getName());
+        Files.createParentDirs(movedClassFile);
+        Files.copy(classFile, movedClassFile);
+        assertTrue(movedClassFile.setLastModified(classFile.lastModified()));
+        Files.copy(indexFile, movedIndexFile);
+
+        final ClassIndex index = ClassIndex.load(movedIndexFile, movedRoot);
+        index.update(movedClassFile);
+
+        assertEquals(0, index.getReadCount());
+        assertEquals(1, index.getUnchangedCount());
+    }
+
+    @Test
+    public void not_leave_temporary_files_on_save() throws IOException {
+        scanAndSave(copyClassFile(MarkedClass.class));
+        scanAndSave(copyClassFile(AnnotatedClass.class));
+
+        assertEquals(ImmutableSet.of(classesDir.getName(), indexFile.getName()),
+                     ImmutableSet.copyOf(folder.getRoot()
+                                               .list()));
+    }
+
+    @Test
+    public void ignore_index_of_unknown_format() throws IOException {
+        Files.write(new byte[]{1, 2, 3}, indexFile);
+
+        final ClassIndex index = ClassIndex.load(indexFile, folder.getRoot());
+        index.update(copyClassFile(MarkedClass.class));
+
+        assertEquals(1, index.getReadCount());
+    }
+
+    @Test
+    public void store_classes_same_as_reflections_scanners() throws IOException {
+        final File[] classFiles = {
+                copyClassFile(MarkedClass.class),
+                copyClassFile(AnnotatedClass.class),
+                copyClassFile(Marker.class),
+                copyClassFile(ClassIndexShould.class)
+        };
+        final ClassIndex index = ClassIndex.load(indexFile, folder.getRoot());
+        for (File classFile : classFiles) {
+            index.update(classFile);
+        }
+        final Store store = newStore();
+        index.addTo(store);
+
+        final ConfigurationBuilder config = new ConfigurationBuilder();
+        config.setUrls(classesDir.toURI()
+                                 .toURL());
+        config.setScanners(new SubTypesScanner(), new TypeAnnotationsScanner());
+        final Store expected = new Reflections(config).getStore();
+
+        assertEquals(expected.keySet(), store.keySet());
+        assertEquals(expected.get(SUB_TYPES_INDEX), store.get(SUB_TYPES_INDEX));
+        assertEquals(expected.get(TYPE_ANNOTATIONS_INDEX), store.get(TYPE_ANNOTATIONS_INDEX));
+    }
+
+    @Test
+    public void read_class_files_in_parallel() throws IOException {
+        final File unchangedClass = copyClassFile(AnnotatedClass.class);
+        scanAndSave(unchangedClass);
+        final List<File> classFiles = ImmutableList.of(unchangedClass,
+                                                       copyClassFile(MarkedClass.class),
+                                                       copyClassFile(Marker.class),
+                                                       new File(classesDir, "Missing.class"));
+
+        final ClassIndex index = ClassIndex.load(indexFile, folder.getRoot());
+        index.update(classFiles);
+        final Store store = newStore();
+        index.addTo(store);
+
+        assertEquals(2, index.getReadCount());
+        assertEquals(1, index.getUnchangedCount());
+        assertTrue(store.get(SUB_TYPES_INDEX)
+                        .containsEntry(Marker.class.getName(), MarkedClass.class.getName()));
+        assertTrue(store.get(SUB_TYPES_INDEX)
+                        .containsEntry(AnnotatedClass.class.getName(),
+                                       MarkedClass.class.getName()));
+    }
+
+    private void scanAndSave(File... classFiles) throws IOException {
+        final ClassIndex index = ClassIndex.load(indexFile, folder.getRoot());
+        for (File classFile : classFiles) {
+            index.update(classFile);
+        }
+        index.save();
+    }
+
+    private File copyClassFile(Class<?> cls) throws IOException {
+        final File result = new File(classesDir, cls.getName() + ".class");
+        Files.write(classBytes(cls), result);
+        return result;
+    }
+
+    private static byte[] classBytes(Class<?> cls) throws IOException {
+        final String resourceName = cls.getName()
+                                       .substring(cls.getPackage()
+                                                     .getName()
+                                                     .length() + 1) + ".class";
+        try (InputStream in = cls.getResourceAsStream(resourceName)) {
+            return ByteStreams.toByteArray(in);
+        }
+    }
+
+    private static Store newStore() {
+        final ConfigurationBuilder config = new ConfigurationBuilder();
+        config.setScanners();
+        return new Reflections(config).getStore();
+    }
+
+    private interface Marker {
+    }
+
+    @Deprecated
+    private static class AnnotatedClass implements Serializable {
+        private static final long serialVersionUID = 0L;
+    }
+
+    private static class MarkedClass extends AnnotatedClass implements Marker {
+        private static final long serialVersionUID = 0L;
+    }
+}
@@ -20,14 +20,20 @@
 package org.spine3.gradle.reflections;
 
 import org.gradle.api.Project;
+import org.gradle.api.tasks.SourceSet;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.List;
+
+import static java.util.Collections.singletonList;
 import static org.spine3.gradle.reflections.Given.REFLECTIONS_PLUGIN_ID;
 import static org.spine3.gradle.reflections.Given.newProject;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
 /**
  * @author Alex Tymchenko
@@ -62,4 +68,68 @@ public class ExtensionShould {
 
         assertEquals(extension.targetDir, dir);
     }
+
+    @Test
+    public void return_main_source_set_by_default() {
+        final List<String> sourceSets = Extension.getSourceSets(project);
+
+        assertEquals(sourceSets, singletonList(SourceSet.MAIN_SOURCE_SET_NAME));
+    }
+
+    @Test
+    public void return_no_packages_by_default() {
+        final List<String> packages = Extension.getPackages(project);
+
+        assertTrue(packages.isEmpty());
+    }
+
+    @Test
+    public void return_xml_format_by_default() {
+        final IndexFormat format = Extension.getFormat(project);
+
+        assertEquals(format, IndexFormat.XML);
+    }
+
+    @Test
+    public void not_generate_registry_by_default() {
+        final String registryClass = Extension.getRegistryClass(project);
+
+        assertNull(registryClass);
+    }
+
+    @Test
+    public void return_format_if_set() {
+        final Extension extension = Extension.reflectionsPlugin(project);
+        extension.format = "binary";
+
+        final IndexFormat format = Extension.getFormat(project);
+
+        assertEquals(format, IndexFormat.BINARY);
+    }
+
+    @Test
+    public void return_format_regardless_of_case() {
+        final Extension extension = Extension.reflectionsPlugin(project);
+        extension.format = " Binary ";
+
+        final IndexFormat format = Extension.getFormat(project);
+
+        assertEquals(format, IndexFormat.BINARY);
+    }
+
+    @Test
+    public void list_supported_formats_if_format_is_unknown() {
+        final Extension extension = Extension.reflectionsPlugin(project);
+        extension.format = "json";
+
+        try {
+            Extension.getFormat(project);
+            fail("The unknown format is accepted.");
+        } catch (IllegalArgumentException e) {
+            final String message = e.getMessage();
+            assertTrue(message.contains("json"));
+            assertTrue(message.contains("xml"));
+            assertTrue(message.contains("binary"));
+        }
+    }
 }
@@ -20,6 +20,7 @@
 package org.spine3.gradle.reflections;
 
 import org.gradle.api.Project;
+import org.gradle.api.plugins.JavaPlugin;
 import org.gradle.testfixtures.ProjectBuilder;
 
 import static org.spine3.gradle.TaskName.BUILD;
@@ -43,4 +44,15 @@ class Given {
         project.task(BUILD.getValue());
         return project;
     }
+
+    /**
+     * Creates a project with the Java plugin applied.
+     */
+    static Project newJavaProject() {
+        final Project project = ProjectBuilder.builder()
+                                              .build();
+        project.getPluginManager()
+               .apply(JavaPlugin.class);
+        return project;
+    }
 }
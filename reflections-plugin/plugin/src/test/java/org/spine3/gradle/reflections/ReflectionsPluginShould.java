@@ -21,9 +21,15 @@ package org.spine3.gradle.reflections;
 
 import org.gradle.api.Project;
 import org.gradle.api.Task;
+import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.api.plugins.JavaPlugin;
 import org.gradle.api.tasks.TaskContainer;
 import org.junit.Test;
 
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.spine3.gradle.TaskDependencies.dependsOn;
@@ -31,6 +37,7 @@ import static org.spine3.gradle.TaskName.BUILD;
 import static org.spine3.gradle.TaskName.CLASSES;
 import static org.spine3.gradle.TaskName.SCAN_CLASS_PATH;
 import static org.spine3.gradle.reflections.Given.REFLECTIONS_PLUGIN_ID;
+import static org.spine3.gradle.reflections.Given.newJavaProject;
 import static org.spine3.gradle.reflections.Given.newProject;
 
 /**
@@ -59,4 +66,48 @@ public class ReflectionsPluginShould {
         assertTrue(dependsOn(scanClassPathTask, CLASSES));
         assertTrue(dependsOn(buildTask, scanClassPathTask));
     }
+
+    @Test
+    public void compile_registry_after_scan() {
+        final Project project = newJavaProject();
+        project.getPluginManager()
+               .apply(REFLECTIONS_PLUGIN_ID);
+        Extension.reflectionsPlugin(project).registryClass = "org.spine3.test.ProjectRegistry";
+        ((ProjectInternal) project).evaluate();
+
+        final TaskContainer tasks = project.getTasks();
+        final Set<Task> buildDependencies = resolveDependencies(tasks.getByName(BUILD.getValue()));
+        final Task scanClassPathTask = tasks.getByName(SCAN_CLASS_PATH.getValue());
+        final Task compileRegistryTask = tasks.getByName("compileReflectionsRegistryJava");
+        final Set<Task> jarDependencies =
+                resolveDependencies(tasks.getByName(JavaPlugin.JAR_TASK_NAME));
+
+        assertTrue(buildDependencies.contains(scanClassPathTask));
+        assertTrue(jarDependencies.contains(compileRegistryTask));
+        assertTrue(resolveDependencies(compileRegistryTask).contains(scanClassPathTask));
+    }
+
+    /**
+     * Obtains all the tasks the given task depends on, directly or transitively.
+     *
+     * <p>Fails if the dependencies are circular.
+     */
+    private static Set<Task> resolveDependencies(Task task) {
+        final Set<Task> result = new LinkedHashSet<>();
+        resolveDependencies(task, new HashSet<Task>(), result);
+        result.remove(task);
+        return result;
+    }
+
+    private static void resolveDependencies(Task task, Set<Task> path, Set<Task> resolved) {
+        assertTrue("Circular dependency on " + task, path.add(task));
+        for (Task dependency : task.getTaskDependencies()
+                                   .getDependencies(task)) {
+            if (!resolved.contains(dependency)) {
+                resolveDependencies(dependency, path, resolved);
+            }
+        }
+        path.remove(task);
+        resolved.add(task);
+    }
 }
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2017, TeamDev Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.spine3.gradle.reflections;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.reflections.Reflections;
+import org.reflections.Store;
+import org.reflections.scanners.SubTypesScanner;
+import org.reflections.scanners.TypeAnnotationsScanner;
+import org.reflections.util.ConfigurationBuilder;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RegistryWriterShould {
+
+    private static final String REGISTRY_CLASS = "org.spine3.test.ProjectRegistry";
+
+    private static final String SUB_TYPES_INDEX = SubTypesScanner.class.getSimpleName();
+    private static final String TYPE_ANNOTATIONS_INDEX =
+            TypeAnnotationsScanner.class.getSimpleName();
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private Store store;
+
+    @Before
+    public void setUp() {
+        final ConfigurationBuilder config = new ConfigurationBuilder();
+        config.setScanners();
+        store = new Reflections(config).getStore();
+        ClassMetadata.createIndexes(store);
+    }
+
+    @Test
+    public void generate_registry_of_subtypes_and_annotated_types() throws Exception {
+        store.get(SUB_TYPES_INDEX)
+             .put("org.spine3.base.Message", "org.spine3.base.Command");
+        store.get(SUB_TYPES_INDEX)
+             .put("org.spine3.base.Message", "org.spine3.base.Event");
+        store.get(SUB_TYPES_INDEX)
+             .put("org.spine3.base.Command", "org.spine3.base.CreateProject");
+        store.get(TYPE_ANNOTATIONS_INDEX)
+             .put("org.spine3.Internal", "org.spine3.server.Repository");
+
+        final Class<?> registry = compile();
+
+        assertEquals(ImmutableList.of("org.spine3.base.Command", "org.spine3.base.Event"),
+                     invoke(registry, "getDirectSubTypesOf", "org.spine3.base.Message"));
+        assertEquals(ImmutableSet.of("org.spine3.base.Command",
+                                     "org.spine3.base.Event",
+                                     "org.spine3.base.CreateProject"),
+                     invoke(registry, "getSubTypesOf", "org.spine3.base.Message"));
+        assertEquals(ImmutableList.of("org.spine3.server.Repository"),
+                     invoke(registry, "getTypesAnnotatedWith", "org.spine3.Internal"));
+        assertEquals(Collections.emptyList(),
+                     invoke(registry, "getDirectSubTypesOf", "org.spine3.base.Unknown"));
+    }
+
+    @Test
+    public void generate_registry_of_many_types() throws Exception {
+        for (int i = 0; i < 5_000; i++) {
+            store.get(SUB_TYPES_INDEX)
+                 .put("org.spine3.base.Type" + i % 7, "org.spine3.base.SubType" + i);
+        }
+
+        final String source = new RegistryWriter(REGISTRY_CLASS).generate(store)
+                                                                .toString();
+        final Class<?> registry = compile();
+
+        assertTrue(source.contains("registerSubTypes1()"));
+        assertEquals(714, ((List<?>) invoke(registry, "getDirectSubTypesOf",
+                                            "org.spine3.base.Type3")).size());
+    }
+
+    @Test
+    public void generate_empty_registry() throws Exception {
+        final Class<?> registry = compile();
+
+        assertEquals(Collections.emptySet(),
+                     invoke(registry, "getSubTypesOf", "org.spine3.base.Message"));
+    }
+
+    @Test
+    public void generate_same_code_for_same_types() {
+        store.get(SUB_TYPES_INDEX)
+             .put("org.spine3.base.Message", "org.spine3.base.Event");
+        store.get(SUB_TYPES_INDEX)
+             .put("org.spine3.base.Message", "org.spine3.base.Command");
+        final String first = new RegistryWriter(REGISTRY_CLASS).generate(store)
+                                                               .toString();
+
+        setUp();
+        store.get(SUB_TYPES_INDEX)
+             .put("org.spine3.base.Message", "org.spine3.base.Command");
+        store.get(SUB_TYPES_INDEX)
+             .put("org.spine3.base.Message", "org.spine3.base.Event");
+        final String second = new RegistryWriter(REGISTRY_CLASS).generate(store)
+                                                                .toString();
+
+        assertEquals(first, second);
+    }
+
+    @Test
+    public void remove_previous_sources_on_write() throws IOException {
+        final File sourceDir = folder.newFolder("generated");
+        final File staleSource = new File(sourceDir, "org/spine3/OldRegistry.java");
+        new RegistryWriter("org.spine3.OldRegistry").writeSource(store, sourceDir);
+        assertTrue(staleSource.isFile());
+
+        new RegistryWriter(REGISTRY_CLASS).writeSource(store, sourceDir);
+
+        assertFalse(staleSource.exists());
+    }
+
+    @Test
+    public void write_source_to_package_directory() {
+        final File sourceDir = new File(folder.getRoot(), "generated");
+
+        final File sourceFile = new RegistryWriter(REGISTRY_CLASS).writeSource(store, sourceDir);
+
+        assertEquals(new File(sourceDir, "org/spine3/test/ProjectRegistry.java"), sourceFile);
+        assertTrue(sourceFile.isFile());
+    }
+
+    private Class<?> compile() throws IOException, ClassNotFoundException {
+        final File sourceDir = folder.newFolder("generated");
+        final File classesDir = new File(folder.getRoot(), "classes");
+        final File sourceFile = new RegistryWriter(REGISTRY_CLASS).writeSource(store, sourceDir);
+
+        assertTrue(classesDir.mkdir());
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        final int result = compiler.run(null, null, null,
+                                        "-d", classesDir.getPath(), sourceFile.getPath());
+        assertEquals(0, result);
+
+        final ClassLoader classLoader = new URLClassLoader(new URL[]{classesDir.toURI()
+                                                                               .toURL()});
+        return classLoader.loadClass(REGISTRY_CLASS);
+    }
+
+    private static Object invoke(Class<?> registry, String methodName, String argument)
+            throws Exception {
+        final Method method = registry.getMethod(methodName, String.class);
+        return method.invoke(null, argument);
+    }
+}
@@ -0,0 +1,352 @@
+/*
+ * Copyright 2017, TeamDev Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.spine3.tools.reflections;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Multimap;
+import org.reflections.Store;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A Reflections index in the binary format written by the Reflections Gradle plugin.
+ *
+ * <p>To load the index into {@code Reflections}, use the {@link BinaryIndexReader}.
+ *
+ * <p>The index is read lazily. Opening it only checks the header, and each lookup decodes
+ * only the strings and the shard it touches. So the index may be memory-mapped with
+ * {@link #open(File)} and queried right away, without being parsed as a whole.
+ *
+ * <p>The format consists of the following sections. All the numbers are big-endian
+ * {@code int}s.
+ * <ol>
+ *     <li>The header: the {@linkplain #MAGIC magic number} and the {@linkplain #VERSION version}.
+ *     <li>The string table: the number of strings, the offsets of the strings followed by
+ *         the end offset of the last string, and the UTF-8 bytes of the strings. The strings
+ *         are sorted, so a string ID is its position in the sorted order.
+ *     <li>The IDs of the index names, e.g. {@code SubTypesScanner}, sorted by name.
+ *     <li>The shard directory: the number of shards and the package name ID and the offset
+ *         of each shard, sorted by the package name.
+ *     <li>The shards. Each shard holds the entries whose keys belong to the same package.
+ *         For each index, a shard contains the number of entries, the entries sorted by
+ *         the key, and the value IDs of all the entries. An entry is the key ID, the position
+ *         of its first value, and the number of its values.
+ * </ol>
+ *
+ * <p>The keys are sharded by their package, which is the part of the name before
+ * the last dot, e.g. {@code org.spine3.base} for {@code org.spine3.base.Command}.
+ */
+public final class BinaryIndex {
+
+    /**
+     * The magic number starting the index, which spells {@code SRFX}.
+     */
+    public static final int MAGIC = 0x53524658;
+
+    /**
+     * The version of the index format.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * The charset of the strings in the index.
+     */
+    public static final Charset CHARSET = StandardCharsets.UTF_8;
+
+    private static final int ENTRY_SIZE = 3 * Integer.SIZE / Byte.SIZE;
+    private static final int SHARD_REFERENCE_SIZE = 2 * Integer.SIZE / Byte.SIZE;
+
+    private final ByteBuffer buffer;
+    private final int stringCount;
+    private final int stringOffsetsPosition;
+    private final int stringDataPosition;
+    private final int indexCount;
+    private final int indexNamesPosition;
+    private final int shardCount;
+    private final int shardsPosition;
+
+    private BinaryIndex(ByteBuffer buffer) {
+        this.buffer = buffer;
+        checkArgument(buffer.getInt(0) == MAGIC, "Not a binary Reflections index.");
+        final int version = buffer.getInt(4);
+        checkArgument(version == VERSION, "Unsupported binary Reflections index version %s.",
+                      version);
+        stringCount = buffer.getInt(8);
+        stringOffsetsPosition = 12;
+        stringDataPosition = stringOffsetsPosition + (stringCount + 1) * 4;
+        final int stringDataLength = buffer.getInt(stringOffsetsPosition + stringCount * 4);
+        final int indexesPosition = stringDataPosition + stringDataLength;
+        indexCount = buffer.getInt(indexesPosition);
+        indexNamesPosition = indexesPosition + 4;
+        final int directoryPosition = indexNamesPosition + indexCount * 4;
+        shardCount = buffer.getInt(directoryPosition);
+        shardsPosition = directoryPosition + 4;
+    }
+
+    /**
+     * Memory-maps the index file.
+     *
+     * @param file the index file
+     * @return the mapped index
+     * @throws IOException if the file cannot be read
+     */
+    public static BinaryIndex open(File file) throws IOException {
+        final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            final FileChannel channel = randomAccessFile.getChannel();
+            return wrap(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    /**
+     * Creates the index backed by the contents of the buffer.
+     *
+     * <p>The index contents are expected to start at the beginning of the buffer.
+     * The position of the buffer is not changed.
+     *
+     * @param buffer the index contents
+     * @return the index
+     */
+    public static BinaryIndex wrap(ByteBuffer buffer) {
+        return new BinaryIndex(buffer.duplicate());
+    }
+
+    /**
+     * Obtains the names of the indexes, e.g. {@code SubTypesScanner}.
+     */
+    public List<String> getIndexNames() {
+        final ImmutableList.Builder<String> result = ImmutableList.builder();
+        for (int i = 0; i < indexCount; i++) {
+            result.add(getString(getIndexNameId(i)));
+        }
+        return result.build();
+    }
+
+    /**
+     * Obtains the number of the shards in the index.
+     */
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * Obtains the values stored by the key in the index.
+     *
+     * <p>For example, {@code getValues("SubTypesScanner", "org.spine3.base.Command")}
+     * obtains the names of the direct subtypes of {@code Command}.
+     *
+     * <p>Only the shard of the key package is read.
+     *
+     * @param indexName the name of the index
+     * @param key       the key to look up
+     * @return the values or an empty set if there are no values for the key
+     */
+    public Set<String> getValues(String indexName, String key) {
+        final int indexPosition = findIndex(indexName);
+        final int shard = findShard(packageOf(key));
+        final int keyId = findString(key);
+        if (indexPosition < 0 || shard < 0 || keyId < 0) {
+            return ImmutableSet.of();
+        }
+        final int sectionPosition = getSectionPosition(getShardOffset(shard), indexPosition);
+        final int entryCount = buffer.getInt(sectionPosition);
+        final int entriesPosition = sectionPosition + 4;
+        final int entry = findEntry(entriesPosition, entryCount, keyId);
+        if (entry < 0) {
+            return ImmutableSet.of();
+        }
+        final int valuesPosition = entriesPosition + entryCount * ENTRY_SIZE;
+        return readValues(valuesPosition, entriesPosition + entry * ENTRY_SIZE);
+    }
+
+    /**
+     * Adds all the entries of the index to the Reflections store.
+     *
+     * <p>Reads the whole index.
+     *
+     * @param store the store to add the entries to
+     */
+    public void addTo(Store store) {
+        final List<String> indexNames = getIndexNames();
+        for (String indexName : indexNames) {
+            store.getOrCreate(indexName);
+        }
+        for (int shard = 0; shard < shardCount; shard++) {
+            int sectionPosition = getShardOffset(shard);
+            for (String indexName : indexNames) {
+                final Multimap<String, String> index = store.get(indexName);
+                final int entryCount = buffer.getInt(sectionPosition);
+                final int entriesPosition = sectionPosition + 4;
+                final int valuesPosition = entriesPosition + entryCount * ENTRY_SIZE;
+                for (int entry = 0; entry < entryCount; entry++) {
+                    final int entryPosition = entriesPosition + entry * ENTRY_SIZE;
+                    final String key = getString(buffer.getInt(entryPosition));
+                    index.putAll(key, readValues(valuesPosition, entryPosition));
+                }
+                sectionPosition = getSectionEnd(sectionPosition);
+            }
+        }
+    }
+
+    private Set<String> readValues(int valuesPosition, int entryPosition) {
+        final int firstValue = buffer.getInt(entryPosition + 4);
+        final int valueCount = buffer.getInt(entryPosition + 8);
+        final ImmutableSet.Builder<String> result = ImmutableSet.builder();
+        for (int i = 0; i < valueCount; i++) {
+            result.add(getString(buffer.getInt(valuesPosition + (firstValue + i) * 4)));
+        }
+        return result.build();
+    }
+
+    /**
+     * Obtains the position of the section of the index in the shard.
+     */
+    private int getSectionPosition(int shardOffset, int indexPosition) {
+        int result = shardOffset;
+        for (int i = 0; i < indexPosition; i++) {
+            result = getSectionEnd(result);
+        }
+        return result;
+    }
+
+    private int getSectionEnd(int sectionPosition) {
+        final int entryCount = buffer.getInt(sectionPosition);
+        final int entriesPosition = sectionPosition + 4;
+        int valueCount = 0;
+        if (entryCount > 0) {
+            final int lastEntry = entriesPosition + (entryCount - 1) * ENTRY_SIZE;
+            valueCount = buffer.getInt(lastEntry + 4) + buffer.getInt(lastEntry + 8);
+        }
+        return entriesPosition + entryCount * ENTRY_SIZE + valueCount * 4;
+    }
+
+    private int findEntry(int entriesPosition, int entryCount, int keyId) {
+        int low = 0;
+        int high = entryCount - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final int middleKey = buffer.getInt(entriesPosition + middle * ENTRY_SIZE);
+            if (middleKey < keyId) {
+                low = middle + 1;
+            } else if (middleKey > keyId) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    private int findIndex(String indexName) {
+        int low = 0;
+        int high = indexCount - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final int comparison = getString(getIndexNameId(middle)).compareTo(indexName);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    private int findShard(String packageName) {
+        int low = 0;
+        int high = shardCount - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final int packageId = buffer.getInt(shardsPosition + middle * SHARD_REFERENCE_SIZE);
+            final int comparison = getString(packageId).compareTo(packageName);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    private int findString(String value) {
+        int low = 0;
+        int high = stringCount - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final int comparison = getString(middle).compareTo(value);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    private int getIndexNameId(int indexPosition) {
+        return buffer.getInt(indexNamesPosition + indexPosition * 4);
+    }
+
+    private int getShardOffset(int shard) {
+        return buffer.getInt(shardsPosition + shard * SHARD_REFERENCE_SIZE + 4);
+    }
+
+    private String getString(int id) {
+        final int start = buffer.getInt(stringOffsetsPosition + id * 4);
+        final int end = buffer.getInt(stringOffsetsPosition + (id + 1) * 4);
+        final byte[] bytes = new byte[end - start];
+        final ByteBuffer string = buffer.duplicate();
+        string.position(stringDataPosition + start);
+        string.get(bytes);
+        return new String(bytes, CHARSET);
+    }
+
+    /**
+     * Obtains the package of the type name, which is used to shard the keys.
+     *
+     * @param typeName the type name
+     * @return the package name or an empty string for the default package
+     */
+    public static String packageOf(String typeName) {
+        final int lastDot = typeName.lastIndexOf('.');
+        return lastDot < 0
+               ? ""
+               : typeName.substring(0, lastDot);
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2017, TeamDev Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.spine3.tools.reflections;
+
+import com.google.common.io.ByteStreams;
+import org.reflections.Reflections;
+import org.reflections.ReflectionsException;
+import org.reflections.serializers.Serializer;
+import org.reflections.util.ConfigurationBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * The Reflections {@link Serializer} loading the {@linkplain BinaryIndex binary index}
+ * as a whole.
+ *
+ * <p>The index is collected at runtime, e.g.:
+ * <pre>{@code
+ * Reflections.collect("META-INF/reflections/",
+ *                     new FilterBuilder().include(".*-reflections.bin"),
+ *                     new BinaryIndexReader());
+ * }</pre>
+ *
+ * <p>To query the index lazily, use {@link BinaryIndex#open(File)} instead.
+ *
+ * <p>The reader does not write the index. The index is written by the Reflections
+ * Gradle plugin.
+ */
+public class BinaryIndexReader implements Serializer {
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Reads the whole index.
+     */
+    @Override
+    public Reflections read(InputStream inputStream) {
+        final byte[] content;
+        try {
+            content = ByteStreams.toByteArray(inputStream);
+        } catch (IOException e) {
+            throw new ReflectionsException("Could not read the binary index.", e);
+        }
+        final ConfigurationBuilder config = new ConfigurationBuilder();
+        config.setScanners();
+        final Reflections result = new Reflections(config);
+        BinaryIndex.wrap(ByteBuffer.wrap(content))
+                   .addTo(result.getStore());
+        return result;
+    }
+
+    /**
+     * Always throws {@code UnsupportedOperationException}, as the reader does not write
+     * the index.
+     */
+    @Override
+    public File save(Reflections reflections, String filename) {
+        throw new UnsupportedOperationException("The binary index is written at build time.");
+    }
+
+    /**
+     * Always throws {@code UnsupportedOperationException}, as the reader does not write
+     * the index.
+     */
+    @Override
+    public String toString(Reflections reflections) {
+        throw new UnsupportedOperationException("The binary index is written at build time.");
+    }
+}